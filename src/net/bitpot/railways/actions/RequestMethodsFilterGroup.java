@@ -0,0 +1,76 @@
+package net.bitpot.railways.actions;
+
+import com.intellij.openapi.actionSystem.ActionGroup;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.ToggleAction;
+import com.intellij.openapi.project.Project;
+import net.bitpot.railways.models.RequestMethods;
+import net.bitpot.railways.models.requestMethods.RequestMethod;
+import net.bitpot.railways.routesView.RoutesView;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Group of toggles which show or hide routes with specific request method.
+ */
+public class RequestMethodsFilterGroup extends ActionGroup {
+
+    private final AnAction[] children;
+
+
+    public RequestMethodsFilterGroup() {
+        List<AnAction> actions = new ArrayList<>();
+        for (RequestMethod method : RequestMethods.getAllRequestMethods())
+            actions.add(new RequestMethodAction(method));
+
+        children = actions.toArray(new AnAction[0]);
+    }
+
+
+    @NotNull
+    @Override
+    public AnAction[] getChildren(@Nullable AnActionEvent e) {
+        return children;
+    }
+
+
+    private static class RequestMethodAction extends ToggleAction {
+        private final RequestMethod method;
+
+
+        RequestMethodAction(RequestMethod method) {
+            super(method.getName(), "Show routes with " + method.getName() +
+                    " request method", method.getIcon());
+            this.method = method;
+        }
+
+
+        @Override
+        public boolean isSelected(AnActionEvent event) {
+            RoutesView view = getRoutesView(event.getProject());
+
+            return (view == null) || view.isRequestMethodVisible(method);
+        }
+
+        @Override
+        public void setSelected(AnActionEvent event, boolean b) {
+            RoutesView view = getRoutesView(event.getProject());
+            if (view == null)
+                return;
+
+            view.setRequestMethodVisible(method, b);
+        }
+
+
+        private RoutesView getRoutesView(Project project) {
+            if (project == null)
+                return null;
+
+            return RoutesView.getInstance(project);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package net.bitpot.railways.actions;
+
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.ToggleAction;
+import com.intellij.openapi.project.Project;
+import net.bitpot.railways.routesView.RoutesView;
+
+/**
+ * Toggles facet of routes filter which shows only routes of some kind.
+ */
+public abstract class RouteFacetActionBase extends ToggleAction {
+
+    private final int facet;
+
+
+    /**
+     * @param facet One of RoutesFilter.FACET_* constants.
+     */
+    protected RouteFacetActionBase(int facet) {
+        this.facet = facet;
+    }
+
+
+    @Override
+    public boolean isSelected(AnActionEvent event) {
+        RoutesView view = getRoutesView(event.getProject());
+
+        return (view != null) && view.isFacetEnabled(facet);
+    }
+
+    @Override
+    public void setSelected(AnActionEvent event, boolean b) {
+        RoutesView view = getRoutesView(event.getProject());
+        if (view == null)
+            return;
+
+        view.setFacetEnabled(facet, b);
+    }
+
+
+    private RoutesView getRoutesView(Project project) {
+        if (project == null)
+            return null;
+
+        return RoutesView.getInstance(project);
+    }
+
+}
@@ -0,0 +1,13 @@
+package net.bitpot.railways.actions;
+
+import net.bitpot.railways.models.RoutesFilter;
+
+/**
+ * Shows only routes which mount engines.
+ */
+public class ShowOnlyEngineRoutesAction extends RouteFacetActionBase {
+
+    public ShowOnlyEngineRoutesAction() {
+        super(RoutesFilter.FACET_ENGINE_ROUTES);
+    }
+}
@@ -0,0 +1,13 @@
+package net.bitpot.railways.actions;
+
+import net.bitpot.railways.models.RoutesFilter;
+
+/**
+ * Shows only redirect routes.
+ */
+public class ShowOnlyRedirectsAction extends RouteFacetActionBase {
+
+    public ShowOnlyRedirectsAction() {
+        super(RoutesFilter.FACET_REDIRECTS);
+    }
+}
@@ -0,0 +1,13 @@
+package net.bitpot.railways.actions;
+
+import net.bitpot.railways.models.RoutesFilter;
+
+/**
+ * Shows only routes whose actions are not found in controllers.
+ */
+public class ShowOnlyUnresolvedActionsAction extends RouteFacetActionBase {
+
+    public ShowOnlyUnresolvedActionsAction() {
+        super(RoutesFilter.FACET_UNRESOLVED_ACTIONS);
+    }
+}
@@ -3,7 +3,9 @@ package net.bitpot.railways.gui;
 import com.intellij.ui.ColoredTableCellRenderer;
 import com.intellij.ui.SimpleTextAttributes;
 import com.intellij.util.ui.UIUtil;
+import net.bitpot.railways.models.RouteTableModel;
 import net.bitpot.railways.models.RoutesFilter;
+import net.bitpot.railways.models.WildcardMatcher;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -11,17 +13,20 @@ import javax.swing.*;
 
 public class FilterHighlightRenderer extends ColoredTableCellRenderer {
 
-    // Contains formatted text.
-    private final RoutesFilter filter;
+    private final RouteTableModel tableModel;
 
 
-    FilterHighlightRenderer(@NotNull RoutesFilter filter) {
-        this.filter = filter;
+    FilterHighlightRenderer(@NotNull RouteTableModel tableModel) {
+        this.tableModel = tableModel;
     }
 
 
+    /**
+     * Returns filter which shown rows were filtered with, so highlighting
+     * always matches the rows even if the filter is already changed.
+     */
     RoutesFilter getFilter() {
-        return filter;
+        return tableModel.getAppliedFilter();
     }
 
 
@@ -38,56 +43,36 @@ public class FilterHighlightRenderer extends ColoredTableCellRenderer {
         setForeground(UIUtil.getTableForeground(selected, table.hasFocus()));
 
         String text = value.toString();
+        RoutesFilter filter = getFilter();
 
         if (selected) {
             append(text, SimpleTextAttributes.REGULAR_ATTRIBUTES);
+        } else if (filter.isFuzzyMatching()) {
+            appendHighlighted(text, filter.findFuzzyMatchRegions(WildcardMatcher.toLowerCase(text)));
         } else {
-            appendHighlighted(text, filter.findMatchedString(text));
+            appendHighlighted(text, filter.findMatchRegions(WildcardMatcher.toLowerCase(text)));
         }
     }
 
 
     /**
-     * Appends passed string, highlighting passed substring.
-     *
-     * @param value Value to be displayed.
-     * @param highlight Substring of value to be highlighted.
-     */
-    private void appendHighlighted(String value, String highlight) {
-        appendHighlighted(value, highlight,
-                SimpleTextAttributes.REGULAR_ATTRIBUTES);
-    }
-
-
-    /**
-     * Appends passed string, highlighting passed substring.
+     * Appends passed string, highlighting its regions.
      *
      * @param value Value to be displayed.
-     * @param highlight Substring of value to be highlighted.
-     * @param textAttrs Attributes of not highlighted text.
+     * @param regions Start and end offsets of highlighted regions, can be null.
      */
-    private void appendHighlighted(String value, String highlight,
-                                   SimpleTextAttributes textAttrs) {
-        if (highlight.equals("")) {
-            append(value, textAttrs);
-            return;
-        }
-
-        int fromIndex = 0;
-        int pos;
-        String lowCaseValue = value.toLowerCase();
-
-        while ((pos = lowCaseValue.indexOf(highlight, fromIndex)) >= 0) {
-            append(value.substring(fromIndex, pos), textAttrs);
-
-            // Highlighted part must be taken from the value as its character
-            // case can differ from highlight parameter.
-            append(value.substring(pos, pos + highlight.length()),
-                    RailwaysColors.REGULAR_HL_ATTR);
-
-            fromIndex = pos + highlight.length();
-        }
-
-        append(value.substring(fromIndex), textAttrs);
+    private void appendHighlighted(String value, @Nullable int[] regions) {
+        SimpleTextAttributes textAttrs = SimpleTextAttributes.REGULAR_ATTRIBUTES;
+        int pos = 0;
+
+        if (regions != null)
+            for (int i = 0; i + 1 < regions.length; i += 2) {
+                append(value.substring(pos, regions[i]), textAttrs);
+                append(value.substring(regions[i], regions[i + 1]),
+                        RailwaysColors.REGULAR_HL_ATTR);
+                pos = regions[i + 1];
+            }
+
+        append(value.substring(pos), textAttrs);
     }
 }
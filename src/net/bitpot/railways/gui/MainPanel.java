@@ -28,6 +28,7 @@ import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.List;
 
 /**
  *
@@ -97,16 +98,16 @@ public class MainPanel {
         // Init handlers after everything is initialized
         initHandlers();
 
-        myTableModel = new RouteTableModel();
+        myTableModel = new RouteTableModel(true);
         routesTable.setModel(myTableModel);
 
         myTableModel.addTableModelListener(e -> updateCounterLabel());
 
         routesTable.setDefaultRenderer(Route.class,
-                new RouteCellRenderer(myTableModel.getFilter()));
+                new RouteCellRenderer(myTableModel));
 
         routesTable.setDefaultRenderer(Object.class,
-                new FilterHighlightRenderer(myTableModel.getFilter()));
+                new FilterHighlightRenderer(myTableModel));
 
         routesTable.setRowHeight(20);
 
@@ -389,11 +390,28 @@ public class MainPanel {
 
     public void setUpdatedRoutes(RouteList routeList) {
         myTableModel.setRoutes(routeList);
+
+        // Model notifies only about changed rows, but action status of
+        // unchanged routes could be changed too.
+        routesTable.repaint();
+
         showRoutesPanel();
         UpdateRoutesListAction.updateIcon(project);
     }
 
 
+    /**
+     * Shows routes that are received while routes update is still in
+     * progress.
+     *
+     * @param routeList Routes received so far.
+     */
+    public void setPartialRoutes(RouteList routeList) {
+        myTableModel.setRoutes(routeList);
+        showRoutesPanel();
+    }
+
+
     public void showLoadingMessage() {
         RoutesManager.State settings = myDataSource.getRoutesManager().getState();
         showMessagePanel("Running `rake " + settings.routesTaskName + "`...",
@@ -424,9 +442,20 @@ public class MainPanel {
     }
 
 
-    public void refresh() {
+    /**
+     * Repaints rows of the routes which action status was updated.
+     */
+    public void routesUpdated(@NotNull List<Route> routes) {
         // Use fireTableRowsUpdated to avoid full tree refresh and to keep selection.
-        myTableModel.fireTableRowsUpdated(0, myTableModel.getRowCount() - 1);
+        myTableModel.routesUpdated(routes);
+    }
+
+
+    /**
+     * Refilters routes by action status when all routes are resolved.
+     */
+    public void actionStatusChanged() {
+        myTableModel.actionStatusChanged();
     }
 
     public RoutesFilter getRouteFilter() {
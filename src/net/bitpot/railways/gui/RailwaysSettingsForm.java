@@ -25,6 +25,7 @@ public class RailwaysSettingsForm {
     private JComboBox<String> environmentCombo;
     private JCheckBox autoUpdateChk;
     private JCheckBox liveActionHighlightingChk;
+    private JCheckBox useRoutesWorkerChk;
 
     private final Module myModule;
 
@@ -97,6 +98,7 @@ public class RailwaysSettingsForm {
         initRailsEnvsComboBox(settings.environment, environmentCombo, myModule);
         autoUpdateChk.setSelected(settings.autoUpdate);
         liveActionHighlightingChk.setSelected(settings.liveActionHighlighting);
+        useRoutesWorkerChk.setSelected(settings.useRoutesWorker);
     }
 
 
@@ -111,6 +113,7 @@ public class RailwaysSettingsForm {
                 (String)(environmentCombo.getSelectedItem());
         settings.autoUpdate = autoUpdateChk.isSelected();
         settings.liveActionHighlighting = liveActionHighlightingChk.isSelected();
+        settings.useRoutesWorker = useRoutesWorkerChk.isSelected();
     }
 
 
@@ -17,9 +17,14 @@ import java.util.List;
 
 public class RouteCellRenderer extends FilterHighlightRenderer {
 
+    private static final int[] NO_REGIONS = new int[0];
 
-    RouteCellRenderer(@NotNull RoutesFilter filter) {
-        super(filter);
+    // Buffer which is reused when highlight spans are found.
+    private final HighlightSpans spansBuffer = new HighlightSpans();
+
+
+    RouteCellRenderer(@NotNull RouteTableModel tableModel) {
+        super(tableModel);
 
         setTransparentIconBackground(true);
     }
@@ -57,8 +62,8 @@ public class RouteCellRenderer extends FilterHighlightRenderer {
         if (route instanceof SimpleRoute) {
             action = ((SimpleRoute)route).getActionInfo();
 
-            if (action.getPsiMethod() == null)
-                tooltipText = action.getPsiClass() != null ?
+            if (!action.isMethodFound())
+                tooltipText = action.isControllerFound() ?
                         "Cannot find action declaration" :
                         "Cannot find controller declaration";
         }
@@ -67,39 +72,68 @@ public class RouteCellRenderer extends FilterHighlightRenderer {
         setToolTipText(tooltipText);
 
         // Now append text taking into account colors and highlighting.
-        String highlightedText = getFilter().findMatchedString(route.getActionTitle());
-        List<TextChunk> chunks = RouteActionParser.getInstance().highlight(
-                route.getActionChunks(), highlightedText);
+        int generation = getFilter().getGeneration();
+        List<TextChunk> chunks = route.getActionChunks();
+        HighlightSpans spans = route.getHighlightedActionSpans(generation);
+        if (spans == null) {
+            spans = findSpans(chunks, route.getLowerCaseActionTitle());
+            route.setHighlightedActionSpans(generation, spans);
+        }
 
-        for(TextChunk chunk: chunks) {
+        for (int i = 0; i < spans.getSpanCount(); i++) {
+            TextChunk chunk = chunks.get(spans.getChunkIndex(i));
+            boolean isHighlighted = spans.isHighlighted(i);
             SimpleTextAttributes textAttrs;
 
             if (action != null &&
                     ((chunk.getType() == RouteActionChunk.CONTAINER &&
-                    action.getPsiClass() == null) ||
+                    !action.isControllerFound()) ||
                     (chunk.getType() == RouteActionChunk.ACTION &&
-                            action.getPsiMethod() == null))) {
+                            !action.isMethodFound()))) {
 
-                textAttrs = chunk.isHighlighted() ?
+                textAttrs = isHighlighted ?
                         RailwaysColors.DISABLED_ITEM_HL_ATTR :
                         RailwaysColors.DISABLED_ITEM_ATTR;
             } else
-                textAttrs = chunk.getTextAttrs();
+                textAttrs = chunk.getTextAttrs(isHighlighted);
 
-            append(chunk.getText(), textAttrs);
+            append(spans.getText(chunks, i), textAttrs);
         }
     }
 
 
     private void renderRoutePath(Route route) {
-        String highlightedText = getFilter().findMatchedString(route.getPath());
-        List<TextChunk> chunks = RoutePathParser.getInstance().highlight(
-                route.getPathChunks(), highlightedText);
+        int generation = getFilter().getGeneration();
+        List<TextChunk> chunks = route.getPathChunks();
+        HighlightSpans spans = route.getHighlightedPathSpans(generation);
+        if (spans == null) {
+            spans = findSpans(chunks, route.getLowerCasePath());
+            route.setHighlightedPathSpans(generation, spans);
+        }
 
-        for(TextChunk chunk: chunks)
-            append(chunk.getText(), chunk.getTextAttrs());
+        for (int i = 0; i < spans.getSpanCount(); i++)
+            append(spans.getText(chunks, i), chunks.get(spans.getChunkIndex(i))
+                    .getTextAttrs(spans.isHighlighted(i)));
 
         setToolTipText(null);
         setIcon(route.getRequestMethod().getIcon());
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Finds highlight spans of chunks matched by the filter. Spans are found
+     * in the reusable buffer and only their compact copy is allocated.
+     */
+    private HighlightSpans findSpans(List<TextChunk> chunks, String lowerCaseText) {
+        RoutesFilter filter = getFilter();
+
+        // All occurrences of filter text are highlighted.
+        int[] regions = filter.isFuzzyMatching() ?
+                filter.findFuzzyMatchRegions(lowerCaseText) :
+                filter.findMatchRegions(lowerCaseText);
+
+        TextChunkHighlighter.findSpans(chunks, regions == null ? NO_REGIONS : regions,
+                regions == null ? 0 : regions.length, spansBuffer);
+        return spansBuffer.copy();
+    }
+}
@@ -0,0 +1,233 @@
+package net.bitpot.railways.index;
+
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import net.bitpot.railways.models.RailsActionInfo;
+import net.bitpot.railways.models.Route;
+import net.bitpot.railways.models.routes.SimpleRoute;
+import net.bitpot.railways.utils.RailwaysPsiUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.plugins.ruby.ruby.lang.RubyFileType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Index of classes and modules in controller files by qualified name. It
+ * keeps their public and non-public methods, parent classes and included
+ * modules, so action status of routes can be found without PSI: right after
+ * the project is opened or while the project is indexed. The index is
+ * stored by the platform between IDE sessions.
+ */
+public class ControllerActionsIndex extends FileBasedIndexExtension<String, ControllerInfo> {
+
+    public static final ID<String, ControllerInfo> NAME = ID.create("railways.controllerActions");
+
+    private static final int VERSION = 1;
+
+
+    @NotNull
+    @Override
+    public ID<String, ControllerInfo> getName() {
+        return NAME;
+    }
+
+
+    @NotNull
+    @Override
+    public DataIndexer<String, ControllerInfo, FileContent> getIndexer() {
+        return inputData -> {
+            Map<String, ControllerInfo> result = new HashMap<>();
+            for (ControllerInfo info : ControllerSourceScanner.scan(inputData.getContentAsText()))
+                result.put(info.getQualifiedName(), info);
+
+            return result;
+        };
+    }
+
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+
+    @NotNull
+    @Override
+    public DataExternalizer<ControllerInfo> getValueExternalizer() {
+        return new ControllerInfoExternalizer();
+    }
+
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        // Only controllers and their concerns are indexed, as other Ruby
+        // files cannot contain controller actions.
+        return new DefaultFileTypeSpecificInputFilter(RubyFileType.RUBY) {
+            @Override
+            public boolean acceptInput(@NotNull VirtualFile file) {
+                return file.getPath().contains("/controllers/");
+            }
+        };
+    }
+
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+
+    /**
+     * Sets action status from the index to routes. Index data is used even
+     * in dumb mode, only files which are already indexed are taken into
+     * account then.
+     *
+     * @param module Module with Rails application.
+     * @param routes Routes to update.
+     */
+    public static void updateActionsStatus(@NotNull Module module,
+                                           @NotNull List<Route> routes) {
+        applyActionsStatus(routes, findActionsStatus(module, routes));
+    }
+
+
+    /**
+     * Sets found statuses to routes which actions are not resolved.
+     *
+     * @param routes Routes which statuses were found for.
+     * @param statuses Statuses returned by findActionsStatus.
+     */
+    public static void applyActionsStatus(@NotNull List<Route> routes,
+                                          @NotNull int[] statuses) {
+        for (int i = 0; i < statuses.length; i++) {
+            Route route = routes.get(i);
+            if (route instanceof SimpleRoute) {
+                RailsActionInfo info = ((SimpleRoute) route).getActionInfo();
+                if (!info.isResolved())
+                    info.setIndexedStatus(statuses[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Finds action status of routes in the index. Routes are not changed, so
+     * statuses can be found in background and applied in EDT.
+     *
+     * @param module Module with Rails application.
+     * @param routes Routes to find status of.
+     * @return RailsActionInfo.INDEXED_* statuses by route positions.
+     *         INDEXED_UNKNOWN is returned for routes with already resolved
+     *         actions.
+     */
+    @NotNull
+    public static int[] findActionsStatus(@NotNull Module module,
+                                          @NotNull List<Route> routes) {
+        GlobalSearchScope scope = module.getModuleWithDependenciesAndLibrariesScope(false);
+        FileBasedIndex index = FileBasedIndex.getInstance();
+        int[] result = new int[routes.size()];
+
+        // Infos by qualified names, null values are stored for names which
+        // aren't indexed.
+        Map<String, ControllerInfo> infos = new HashMap<>();
+
+        index.ignoreDumbMode(DumbModeAccessType.RELIABLE_DATA_ONLY, () -> {
+            for (int i = 0; i < routes.size(); i++) {
+                Route route = routes.get(i);
+                if (!(route instanceof SimpleRoute))
+                    continue;
+
+                SimpleRoute simpleRoute = (SimpleRoute) route;
+                if (simpleRoute.getControllerName().isEmpty() ||
+                        simpleRoute.getActionInfo().isResolved())
+                    continue;
+
+                String qualifiedName = RailwaysPsiUtils.getControllerClassNameByShortName(
+                        simpleRoute.getControllerName());
+
+                result[i] = ControllerInfo.findActionStatus(
+                        qualifiedName, simpleRoute.getActionName(), name -> {
+                            if (!infos.containsKey(name)) {
+                                List<ControllerInfo> values = index.getValues(NAME, name, scope);
+                                infos.put(name, values.isEmpty() ? null : values.get(0));
+                            }
+
+                            return infos.get(name);
+                        });
+            }
+        });
+
+        return result;
+    }
+
+
+    private static class ControllerInfoExternalizer implements DataExternalizer<ControllerInfo> {
+
+        @Override
+        public void save(@NotNull DataOutput out, ControllerInfo info) throws IOException {
+            out.writeUTF(info.getQualifiedName());
+
+            String superClassName = info.getSuperClassName();
+            out.writeBoolean(superClassName != null);
+            if (superClassName != null)
+                out.writeUTF(superClassName);
+
+            writeStrings(out, info.getIncludes());
+            writeStrings(out, info.getPublicMethods());
+            writeStrings(out, info.getNonPublicMethods());
+        }
+
+
+        @Override
+        public ControllerInfo read(@NotNull DataInput in) throws IOException {
+            ControllerInfo info = new ControllerInfo(in.readUTF());
+
+            if (in.readBoolean())
+                info.setSuperClassName(in.readUTF());
+
+            for (String include : readStrings(in))
+                info.addInclude(include);
+
+            for (String method : readStrings(in))
+                info.setMethodPublic(method, true);
+
+            for (String method : readStrings(in))
+                info.setMethodPublic(method, false);
+
+            return info;
+        }
+
+
+        private static void writeStrings(DataOutput out, Collection<String> strings) throws IOException {
+            out.writeInt(strings.size());
+            for (String s : strings)
+                out.writeUTF(s);
+        }
+
+
+        private static List<String> readStrings(DataInput in) throws IOException {
+            int count = in.readInt();
+            List<String> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
+                result.add(in.readUTF());
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package net.bitpot.railways.index;
+
+import net.bitpot.railways.models.RailsActionInfo;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Methods and ancestors of a Ruby class or module which are stored in
+ * controller actions index. Names of parent class and included modules are
+ * stored as they're written in code, they're resolved when the info is used.
+ */
+public class ControllerInfo {
+
+    private final String qualifiedName;
+
+    @Nullable
+    private String superClassName = null;
+
+    // Included modules in order of their declaration.
+    private final List<String> includes = new ArrayList<>();
+
+    private final Set<String> publicMethods = new LinkedHashSet<>();
+    private final Set<String> nonPublicMethods = new LinkedHashSet<>();
+
+
+    public ControllerInfo(@NotNull String qualifiedName) {
+        this.qualifiedName = qualifiedName;
+    }
+
+
+    /**
+     * Returns qualified name of the class or module, ex.
+     * "Admin::UsersController".
+     */
+    @NotNull
+    public String getQualifiedName() {
+        return qualifiedName;
+    }
+
+
+    @Nullable
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+
+    public void setSuperClassName(@Nullable String superClassName) {
+        this.superClassName = superClassName;
+    }
+
+
+    @NotNull
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+
+    public void addInclude(@NotNull String moduleName) {
+        includes.add(moduleName);
+    }
+
+
+    @NotNull
+    public Set<String> getPublicMethods() {
+        return publicMethods;
+    }
+
+
+    @NotNull
+    public Set<String> getNonPublicMethods() {
+        return nonPublicMethods;
+    }
+
+
+    /**
+     * Adds instance method or changes visibility of already added one, ex.
+     * by "private :index" call.
+     *
+     * @param name Method name.
+     * @param isPublic True if method is public.
+     */
+    public void setMethodPublic(@NotNull String name, boolean isPublic) {
+        if (isPublic) {
+            nonPublicMethods.remove(name);
+            publicMethods.add(name);
+        } else {
+            publicMethods.remove(name);
+            nonPublicMethods.add(name);
+        }
+    }
+
+
+    /**
+     * Finds status of the action in the controller, its included modules
+     * and ancestors in Ruby method resolution order.
+     *
+     * @param qualifiedName Qualified name of controller class.
+     * @param actionName Action method name.
+     * @param lookup Returns info of a class or module by qualified name, or
+     *               null if it's not indexed.
+     * @return One of RailsActionInfo.INDEXED_* constants.
+     */
+    public static int findActionStatus(@NotNull String qualifiedName,
+                                       @NotNull String actionName,
+                                       @NotNull Function<String, ControllerInfo> lookup) {
+        ControllerInfo current = lookup.apply(qualifiedName);
+        if (current == null)
+            return RailsActionInfo.INDEXED_UNKNOWN;
+
+        // Visited names are remembered, so cyclic inheritance or includes in
+        // invalid code cannot hang the search.
+        Set<String> visited = new HashSet<>();
+
+        while (current != null && visited.add(current.qualifiedName)) {
+            int status = current.findOwnMethodStatus(actionName);
+            if (status != RailsActionInfo.INDEXED_UNKNOWN)
+                return status;
+
+            for (ControllerInfo module : current.findModules(lookup, visited)) {
+                status = module.findOwnMethodStatus(actionName);
+                if (status != RailsActionInfo.INDEXED_UNKNOWN)
+                    return status;
+            }
+
+            current = current.superClassName == null ? null :
+                    resolve(current.superClassName, current.qualifiedName, lookup);
+        }
+
+        return RailsActionInfo.INDEXED_CONTROLLER;
+    }
+
+
+    private int findOwnMethodStatus(String name) {
+        if (publicMethods.contains(name))
+            return RailsActionInfo.INDEXED_ACTION;
+
+        if (nonPublicMethods.contains(name))
+            return RailsActionInfo.INDEXED_METHOD;
+
+        return RailsActionInfo.INDEXED_UNKNOWN;
+    }
+
+
+    /**
+     * Returns included modules in method resolution order: the last
+     * included module goes first and modules included into a module follow
+     * that module.
+     */
+    private List<ControllerInfo> findModules(Function<String, ControllerInfo> lookup,
+                                             Set<String> visited) {
+        List<ControllerInfo> result = new ArrayList<>();
+
+        for (int i = includes.size() - 1; i >= 0; i--) {
+            ControllerInfo module = resolve(includes.get(i), qualifiedName, lookup);
+            if (module != null && visited.add(module.qualifiedName)) {
+                result.add(module);
+                result.addAll(module.findModules(lookup, visited));
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Resolves constant name which is used inside the class or module. Name
+     * is looked up in namespaces of the class starting from the innermost
+     * one, ex. "Base" in "Admin::UsersController" is looked up as
+     * "Admin::Base" and then "Base".
+     */
+    @Nullable
+    private static ControllerInfo resolve(String name, String usedIn,
+                                          Function<String, ControllerInfo> lookup) {
+        String namespace = usedIn;
+        int pos;
+
+        while ((pos = namespace.lastIndexOf("::")) >= 0) {
+            namespace = namespace.substring(0, pos);
+
+            ControllerInfo info = lookup.apply(namespace + "::" + name);
+            if (info != null)
+                return info;
+        }
+
+        return lookup.apply(name);
+    }
+
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof ControllerInfo))
+            return false;
+
+        ControllerInfo other = (ControllerInfo) o;
+        return qualifiedName.equals(other.qualifiedName) &&
+                Objects.equals(superClassName, other.superClassName) &&
+                includes.equals(other.includes) &&
+                publicMethods.equals(other.publicMethods) &&
+                nonPublicMethods.equals(other.nonPublicMethods);
+    }
+
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(qualifiedName, superClassName, includes,
+                publicMethods, nonPublicMethods);
+    }
+}
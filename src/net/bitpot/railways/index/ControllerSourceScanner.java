@@ -0,0 +1,285 @@
+package net.bitpot.railways.index;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Collects classes and modules with their instance methods, parent classes
+ * and included modules from text of a Ruby file. The text is scanned by
+ * statements without building PSI, so it's fast enough to be run by the
+ * indexer. Nesting is tracked by keywords which are closed with 'end', which
+ * covers the code of usual controllers and concerns.
+ */
+public class ControllerSourceScanner {
+
+    private static final String CONSTANT = "(?:::)?[A-Z]\\w*(?:::[A-Z]\\w*)*";
+
+    private static final Pattern CLASS_PATTERN = Pattern.compile(
+            "^class\\s+(" + CONSTANT + ")(?:\\s*<\\s*(" + CONSTANT + "))?");
+    private static final Pattern SINGLETON_CLASS_PATTERN = Pattern.compile("^class\\s*<<");
+    private static final Pattern MODULE_PATTERN = Pattern.compile(
+            "^module\\s+(" + CONSTANT + ")");
+    private static final Pattern DEF_START_PATTERN = Pattern.compile("^def\\s");
+    private static final Pattern DEF_PATTERN = Pattern.compile(
+            "^def\\s+(self\\.)?(\\w+[?!=]?)\\s*(\\([^)]*\\))?\\s*(=(?![=~>]))?");
+    private static final Pattern VISIBILITY_PATTERN = Pattern.compile(
+            "^(private|protected|public)\\b\\s*(.*)$");
+    private static final Pattern INCLUDE_PATTERN = Pattern.compile("^include\\s+(.+)$");
+    private static final Pattern SYMBOL_PATTERN = Pattern.compile(":(\\w+[?!=]?)");
+    private static final Pattern BLOCK_PATTERN = Pattern.compile(
+            "^(?:if|unless|while|until|case|begin|for)\\b|=\\s*(?:if|unless|case|begin)\\b");
+    private static final Pattern DO_BLOCK_PATTERN = Pattern.compile(
+            "\\bdo\\s*(?:\\|[^|]*\\|)?$");
+    private static final Pattern END_PATTERN = Pattern.compile("^end\\b");
+    private static final Pattern TRAILING_END_PATTERN = Pattern.compile("\\bend$");
+    private static final Pattern CONSTANT_PATTERN = Pattern.compile("^" + CONSTANT + "$");
+
+
+    /**
+     * Scope which is opened by a keyword and closed by 'end'.
+     */
+    private static class Scope {
+        // Class or module of the scope, null for methods, blocks and
+        // 'class << self', which methods are not instance methods.
+        @Nullable
+        final ControllerInfo container;
+
+        boolean isPublic = true;
+
+        Scope(@Nullable ControllerInfo container) {
+            this.container = container;
+        }
+    }
+
+
+    // Found classes and modules by qualified names. Class which is reopened
+    // in the same file is merged.
+    private final Map<String, ControllerInfo> containers = new LinkedHashMap<>();
+    private final Deque<Scope> scopes = new ArrayDeque<>();
+
+
+    private ControllerSourceScanner() {
+    }
+
+
+    /**
+     * Scans text of a Ruby file.
+     *
+     * @param text File text.
+     * @return Found classes and modules.
+     */
+    @NotNull
+    public static Collection<ControllerInfo> scan(@NotNull CharSequence text) {
+        ControllerSourceScanner scanner = new ControllerSourceScanner();
+        boolean isDocComment = false;
+
+        for (String line : text.toString().split("\r?\n")) {
+            // Skip =begin ... =end comments.
+            if (line.startsWith("=begin")) {
+                isDocComment = true;
+                continue;
+            } else if (isDocComment) {
+                isDocComment = !line.startsWith("=end");
+                continue;
+            }
+
+            for (String statement : splitStatements(line))
+                scanner.scanStatement(statement);
+        }
+
+        return scanner.containers.values();
+    }
+
+
+    /**
+     * Splits a line into statements which are separated by semicolons and
+     * removes trailing comment. Quoted strings are skipped.
+     */
+    static List<String> splitStatements(String line) {
+        List<String> result = new ArrayList<>();
+        char quote = 0;
+        int start = 0;
+        int i = 0;
+
+        for (; i < line.length(); i++) {
+            char ch = line.charAt(i);
+
+            if (quote != 0) {
+                if (ch == '\\')
+                    i++;
+                else if (ch == quote)
+                    quote = 0;
+            } else if (ch == '"' || ch == '\'')
+                quote = ch;
+            else if (ch == '#')
+                break;
+            else if (ch == ';') {
+                addStatement(result, line.substring(start, i));
+                start = i + 1;
+            }
+        }
+
+        addStatement(result, line.substring(start, Math.min(i, line.length())));
+
+        return result;
+    }
+
+
+    private static void addStatement(List<String> statements, String statement) {
+        statement = statement.trim();
+        if (!statement.isEmpty())
+            statements.add(statement);
+    }
+
+
+    private void scanStatement(String statement) {
+        if (END_PATTERN.matcher(statement).find()) {
+            scopes.poll();
+            return;
+        }
+
+        Matcher matcher = VISIBILITY_PATTERN.matcher(statement);
+        if (matcher.matches()) {
+            boolean isPublic = matcher.group(1).equals("public");
+            String args = matcher.group(2);
+
+            if (args.isEmpty()) {
+                Scope scope = scopes.peek();
+                if (scope != null)
+                    scope.isPublic = isPublic;
+            } else if (DEF_START_PATTERN.matcher(args).find())
+                scanDef(args, isPublic);
+            else
+                setMethodsVisibility(args, isPublic);
+
+            return;
+        }
+
+        if (DEF_START_PATTERN.matcher(statement).find()) {
+            Scope scope = scopes.peek();
+            scanDef(statement, scope == null || scope.isPublic);
+            return;
+        }
+
+        if (SINGLETON_CLASS_PATTERN.matcher(statement).find()) {
+            scopes.push(new Scope(null));
+            return;
+        }
+
+        matcher = CLASS_PATTERN.matcher(statement);
+        if (matcher.find()) {
+            ControllerInfo info = openContainer(matcher.group(1));
+            if (matcher.group(2) != null)
+                info.setSuperClassName(stripRootPrefix(matcher.group(2)));
+            return;
+        }
+
+        matcher = MODULE_PATTERN.matcher(statement);
+        if (matcher.find()) {
+            openContainer(matcher.group(1));
+            return;
+        }
+
+        matcher = INCLUDE_PATTERN.matcher(statement);
+        if (matcher.matches()) {
+            ControllerInfo container = getCurrentContainer();
+            if (container != null)
+                for (String arg : matcher.group(1).split(",")) {
+                    arg = arg.trim();
+                    if (CONSTANT_PATTERN.matcher(arg).matches())
+                        container.addInclude(stripRootPrefix(arg));
+                }
+            return;
+        }
+
+        // One-line block, ex. "x = if y then 1 else 2 end", is closed in
+        // the same statement.
+        if (DO_BLOCK_PATTERN.matcher(statement).find() ||
+                (BLOCK_PATTERN.matcher(statement).find() &&
+                        !TRAILING_END_PATTERN.matcher(statement).find()))
+            scopes.push(new Scope(null));
+    }
+
+
+    private void scanDef(String statement, boolean isPublic) {
+        Matcher matcher = DEF_PATTERN.matcher(statement);
+        if (!matcher.find()) {
+            // Operator methods, ex. "def ==(other)", are not actions, but
+            // they're closed by 'end'.
+            scopes.push(new Scope(null));
+            return;
+        }
+
+        boolean isClassMethod = matcher.group(1) != null;
+        ControllerInfo container = getCurrentContainer();
+
+        if (container != null && !isClassMethod)
+            container.setMethodPublic(matcher.group(2), isPublic);
+
+        // Endless method, ex. "def index = render(:index)", has no 'end'.
+        if (matcher.group(4) == null)
+            scopes.push(new Scope(null));
+    }
+
+
+    private void setMethodsVisibility(String args, boolean isPublic) {
+        ControllerInfo container = getCurrentContainer();
+        if (container == null)
+            return;
+
+        Matcher matcher = SYMBOL_PATTERN.matcher(args);
+        while (matcher.find())
+            container.setMethodPublic(matcher.group(1), isPublic);
+    }
+
+
+    private ControllerInfo openContainer(String name) {
+        String qualifiedName;
+        if (name.startsWith("::"))
+            qualifiedName = name.substring(2);
+        else {
+            ControllerInfo parent = findEnclosingContainer();
+            qualifiedName = parent == null ? name :
+                    parent.getQualifiedName() + "::" + name;
+        }
+
+        ControllerInfo info = containers.computeIfAbsent(qualifiedName, ControllerInfo::new);
+        scopes.push(new Scope(info));
+
+        return info;
+    }
+
+
+    /**
+     * Returns class or module which body is currently scanned, or null if
+     * current scope is a method or a block.
+     */
+    @Nullable
+    private ControllerInfo getCurrentContainer() {
+        Scope scope = scopes.peek();
+        return scope != null ? scope.container : null;
+    }
+
+
+    /**
+     * Returns the innermost class or module, which is the namespace of
+     * classes and modules declared in current scope.
+     */
+    @Nullable
+    private ControllerInfo findEnclosingContainer() {
+        for (Scope scope : scopes)
+            if (scope.container != null)
+                return scope.container;
+
+        return null;
+    }
+
+
+    private static String stripRootPrefix(String name) {
+        return name.startsWith("::") ? name.substring(2) : name;
+    }
+}
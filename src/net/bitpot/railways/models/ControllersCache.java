@@ -0,0 +1,297 @@
+package net.bitpot.railways.models;
+
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import net.bitpot.railways.utils.RailwaysPsiUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.plugins.ruby.rails.model.RailsApp;
+import org.jetbrains.plugins.ruby.ruby.lang.psi.controlStructures.classes.RClass;
+import org.jetbrains.plugins.ruby.ruby.lang.psi.controlStructures.methods.RMethod;
+import org.jetbrains.plugins.ruby.ruby.lang.psi.controlStructures.modules.RModule;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of controllers resolved in Rails application of a module. Routes
+ * which point to the same controller share its class and found action
+ * methods, so every controller is searched only once instead of once per
+ * route. Cache is stored in the module and is dropped on any PSI change.
+ */
+public class ControllersCache {
+
+    private static final Key<CachedValue<ControllersCache>> CACHE_KEY =
+            Key.create("railways.controllersCache");
+
+    @Nullable
+    private final RailsApp app;
+
+    // Controllers by short name, ex. "admin/users".
+    private final Map<String, Controller> controllers = new ConcurrentHashMap<>();
+
+    // Method tables of controller classes and their ancestors.
+    private final Map<RClass, MethodTable> methodTables = new ConcurrentHashMap<>();
+
+
+    ControllersCache(@Nullable RailsApp app) {
+        this.app = app;
+    }
+
+
+    /**
+     * Returns controllers cache of the module, which is valid until the next
+     * PSI change.
+     *
+     * @param module Module with Rails application.
+     * @return Controllers cache.
+     */
+    @NotNull
+    public static ControllersCache getInstance(@NotNull Module module) {
+        return CachedValuesManager.getManager(module.getProject()).getCachedValue(
+                module, CACHE_KEY,
+                () -> CachedValueProvider.Result.create(
+                        new ControllersCache(RailsApp.fromModule(module)),
+                        PsiModificationTracker.MODIFICATION_COUNT),
+                false);
+    }
+
+
+    /**
+     * Returns controller by short name which is used in routes, ex.
+     * "admin/users". Controller class is searched when the controller is
+     * requested for the first time.
+     *
+     * @param shortName Short controller name.
+     * @return Controller which can be unresolved if class is not found.
+     */
+    @NotNull
+    public Controller getController(@NotNull String shortName) {
+        Controller controller = controllers.get(shortName);
+        if (controller == null) {
+            // Controller isn't searched under map lock, so in rare case it
+            // can be searched twice.
+            controller = new Controller(shortName);
+            Controller previous = controllers.putIfAbsent(shortName, controller);
+            if (previous != null)
+                controller = previous;
+        }
+
+        return controller;
+    }
+
+
+    /**
+     * Checks whether the class which was resolved before, ex. taken from
+     * previous routes, is still valid class of the controller.
+     *
+     * @param psiClass Previously resolved class.
+     * @param shortName Short controller name, ex. "admin/users".
+     * @return True if the class can be used without searching it again.
+     */
+    boolean isControllerClass(@NotNull RClass psiClass, @NotNull String shortName) {
+        return psiClass.isValid() && Objects.equals(psiClass.getFQN().getFullPath(),
+                RailwaysPsiUtils.getControllerClassNameByShortName(shortName));
+    }
+
+
+    /**
+     * Returns method table of the class. Tables of parent classes are shared
+     * by all their descendants, so common ancestors of controllers, ex.
+     * ApplicationController, are searched only once.
+     *
+     * @param psiClass Controller class.
+     * @return Method table of the class.
+     */
+    @NotNull
+    MethodTable getMethodTable(@NotNull RClass psiClass) {
+        MethodTable table = methodTables.get(psiClass);
+        if (table != null)
+            return table;
+
+        // Collect ancestors which have no tables yet, up to the nearest one
+        // which has.
+        List<RClass> classes = new ArrayList<>();
+        table = RailwaysPsiUtils.findInClassHierarchy(app, psiClass, currentClass -> {
+            MethodTable ancestorTable = methodTables.get(currentClass);
+            if (ancestorTable == null)
+                classes.add(currentClass);
+
+            return ancestorTable;
+        });
+
+        // Tables are created from the topmost ancestor, so every table can
+        // refer to its parent one.
+        for (int i = classes.size() - 1; i >= 0; i--) {
+            MethodTable newTable = new MethodTable(classes.get(i), table);
+            MethodTable previous = methodTables.putIfAbsent(classes.get(i), newTable);
+            table = previous != null ? previous : newTable;
+        }
+
+        return table;
+    }
+
+
+    /**
+     * Resolved controller class with action methods which were already
+     * searched for.
+     */
+    public class Controller {
+        private final String qualifiedName;
+
+        @Nullable
+        private final RClass psiClass;
+
+        // Method table of the class, it's built when a method is searched
+        // for the first time.
+        @Nullable
+        private volatile MethodTable methodTable = null;
+
+        // Files which action methods can be found in, they're collected when
+        // requested for the first time.
+        @Nullable
+        private volatile Set<VirtualFile> files = null;
+
+
+        private Controller(String shortName) {
+            qualifiedName = RailwaysPsiUtils.getControllerClassNameByShortName(shortName);
+            psiClass = RailwaysPsiUtils.findControllerClass(app, qualifiedName);
+        }
+
+
+        /**
+         * Returns qualified class name of the controller, ex.
+         * "Admin::UsersController".
+         */
+        @NotNull
+        public String getQualifiedName() {
+            return qualifiedName;
+        }
+
+
+        @Nullable
+        public RClass getPsiClass() {
+            return psiClass;
+        }
+
+
+        /**
+         * Finds action method in controller class, its superclasses or
+         * included modules.
+         *
+         * @param actionName Name of action method.
+         * @return Found method or null.
+         */
+        @Nullable
+        public RMethod findMethod(@NotNull String actionName) {
+            if (psiClass == null)
+                return null;
+
+            MethodTable table = methodTable;
+            if (table == null) {
+                table = getMethodTable(psiClass);
+                methodTable = table;
+            }
+
+            return table.findMethod(actionName);
+        }
+
+
+        /**
+         * Returns files of the controller class, its parent classes and
+         * included modules. Action status of the controller routes can be
+         * changed only when one of these files is changed.
+         *
+         * @return Controller files, empty if controller isn't resolved.
+         */
+        @NotNull
+        public Set<VirtualFile> getFiles() {
+            Set<VirtualFile> result = files;
+            if (result == null) {
+                result = new HashSet<>();
+                if (psiClass != null)
+                    RailwaysPsiUtils.collectControllerFiles(app, psiClass, result);
+
+                files = result;
+            }
+
+            return result;
+        }
+    }
+
+
+    /**
+     * Methods of a class in Ruby method resolution order: methods of the
+     * class itself, then of its included modules starting from the last
+     * included one, then methods of the parent class table. Found methods are
+     * remembered, so every method is searched in a class only once.
+     */
+    static class MethodTable {
+        private final RClass psiClass;
+
+        // Included modules in method resolution order.
+        private final List<RModule> modules;
+
+        @Nullable
+        private final MethodTable parent;
+
+        // Found methods by name, empty if method isn't found.
+        private final Map<String, Optional<RMethod>> methods = new ConcurrentHashMap<>();
+
+
+        MethodTable(@NotNull RClass psiClass, @Nullable MethodTable parent) {
+            this.psiClass = psiClass;
+            this.parent = parent;
+            modules = RailwaysPsiUtils.findClassModules(psiClass);
+        }
+
+
+        /**
+         * Finds method in the class or its ancestors.
+         *
+         * @param name Method name.
+         * @return Found method or null.
+         */
+        @Nullable
+        RMethod findMethod(@NotNull String name) {
+            Optional<RMethod> method = methods.get(name);
+            if (method == null) {
+                RMethod found = findOwnMethod(name);
+                if (found == null && parent != null)
+                    found = parent.findMethod(name);
+
+                method = Optional.ofNullable(found);
+                methods.put(name, method);
+            }
+
+            return method.orElse(null);
+        }
+
+
+        @Nullable
+        private RMethod findOwnMethod(@NotNull String name) {
+            RMethod method = RailwaysPsiUtils.findMethod(psiClass, name);
+            if (method != null)
+                return method;
+
+            for (RModule module : modules) {
+                method = RailwaysPsiUtils.findMethod(module, name);
+                if (method != null)
+                    return method;
+            }
+
+            return null;
+        }
+    }
+}
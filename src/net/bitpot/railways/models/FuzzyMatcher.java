@@ -0,0 +1,159 @@
+package net.bitpot.railways.models;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Fuzzy matcher of filter text. Text matches when it contains all characters
+ * of the filter in the same order, ex. "ausi" matches "admin/users#index".
+ * Matches are scored, so the most relevant routes can be shown first:
+ * characters at the beginning of path segments, namespaces and words, and
+ * consecutive characters give higher score, while gaps between matched
+ * characters decrease it.
+ *
+ * Matcher is immutable and can be used from several threads.
+ */
+public class FuzzyMatcher {
+
+    public static final int NO_MATCH = Integer.MIN_VALUE;
+
+    private static final int CHAR_SCORE = 16;
+    private static final int SEGMENT_START_BONUS = 10;
+    private static final int CONSECUTIVE_BONUS = 12;
+    private static final int TEXT_START_BONUS = 8;
+    private static final int MAX_GAP_PENALTY = 6;
+
+    private final char[] pattern;
+
+
+    /**
+     * Compiles filter text. Wildcards and whitespaces are ignored.
+     *
+     * @param filterText Filter text, ex. "usrnew"
+     */
+    public FuzzyMatcher(@NotNull String filterText) {
+        StringBuilder sb = new StringBuilder(filterText.length());
+        for (int i = 0; i < filterText.length(); i++) {
+            char c = filterText.charAt(i);
+            if (c != '*' && !Character.isWhitespace(c))
+                sb.append(Character.toLowerCase(c));
+        }
+
+        pattern = sb.toString().toCharArray();
+    }
+
+
+    public boolean isEmpty() {
+        return pattern.length == 0;
+    }
+
+
+    /**
+     * Scores the text.
+     *
+     * @param lowerCaseText Text converted by WildcardMatcher.toLowerCase.
+     * @return Match score, the higher the better, or NO_MATCH if the text
+     *         doesn't contain all filter characters.
+     */
+    public int score(@NotNull String lowerCaseText) {
+        int start = findMatchStart(lowerCaseText);
+        if (start < 0)
+            return NO_MATCH;
+
+        int score = start == 0 ? TEXT_START_BONUS : 0;
+        int prevPos = -1;
+        int pos = start;
+
+        for (char c : pattern) {
+            pos = lowerCaseText.indexOf(c, pos);
+
+            score += CHAR_SCORE;
+            if (isSegmentStart(lowerCaseText, pos))
+                score += SEGMENT_START_BONUS;
+
+            if (prevPos >= 0) {
+                if (pos == prevPos + 1)
+                    score += CONSECUTIVE_BONUS;
+                else
+                    score -= Math.min(pos - prevPos - 1, MAX_GAP_PENALTY);
+            }
+
+            prevPos = pos;
+            pos++;
+        }
+
+        return score;
+    }
+
+
+    /**
+     * Finds regions of matched characters, consecutive characters are joined
+     * into one region.
+     *
+     * @param lowerCaseText Text converted by WildcardMatcher.toLowerCase.
+     * @return Array of start and end offsets of regions or null if text
+     *         doesn't match.
+     */
+    @Nullable
+    public int[] findRegions(@NotNull String lowerCaseText) {
+        int start = findMatchStart(lowerCaseText);
+        if (start < 0)
+            return null;
+
+        int[] regions = new int[pattern.length * 2];
+        int count = 0;
+        int pos = start;
+
+        for (char c : pattern) {
+            pos = lowerCaseText.indexOf(c, pos);
+
+            if (count > 0 && regions[count - 1] == pos)
+                regions[count - 1] = pos + 1;
+            else {
+                regions[count++] = pos;
+                regions[count++] = pos + 1;
+            }
+
+            pos++;
+        }
+
+        return Arrays.copyOf(regions, count);
+    }
+
+
+    /**
+     * Finds start of the shortest match which ends at the first possible
+     * position, so that matched characters are as close as possible.
+     *
+     * @return Start offset of the match or -1 if text doesn't match.
+     */
+    private int findMatchStart(String text) {
+        if (pattern.length == 0)
+            return -1;
+
+        int pos = 0;
+        for (char c : pattern) {
+            pos = text.indexOf(c, pos);
+            if (pos < 0)
+                return -1;
+
+            pos++;
+        }
+
+        // Go back from the end of the match to find its latest start.
+        pos--;
+        for (int i = pattern.length - 1; i >= 0; i--) {
+            pos = text.lastIndexOf(pattern[i], pos);
+            pos--;
+        }
+
+        return pos + 1;
+    }
+
+
+    private static boolean isSegmentStart(String text, int pos) {
+        return pos == 0 || !Character.isLetterOrDigit(text.charAt(pos - 1));
+    }
+}
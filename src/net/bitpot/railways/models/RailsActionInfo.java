@@ -2,20 +2,23 @@ package net.bitpot.railways.models;
 
 import com.intellij.openapi.module.Module;
 import net.bitpot.railways.gui.RailwaysIcons;
-import net.bitpot.railways.utils.RailwaysPsiUtils;
-import org.jetbrains.plugins.ruby.rails.model.RailsApp;
 import org.jetbrains.plugins.ruby.ruby.lang.psi.controlStructures.classes.RClass;
 import org.jetbrains.plugins.ruby.ruby.lang.psi.controlStructures.methods.RMethod;
 import org.jetbrains.plugins.ruby.ruby.lang.psi.controlStructures.methods.Visibility;
 
 import javax.swing.*;
-import java.util.Objects;
 
 /**
  * Contains information about controller action.
  */
 public class RailsActionInfo {
 
+    // Action status which is found in controller actions index.
+    public static final int INDEXED_UNKNOWN = 0;
+    public static final int INDEXED_CONTROLLER = 1;
+    public static final int INDEXED_METHOD = 2;
+    public static final int INDEXED_ACTION = 3;
+
     // Class which is referenced by route action, it might not have
     // implementation of the method, as the method can be inherited.
     private RClass psiClass = null;
@@ -23,6 +26,14 @@ public class RailsActionInfo {
     // Route action method.
     private RMethod psiMethod = null;
 
+    // Status taken from the index, it's used until PSI elements are
+    // resolved, ex. in dumb mode right after project is opened.
+    private int indexedStatus = INDEXED_UNKNOWN;
+
+    // Set when the action is searched by PSI or in the index. Until then
+    // it's not known whether the action exists.
+    private boolean isStatusKnown = false;
+
 
     public RClass getPsiClass() {
         return psiClass;
@@ -49,6 +60,96 @@ public class RailsActionInfo {
     }
 
 
+    public int getIndexedStatus() {
+        return indexedStatus;
+    }
+
+
+    public void setIndexedStatus(int indexedStatus) {
+        this.indexedStatus = indexedStatus;
+        isStatusKnown = true;
+    }
+
+
+    /**
+     * Returns icon of action status which is found in the index.
+     */
+    public Icon getIndexedIcon() {
+        switch (indexedStatus) {
+            case INDEXED_ACTION:
+                return RailwaysIcons.NODE_ROUTE_ACTION;
+
+            case INDEXED_METHOD:
+                return RailwaysIcons.NODE_METHOD;
+
+            case INDEXED_CONTROLLER:
+                return RailwaysIcons.NODE_CONTROLLER;
+
+            default:
+                return RailwaysIcons.NODE_UNKNOWN;
+        }
+    }
+
+
+    /**
+     * Takes resolved class and method from other action info, so they don't
+     * have to be searched again. Taken elements are validated by the next
+     * update.
+     *
+     * @param info Action info of a route with the same controller and action.
+     */
+    public void copyFrom(RailsActionInfo info) {
+        psiClass = info.psiClass;
+        psiMethod = info.psiMethod;
+        indexedStatus = info.indexedStatus;
+        isStatusKnown = info.isStatusKnown;
+    }
+
+
+    /**
+     * Sets resolved class and method, ex. found without controllers cache.
+     */
+    void setResolved(RClass psiClass, RMethod psiMethod) {
+        this.psiClass = psiClass;
+        this.psiMethod = psiMethod;
+        indexedStatus = INDEXED_UNKNOWN;
+        isStatusKnown = true;
+    }
+
+
+    public boolean isResolved() {
+        return psiClass != null;
+    }
+
+
+    /**
+     * Checks whether the action was searched by PSI or in the index, so
+     * isMethodFound() tells if the action exists.
+     */
+    public boolean isStatusKnown() {
+        return isStatusKnown;
+    }
+
+
+    /**
+     * Checks whether controller class is found by PSI or, until PSI is
+     * resolved, in the index.
+     */
+    public boolean isControllerFound() {
+        return psiClass != null || indexedStatus != INDEXED_UNKNOWN;
+    }
+
+
+    /**
+     * Checks whether action method is found by PSI or, until PSI is
+     * resolved, in the index. Method can be non-public.
+     */
+    public boolean isMethodFound() {
+        return psiMethod != null || indexedStatus == INDEXED_METHOD ||
+                indexedStatus == INDEXED_ACTION;
+    }
+
+
     public Visibility getMethodVisibility() {
         if (getPsiMethod() == null)
             return null;
@@ -58,44 +159,42 @@ public class RailsActionInfo {
 
 
     public void update(Module module, String controllerName, String actionName) {
-        RailsApp app = RailsApp.fromModule(module);
-        update(app, controllerName, actionName);
+        update(ControllersCache.getInstance(module), controllerName, actionName);
     }
 
-    // TODO: cache found classes and methods to reuse found values.
-    public void update(RailsApp app, String controllerShortName, String actionName) {
-        if ((app == null) || controllerShortName.isEmpty()) {
-            psiMethod = null;
-            psiClass = null;
-            return;
-        }
-
-        String qualifiedName =
-                RailwaysPsiUtils.getControllerClassNameByShortName(controllerShortName);
 
-        if (psiClass != null && (!psiClass.isValid() ||
-                !Objects.equals(psiClass.getFQN().getFullPath(), qualifiedName))) {
+    /**
+     * Finds controller class and action method. Controllers are taken from
+     * the cache, so every controller is searched only once for all routes.
+     * Already resolved class and method are not searched again while they're
+     * still valid.
+     *
+     * @param controllers Controllers cache of the module.
+     * @param controllerShortName Controller name, ex. "admin/users".
+     * @param actionName Action name.
+     */
+    public void update(ControllersCache controllers, String controllerShortName, String actionName) {
+        // Resolved PSI elements replace the status from the index.
+        indexedStatus = INDEXED_UNKNOWN;
+        isStatusKnown = true;
+
+        if (controllerShortName.isEmpty()) {
             psiMethod = null;
             psiClass = null;
+            return;
         }
 
-        // Find psiClass if it's not specified or already invalid.
-        if (psiClass == null) {
-            psiClass = RailwaysPsiUtils.findControllerClass(app, qualifiedName);
-        }
+        // Class and method taken from previous routes are kept while they're
+        // valid. Valid method can be renamed while the user edits it, so its
+        // name is checked too.
+        if (psiClass != null && psiMethod != null && psiMethod.isValid() &&
+                actionName.equals(psiMethod.getName()) &&
+                controllers.isControllerClass(psiClass, controllerShortName))
+            return;
 
-        if (psiClass != null) {
-            if (psiMethod == null || !psiMethod.isValid()) {
-                psiMethod = RailwaysPsiUtils.findControllerMethod(app,
-                        psiClass, actionName);
-            } else {
-                // Even if psiMethod is valid, its name can be different - it
-                // usually happens when user edits method name - the psiElement
-                // is just updated.
-                if (!actionName.equals(psiMethod.getName()))
-                    psiMethod = null;
-            }
-        }
+        ControllersCache.Controller controller = controllers.getController(controllerShortName);
+        psiClass = controller.getPsiClass();
+        psiMethod = controller.findMethod(actionName);
     }
 
 }
@@ -6,13 +6,13 @@ import com.intellij.navigation.NavigationItem;
 import com.intellij.openapi.module.Module;
 import net.bitpot.railways.gui.RailwaysIcons;
 import net.bitpot.railways.models.requestMethods.RequestMethod;
+import net.bitpot.railways.parser.route.HighlightSpans;
 import net.bitpot.railways.parser.route.RouteActionParser;
 import net.bitpot.railways.parser.route.RoutePathParser;
 import net.bitpot.railways.parser.route.TextChunk;
 import net.bitpot.railways.utils.RailwaysUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.jetbrains.plugins.ruby.rails.model.RailsApp;
 
 import javax.swing.*;
 import java.util.List;
@@ -34,6 +34,22 @@ public class Route implements NavigationItem {
     private List<TextChunk> pathChunks = null;
     private List<TextChunk> actionChunks = null;
 
+    // Cached lower-cased texts which are matched against routes filter.
+    private String lowerCasePath = null;
+    private String lowerCaseActionTitle = null;
+    private String lowerCaseRouteName = null;
+
+    // Cached route name with engine namespace and path with request method.
+    private String qualifiedRouteName = null;
+    private String pathWithMethod = null;
+
+    // Highlight spans of path and action chunks with generation of routes
+    // filter which they were found for.
+    private HighlightSpans highlightedPathSpans = null;
+    private int highlightedPathGeneration = 0;
+    private HighlightSpans highlightedActionSpans = null;
+    private int highlightedActionGeneration = 0;
+
 
     public Route(@Nullable Module module, RequestMethod requestMethod, String path,
                  String name) {
@@ -145,12 +161,14 @@ public class Route implements NavigationItem {
     }
 
     public String getPathWithMethod() {
-        String path = RailwaysUtils.stripRequestFormat(getPath());
+        if (pathWithMethod == null) {
+            String path = RailwaysUtils.stripRequestFormat(getPath());
 
-        if (getRequestMethod() == RequestMethods.ANY)
-            return path;
+            pathWithMethod = getRequestMethod() == RequestMethods.ANY ? path :
+                    getRequestMethod().getName() + " " + path;
+        }
 
-        return String.format("%s %s", getRequestMethod().getName(), path);
+        return pathWithMethod;
     }
 
 
@@ -170,10 +188,93 @@ public class Route implements NavigationItem {
     }
 
 
+    /**
+     * Returns highlight spans of path chunks found for the filter generation.
+     *
+     * @param filterGeneration Generation returned by RoutesFilter.
+     * @return Cached spans or null if they're found for other filter
+     *         generation.
+     */
+    @Nullable
+    public HighlightSpans getHighlightedPathSpans(int filterGeneration) {
+        return highlightedPathGeneration == filterGeneration ? highlightedPathSpans : null;
+    }
+
+
+    public void setHighlightedPathSpans(int filterGeneration, HighlightSpans spans) {
+        highlightedPathSpans = spans;
+        highlightedPathGeneration = filterGeneration;
+    }
+
+
+    /**
+     * Returns highlight spans of action chunks found for the filter
+     * generation.
+     *
+     * @param filterGeneration Generation returned by RoutesFilter.
+     * @return Cached spans or null if they're found for other filter
+     *         generation.
+     */
+    @Nullable
+    public HighlightSpans getHighlightedActionSpans(int filterGeneration) {
+        return highlightedActionGeneration == filterGeneration ? highlightedActionSpans : null;
+    }
+
+
+    public void setHighlightedActionSpans(int filterGeneration, HighlightSpans spans) {
+        highlightedActionSpans = spans;
+        highlightedActionGeneration = filterGeneration;
+    }
+
+
+    /**
+     * Returns route path converted by WildcardMatcher.toLowerCase.
+     */
+    public String getLowerCasePath() {
+        if (lowerCasePath == null)
+            lowerCasePath = WildcardMatcher.toLowerCase(getPath());
+
+        return lowerCasePath;
+    }
+
+
+    /**
+     * Returns action title converted by WildcardMatcher.toLowerCase.
+     */
+    public String getLowerCaseActionTitle() {
+        if (lowerCaseActionTitle == null)
+            lowerCaseActionTitle = WildcardMatcher.toLowerCase(getActionTitle());
+
+        return lowerCaseActionTitle;
+    }
+
+
+    /**
+     * Returns route name converted by WildcardMatcher.toLowerCase.
+     */
+    public String getLowerCaseRouteName() {
+        if (lowerCaseRouteName == null)
+            lowerCaseRouteName = WildcardMatcher.toLowerCase(getRouteName());
+
+        return lowerCaseRouteName;
+    }
+
+
     public String getRouteName() {
-        if (getParentEngine() != null)
-            return getParentEngine().getNamespace() + "." + routeName;
+        if (qualifiedRouteName == null)
+            qualifiedRouteName = getParentEngine() == null ? routeName :
+                    getParentEngine().getNamespace() + "." + routeName;
 
+        return qualifiedRouteName;
+    }
+
+
+    /**
+     * Returns route name without namespace of parent engine.
+     *
+     * @return Route name as it's specified in 'rake routes' output.
+     */
+    public String getLocalRouteName() {
         return routeName;
     }
 
@@ -181,9 +282,9 @@ public class Route implements NavigationItem {
     /**
      * Checks route action status and sets isActionDeclarationFound flag.
      *
-     * @param app Rails application which will be checked for controller action.
+     * @param controllers Controllers cache of the module.
      */
-    public void updateActionStatus(RailsApp app) {
+    public void updateActionStatus(ControllersCache controllers) {
         // Should be overridden in subclasses if an update is required.
     }
 
@@ -195,6 +296,8 @@ public class Route implements NavigationItem {
 
     public void setParentEngine(RailsEngine parentEngine) {
         myParentEngine = parentEngine;
+        qualifiedRouteName = null;
+        lowerCaseRouteName = null;
     }
 
 
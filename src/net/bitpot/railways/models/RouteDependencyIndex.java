@@ -0,0 +1,118 @@
+package net.bitpot.railways.models;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import net.bitpot.railways.models.routes.SimpleRoute;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Reverse index from files to controllers which action status depends on
+ * them: files of controller classes, their parent classes and included
+ * modules. When a file is changed, only routes of the found controllers
+ * should be resolved again, and changes of other files are ignored.
+ *
+ * Controller also depends on files with the name of its class file, ex.
+ * "users_controller.rb", so routes of unresolved controller are resolved
+ * again when its file is created.
+ */
+public class RouteDependencyIndex {
+
+    // Controller short names by files which they depend on.
+    private final Map<VirtualFile, Set<String>> controllersByFile = new HashMap<>();
+
+    // Files which every controller depends on.
+    private final Map<String, Set<VirtualFile>> filesByController = new HashMap<>();
+
+    // Controller short names by names of their class files.
+    private final Map<String, Set<String>> controllersByFileName = new HashMap<>();
+
+
+    public void clear() {
+        controllersByFile.clear();
+        filesByController.clear();
+        controllersByFileName.clear();
+    }
+
+
+    /**
+     * Sets files which action status of the controller depends on. Files
+     * which were set before are replaced.
+     *
+     * @param controllerShortName Controller name, ex. "admin/users".
+     * @param files Files of the controller class and its ancestors.
+     */
+    public void setControllerFiles(@NotNull String controllerShortName,
+                                   @NotNull Collection<VirtualFile> files) {
+        Set<VirtualFile> oldFiles = filesByController.remove(controllerShortName);
+        if (oldFiles != null)
+            for (VirtualFile file : oldFiles) {
+                Set<String> controllers = controllersByFile.get(file);
+                controllers.remove(controllerShortName);
+                if (controllers.isEmpty())
+                    controllersByFile.remove(file);
+            }
+
+        filesByController.put(controllerShortName, new HashSet<>(files));
+        for (VirtualFile file : files)
+            controllersByFile.computeIfAbsent(file, k -> new HashSet<>())
+                    .add(controllerShortName);
+
+        controllersByFileName.computeIfAbsent(getControllerFileName(controllerShortName),
+                k -> new HashSet<>()).add(controllerShortName);
+    }
+
+
+    /**
+     * Finds controllers which action status can be changed by changes of
+     * the file.
+     *
+     * @param file Changed file.
+     * @return Names of affected controllers, empty if file doesn't affect
+     *         any controller.
+     */
+    @NotNull
+    public Set<String> findControllers(@NotNull VirtualFile file) {
+        Set<String> byFile = controllersByFile.get(file);
+        Set<String> byName = controllersByFileName.get(file.getName());
+
+        if (byName == null)
+            return byFile != null ? byFile : Collections.emptySet();
+
+        if (byFile == null)
+            return byName;
+
+        Set<String> result = new HashSet<>(byFile);
+        result.addAll(byName);
+
+        return result;
+    }
+
+
+    /**
+     * Selects routes which refer to any of the controllers.
+     *
+     * @param routes Routes to select from.
+     * @param controllers Controller short names.
+     * @return Selected routes in the same order.
+     */
+    @NotNull
+    public static RouteList findRoutes(@NotNull List<Route> routes,
+                                       @NotNull Set<String> controllers) {
+        RouteList result = new RouteList();
+        for (Route route : routes)
+            if (route instanceof SimpleRoute &&
+                    controllers.contains(((SimpleRoute) route).getControllerName()))
+                result.add(route);
+
+        return result;
+    }
+
+
+    @NotNull
+    static String getControllerFileName(@NotNull String controllerShortName) {
+        int pos = controllerShortName.lastIndexOf('/');
+
+        return controllerShortName.substring(pos + 1) + "_controller.rb";
+    }
+}
@@ -0,0 +1,145 @@
+package net.bitpot.railways.models;
+
+import net.bitpot.railways.models.requestMethods.RequestMethod;
+import net.bitpot.railways.models.routes.EngineRoute;
+import net.bitpot.railways.models.routes.RedirectRoute;
+import net.bitpot.railways.models.routes.SimpleRoute;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bitsets of route positions for every facet of routes filter, so facets are
+ * applied by a few bitwise operations instead of checking every route. Sets
+ * are built when the route list is set to the table model, and set of routes
+ * with unresolved actions is rebuilt when action status is updated.
+ */
+public class RouteFacetIndex {
+
+    private final List<Route> routes;
+
+    private final Map<RequestMethod, BitSet> verbRoutes = new HashMap<>();
+    private final BitSet redirectRoutes;
+    private final BitSet engineRoutes;
+    private final BitSet mountedRoutes;
+
+    // Replaced when action status changes, so the set which is used by
+    // filtering in other thread isn't modified.
+    private volatile BitSet unresolvedRoutes;
+
+
+    /**
+     * Builds facet sets for the route list. Sets are not updated when the
+     * list is changed.
+     *
+     * @param routes Routes to index.
+     */
+    public RouteFacetIndex(@NotNull List<Route> routes) {
+        this.routes = routes;
+
+        int count = routes.size();
+        for (RequestMethod method : RequestMethods.getAllRequestMethods())
+            verbRoutes.put(method, new BitSet(count));
+
+        redirectRoutes = new BitSet(count);
+        engineRoutes = new BitSet(count);
+        mountedRoutes = new BitSet(count);
+
+        for (int i = 0; i < count; i++) {
+            Route route = routes.get(i);
+
+            verbRoutes.computeIfAbsent(route.getRequestMethod(),
+                    k -> new BitSet(count)).set(i);
+
+            if (route instanceof RedirectRoute)
+                redirectRoutes.set(i);
+            else if (route instanceof EngineRoute)
+                engineRoutes.set(i);
+
+            if (route.getParentEngine() != null)
+                mountedRoutes.set(i);
+        }
+
+        unresolvedRoutes = findUnresolvedRoutes();
+    }
+
+
+    public int getRoutesCount() {
+        return routes.size();
+    }
+
+
+    /**
+     * Returns positions of routes with the request method.
+     */
+    @NotNull
+    BitSet getVerbRoutes(@NotNull RequestMethod method) {
+        return verbRoutes.get(method);
+    }
+
+
+    /**
+     * Rebuilds set of routes with unresolved actions. Should be called when
+     * action status of the routes is updated.
+     */
+    public void updateActionStatus() {
+        unresolvedRoutes = findUnresolvedRoutes();
+    }
+
+
+    private BitSet findUnresolvedRoutes() {
+        BitSet result = new BitSet(routes.size());
+
+        for (int i = 0; i < routes.size(); i++) {
+            Route route = routes.get(i);
+            if (!(route instanceof SimpleRoute))
+                continue;
+
+            // Actions which weren't searched yet are not counted, ex. when
+            // live highlighting is off or routes are just loaded.
+            RailsActionInfo info = ((SimpleRoute) route).getActionInfo();
+            if (info.isStatusKnown() && !info.isMethodFound())
+                result.set(i);
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Finds routes which pass all enabled facets of the filter.
+     *
+     * @param filter Routes filter.
+     * @return Positions of routes or null if no facets are enabled.
+     */
+    @Nullable
+    public BitSet find(@NotNull RoutesFilter filter) {
+        if (!filter.isFacetFilterActive())
+            return null;
+
+        int count = routes.size();
+        BitSet result = new BitSet(count);
+
+        for (Map.Entry<RequestMethod, BitSet> entry : verbRoutes.entrySet())
+            if (filter.isRequestMethodVisible(entry.getKey()))
+                result.or(entry.getValue());
+
+        if (!filter.isMountedRoutesVisible())
+            result.andNot(mountedRoutes);
+
+        if (filter.isFacetEnabled(RoutesFilter.FACET_UNRESOLVED_ACTIONS))
+            result.and(unresolvedRoutes);
+
+        if (filter.isFacetEnabled(RoutesFilter.FACET_REDIRECTS))
+            result.and(redirectRoutes);
+
+        if (filter.isFacetEnabled(RoutesFilter.FACET_ENGINE_ROUTES))
+            result.and(engineRoutes);
+
+        return result;
+    }
+}
@@ -0,0 +1,215 @@
+package net.bitpot.railways.models;
+
+import net.bitpot.railways.models.requestMethods.RequestMethod;
+import net.bitpot.railways.models.routes.SimpleRoute;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes of route fields which are used to answer field clauses of
+ * RouteQuery without matching every route. Verb and engine clauses are
+ * answered by prebuilt bitsets of route positions, controller and name
+ * clauses by searching a range of sorted values which start with the prefix
+ * of the clause, url clause by RoutePathTrie.
+ */
+public class RouteFieldIndex {
+
+    private final int routesCount;
+
+    // Verb clauses are answered by verb sets of facet index.
+    private final RouteFacetIndex facetIndex;
+
+    // Routes of every engine, null key is used for application routes.
+    private final Map<String, BitSet> engineRoutes = new LinkedHashMap<>();
+
+    private final SortedField controllers;
+    private final SortedField names;
+
+    private final List<Route> routes;
+
+    // Trie is built only when url clause is used.
+    @Nullable
+    private RoutePathTrie pathTrie = null;
+
+
+    /**
+     * Builds indexes for the route list. Indexes are not updated when the
+     * list is changed.
+     *
+     * @param routes Routes to index.
+     */
+    public RouteFieldIndex(@NotNull List<Route> routes) {
+        this(routes, new RouteFacetIndex(routes));
+    }
+
+
+    /**
+     * Builds indexes for the route list.
+     *
+     * @param routes Routes to index.
+     * @param facetIndex Facet index of the same route list.
+     */
+    public RouteFieldIndex(@NotNull List<Route> routes, @NotNull RouteFacetIndex facetIndex) {
+        this.routes = routes;
+        this.facetIndex = facetIndex;
+        routesCount = routes.size();
+
+        String[] controllerNames = new String[routesCount];
+        String[] routeNames = new String[routesCount];
+
+        for (int i = 0; i < routesCount; i++) {
+            Route route = routes.get(i);
+
+            RailsEngine engine = route.getParentEngine();
+            String namespace = engine == null ? null :
+                    WildcardMatcher.toLowerCase(engine.getNamespace());
+            engineRoutes.computeIfAbsent(namespace, k -> new BitSet(routesCount)).set(i);
+
+            if (route instanceof SimpleRoute)
+                controllerNames[i] = WildcardMatcher.toLowerCase(
+                        ((SimpleRoute) route).getControllerName());
+
+            routeNames[i] = route.getLowerCaseRouteName();
+        }
+
+        controllers = new SortedField(controllerNames);
+        names = new SortedField(routeNames);
+    }
+
+
+    public int getRoutesCount() {
+        return routesCount;
+    }
+
+
+    /**
+     * Finds routes which match all field clauses of the query.
+     *
+     * @param query Parsed filter text.
+     * @return Positions of matched routes or null if the query has no
+     *         field clauses.
+     */
+    @Nullable
+    public BitSet find(@NotNull RouteQuery query) {
+        if (!query.hasClauses())
+            return null;
+
+        BitSet result = new BitSet(routesCount);
+        result.set(0, routesCount);
+
+        if (!query.getVerbs().isEmpty())
+            result.and(findVerbs(query.getVerbs()));
+
+        if (query.getEngine() != null) {
+            BitSet engines = new BitSet(routesCount);
+            for (Map.Entry<String, BitSet> entry : engineRoutes.entrySet())
+                if (query.matchesEngineNamespace(entry.getKey()))
+                    engines.or(entry.getValue());
+
+            result.and(engines);
+        }
+
+        if (query.getController() != null && !result.isEmpty())
+            result.and(controllers.find(query.getController()));
+
+        if (query.getName() != null && !result.isEmpty())
+            result.and(names.find(query.getName()));
+
+        if (query.getUrlPath() != null && !result.isEmpty())
+            result.and(getPathTrie().find(query.getUrlPath()));
+
+        return result;
+    }
+
+
+    private RoutePathTrie getPathTrie() {
+        if (pathTrie == null)
+            pathTrie = new RoutePathTrie(routes);
+
+        return pathTrie;
+    }
+
+
+    private BitSet findVerbs(List<RequestMethod> verbs) {
+        BitSet result = new BitSet(routesCount);
+        if (verbs.contains(null))
+            return result;
+
+        for (RequestMethod verb : verbs)
+            result.or(facetIndex.getVerbRoutes(verb));
+
+        // Routes without request method accept every verb.
+        result.or(facetIndex.getVerbRoutes(RequestMethods.ANY));
+
+        return result;
+    }
+
+
+    /**
+     * Values of route field sorted alphabetically with positions of their
+     * routes.
+     */
+    private static class SortedField {
+        private final String[] values;
+        private final int[] routes;
+
+
+        SortedField(String[] fieldValues) {
+            Integer[] order = new Integer[fieldValues.length];
+            int count = 0;
+
+            for (int i = 0; i < fieldValues.length; i++)
+                if (fieldValues[i] != null)
+                    order[count++] = i;
+
+            order = Arrays.copyOf(order, count);
+            Arrays.sort(order, (a, b) -> fieldValues[a].compareTo(fieldValues[b]));
+
+            values = new String[count];
+            routes = new int[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = fieldValues[order[i]];
+                routes[i] = order[i];
+            }
+        }
+
+
+        /**
+         * Finds routes with values that entirely match the matcher. Only the
+         * range of values which start with matcher prefix is checked.
+         */
+        BitSet find(WildcardMatcher matcher) {
+            BitSet result = new BitSet();
+            String prefix = matcher.getPrefix();
+
+            for (int i = lowerBound(prefix); i < values.length &&
+                    values[i].startsWith(prefix); i++)
+                if (matcher.matchesEntirely(values[i]))
+                    result.set(routes[i]);
+
+            return result;
+        }
+
+
+        private int lowerBound(String value) {
+            int low = 0;
+            int high = values.length;
+
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid].compareTo(value) < 0)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+
+            return low;
+        }
+    }
+}
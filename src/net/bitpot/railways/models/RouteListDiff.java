@@ -0,0 +1,156 @@
+package net.bitpot.railways.models;
+
+import net.bitpot.railways.models.routes.SimpleRoute;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Difference between two route lists. When a routes file is edited, usually
+ * only a few routes are added, removed or changed, so the difference is
+ * represented as a single range of changed routes between common head and
+ * tail of both lists.
+ *
+ * Routes are compared by identity, so unchanged routes of a new list should
+ * be replaced by instances from the old one with reuseRoutes method first.
+ */
+public class RouteListDiff {
+
+    private final int start;
+    private final int oldEnd;
+    private final int newEnd;
+
+
+    private RouteListDiff(int start, int oldEnd, int newEnd) {
+        this.start = start;
+        this.oldEnd = oldEnd;
+        this.newEnd = newEnd;
+    }
+
+
+    /**
+     * Computes the range of changed routes.
+     *
+     * @param oldRoutes Previous route list.
+     * @param newRoutes Actual route list.
+     * @return Difference between lists.
+     */
+    @NotNull
+    public static RouteListDiff compute(@NotNull List<Route> oldRoutes,
+                                        @NotNull List<Route> newRoutes) {
+        int oldSize = oldRoutes.size();
+        int newSize = newRoutes.size();
+
+        int start = 0;
+        while (start < oldSize && start < newSize &&
+                oldRoutes.get(start) == newRoutes.get(start))
+            start++;
+
+        int oldEnd = oldSize;
+        int newEnd = newSize;
+        while (oldEnd > start && newEnd > start &&
+                oldRoutes.get(oldEnd - 1) == newRoutes.get(newEnd - 1)) {
+            oldEnd--;
+            newEnd--;
+        }
+
+        return new RouteListDiff(start, oldEnd, newEnd);
+    }
+
+
+    /**
+     * Replaces routes of the list by equal routes from previous list, so
+     * unchanged routes keep their cached chunks and action status. Routes are
+     * equal when they have the same request method, path, name and action.
+     * Other routes take resolved controller class and method from previous
+     * routes with the same action, so they don't have to be searched again.
+     *
+     * @param routes List which routes should be replaced.
+     * @param previousRoutes Previous list, can be null.
+     */
+    public static void reuseRoutes(@NotNull List<Route> routes,
+                                   @Nullable List<Route> previousRoutes) {
+        if (previousRoutes == null || previousRoutes.isEmpty() || routes == previousRoutes)
+            return;
+
+        // Several routes can have the same key, they are reused in order.
+        Map<String, ArrayDeque<Route>> previousByKey = new HashMap<>();
+        Map<String, RailsActionInfo> previousActions = new HashMap<>();
+
+        for (Route route : previousRoutes) {
+            previousByKey.computeIfAbsent(getRouteKey(route),
+                    k -> new ArrayDeque<>()).add(route);
+
+            if (route instanceof SimpleRoute) {
+                RailsActionInfo info = ((SimpleRoute) route).getActionInfo();
+                if (info.isResolved())
+                    previousActions.putIfAbsent(route.getActionTitle(), info);
+            }
+        }
+
+        for (int i = 0; i < routes.size(); i++) {
+            Route route = routes.get(i);
+
+            ArrayDeque<Route> sameRoutes = previousByKey.get(getRouteKey(route));
+            if (sameRoutes != null && !sameRoutes.isEmpty()) {
+                routes.set(i, sameRoutes.poll());
+                continue;
+            }
+
+            if (route instanceof SimpleRoute) {
+                RailsActionInfo info = previousActions.get(route.getActionTitle());
+                if (info != null)
+                    ((SimpleRoute) route).getActionInfo().copyFrom(info);
+            }
+        }
+    }
+
+
+    /**
+     * Returns a key which identifies the route in route lists.
+     *
+     * @param route Route
+     * @return Route key
+     */
+    @NotNull
+    static String getRouteKey(@NotNull Route route) {
+        return route.getClass().getSimpleName() + ' ' +
+                route.getRequestMethod().getName() + ' ' +
+                route.getPath() + ' ' +
+                route.getRouteName() + ' ' +
+                route.getActionTitle();
+    }
+
+
+    public boolean isEmpty() {
+        return oldEnd == start && newEnd == start;
+    }
+
+
+    /**
+     * Returns index of the first changed route, it's the same in both lists.
+     */
+    public int getStart() {
+        return start;
+    }
+
+
+    /**
+     * Returns index after the last changed route in previous list.
+     */
+    public int getOldEnd() {
+        return oldEnd;
+    }
+
+
+    /**
+     * Returns index after the last changed route in actual list.
+     */
+    public int getNewEnd() {
+        return newEnd;
+    }
+}
@@ -0,0 +1,272 @@
+package net.bitpot.railways.models;
+
+import net.bitpot.railways.models.routes.EngineRoute;
+import net.bitpot.railways.parser.route.RoutePathChunk;
+import net.bitpot.railways.parser.route.RoutePathParser;
+import net.bitpot.railways.parser.route.TextChunk;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trie of route paths which is used to find routes that serve a concrete URL,
+ * ex. "/admin/users/42/edit.json" is served by
+ * "/admin/users/:id/edit(.:format)" route. Paths are split into chunks by
+ * RoutePathParser: plain text is added to the trie char by char, parameters
+ * and globs are added as special edges, and optional parts are added both
+ * with and without their content. So the URL is resolved by walking the trie,
+ * and the number of checked nodes depends on URL length, not on the number of
+ * routes.
+ *
+ * Route constraints are unknown, so the trie can find more routes than Rails
+ * actually matches. Paths are matched case-insensitively.
+ */
+public class RoutePathTrie {
+
+    private final Node root = new Node();
+    private final int routesCount;
+
+
+    /**
+     * Builds trie of route list paths. Trie is not updated when the list is
+     * changed.
+     *
+     * @param routes Routes to add.
+     */
+    public RoutePathTrie(@NotNull List<Route> routes) {
+        routesCount = routes.size();
+
+        for (int i = 0; i < routesCount; i++) {
+            Route route = routes.get(i);
+            Set<Node> ends = addChunks(Collections.singleton(root),
+                    RoutePathParser.getInstance().parse(route.getPath()));
+
+            // Mounted engine serves all URLs which start with its path.
+            boolean isMount = route instanceof EngineRoute;
+            for (Node node : ends)
+                node.addRoute(i, isMount);
+        }
+    }
+
+
+    public int getRoutesCount() {
+        return routesCount;
+    }
+
+
+    /**
+     * Adds path chunks after every node of the set.
+     *
+     * @return Nodes where the chunks end.
+     */
+    private static Set<Node> addChunks(Collection<Node> nodes, List<TextChunk> chunks) {
+        Set<Node> current = new LinkedHashSet<>(nodes);
+
+        for (TextChunk chunk : chunks) {
+            Set<Node> next = new LinkedHashSet<>();
+
+            switch (chunk.getType()) {
+                case RoutePathChunk.PARAMETER:
+                    for (Node node : current)
+                        next.add(node.getParameter());
+                    break;
+
+                case RoutePathChunk.OPTIONAL:
+                    String text = chunk.getText();
+                    next.addAll(current);
+                    next.addAll(addChunks(current, RoutePathParser.getInstance()
+                            .parse(text.substring(1, text.length() - 1))));
+                    break;
+
+                default:
+                    for (Node node : current)
+                        next.add(addPlainText(node, chunk.getText()));
+            }
+
+            current = next;
+        }
+
+        return current;
+    }
+
+
+    private static Node addPlainText(Node node, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            if (c == '*') {
+                // Glob parameter, ex. "*path".
+                while (i + 1 < text.length() && isNameChar(text.charAt(i + 1)))
+                    i++;
+
+                node = node.getGlob();
+            } else
+                node = node.getLiteral(Character.toLowerCase(c));
+        }
+
+        return node;
+    }
+
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+
+    /**
+     * Finds routes which match the path.
+     *
+     * @param path URL path converted by toPath method.
+     * @return Positions of matched routes. As Rails uses the first matched
+     *         route, the lowest position is the one which serves the URL.
+     */
+    @NotNull
+    public BitSet find(@NotNull String path) {
+        BitSet result = new BitSet(routesCount);
+        find(root, path, 0, result);
+
+        return result;
+    }
+
+
+    private static void find(Node node, String path, int pos, BitSet result) {
+        if (pos == path.length())
+            node.addRoutesTo(result);
+
+        if (node.mountRoutes != null && (pos == path.length() || path.charAt(pos) == '/'))
+            for (int i = 0; i < node.mountRoutesCount; i++)
+                result.set(node.mountRoutes[i]);
+
+        if (pos == path.length())
+            return;
+
+        Node literal = node.literals == null ? null : node.literals.get(path.charAt(pos));
+        if (literal != null)
+            find(literal, path, pos + 1, result);
+
+        // Parameter matches any text until the next separator.
+        if (node.parameter != null)
+            for (int end = pos + 1; end <= path.length() && !isSeparator(path.charAt(end - 1)); end++)
+                find(node.parameter, path, end, result);
+
+        if (node.glob != null)
+            for (int end = pos + 1; end <= path.length(); end++)
+                find(node.glob, path, end, result);
+    }
+
+
+    private static boolean isSeparator(char c) {
+        return c == '/' || c == '.' || c == '?';
+    }
+
+
+    /**
+     * Extracts path from URL, ex. "http://localhost:3000/users/1?page=2"
+     * is converted to "/users/1". Trailing slash is removed as Rails ignores
+     * it.
+     *
+     * @param url URL or its path.
+     * @return Lower-cased path of the URL.
+     */
+    @NotNull
+    public static String toPath(@NotNull String url) {
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd >= 0) {
+            int pathStart = url.indexOf('/', schemeEnd + 3);
+            url = pathStart < 0 ? "/" : url.substring(pathStart);
+        }
+
+        for (char c : new char[] {'?', '#'}) {
+            int pos = url.indexOf(c);
+            if (pos >= 0)
+                url = url.substring(0, pos);
+        }
+
+        if (!url.startsWith("/"))
+            url = "/" + url;
+
+        if (url.length() > 1 && url.endsWith("/"))
+            url = url.substring(0, url.length() - 1);
+
+        return WildcardMatcher.toLowerCase(url);
+    }
+
+
+    /**
+     * Checks whether a single route matches the path. It's slower than
+     * finding routes in the trie of the whole list.
+     */
+    public static boolean matches(@NotNull Route route, @NotNull String path) {
+        return new RoutePathTrie(Collections.singletonList(route)).find(path).get(0);
+    }
+
+
+    private static class Node {
+        private Map<Character, Node> literals = null;
+        private Node parameter = null;
+        private Node glob = null;
+
+        private int[] routes = null;
+        private int routesCount = 0;
+
+        private int[] mountRoutes = null;
+        private int mountRoutesCount = 0;
+
+
+        Node getLiteral(char c) {
+            if (literals == null)
+                literals = new HashMap<>(4);
+
+            return literals.computeIfAbsent(c, k -> new Node());
+        }
+
+
+        Node getParameter() {
+            if (parameter == null)
+                parameter = new Node();
+
+            return parameter;
+        }
+
+
+        Node getGlob() {
+            if (glob == null)
+                glob = new Node();
+
+            return glob;
+        }
+
+
+        void addRoute(int routeIndex, boolean isMount) {
+            if (isMount) {
+                mountRoutes = append(mountRoutes, mountRoutesCount++, routeIndex);
+            } else
+                routes = append(routes, routesCount++, routeIndex);
+        }
+
+
+        void addRoutesTo(BitSet result) {
+            for (int i = 0; i < routesCount; i++)
+                result.set(routes[i]);
+        }
+
+
+        private static int[] append(int[] values, int count, int value) {
+            if (values == null)
+                values = new int[1];
+            else if (count == values.length)
+                values = Arrays.copyOf(values, count * 2);
+
+            values[count] = value;
+            return values;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package net.bitpot.railways.models;
+
+import net.bitpot.railways.models.requestMethods.RequestMethod;
+import net.bitpot.railways.models.routes.SimpleRoute;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Filter text parsed into field clauses and free text, ex.
+ * "verb:post ctrl:admin/* name:*_path engine:none users". Supported fields:
+ * <ul>
+ *   <li>verb - request method, several methods can be separated by comma.
+ *       Routes which accept any method match every verb;</li>
+ *   <li>ctrl - controller name, can contain "*" wildcards;</li>
+ *   <li>name - route name, can contain "*" wildcards. "_path" and "_url"
+ *       suffixes of route helper names are ignored;</li>
+ *   <li>engine - namespace of mounted engine, "none" for application routes
+ *       and "any" for routes of all engines;</li>
+ *   <li>url - concrete URL, ex. "url:/users/42/edit.json", matches routes
+ *       which serve it.</li>
+ * </ul>
+ * Words with unknown fields are a part of free text, which is matched against
+ * path, action and name of routes.
+ */
+public class RouteQuery {
+
+    static final String ENGINE_NONE = "none";
+    static final String ENGINE_ANY = "any";
+
+    private final String text;
+
+    private final List<RequestMethod> verbs = new ArrayList<>();
+
+    @Nullable
+    private WildcardMatcher controller = null;
+
+    @Nullable
+    private WildcardMatcher name = null;
+
+    @Nullable
+    private String engine = null;
+
+    @Nullable
+    private WildcardMatcher engineMatcher = null;
+
+    @Nullable
+    private String urlPath = null;
+
+
+    /**
+     * Parses filter text.
+     *
+     * @param filterText Lower-cased filter text.
+     */
+    public RouteQuery(@NotNull String filterText) {
+        List<String> words = new ArrayList<>();
+
+        for (String word : filterText.trim().split("\\s+")) {
+            if (!parseClause(word) && !word.isEmpty())
+                words.add(word);
+        }
+
+        text = String.join(" ", words);
+    }
+
+
+    private boolean parseClause(String word) {
+        int pos = word.indexOf(':');
+        if (pos <= 0 || pos == word.length() - 1)
+            return false;
+
+        String value = word.substring(pos + 1);
+
+        switch (word.substring(0, pos)) {
+            case "verb":
+                for (String verb : value.split(","))
+                    for (RequestMethod method : RequestMethods.getAllRequestMethods())
+                        if (method.getName().equalsIgnoreCase(verb) && !verbs.contains(method))
+                            verbs.add(method);
+
+                // Unknown verb shouldn't match any route.
+                if (verbs.isEmpty())
+                    verbs.add(null);
+                return true;
+
+            case "ctrl":
+                controller = new WildcardMatcher(value);
+                return true;
+
+            case "name":
+                name = new WildcardMatcher(stripHelperSuffix(value));
+                return true;
+
+            case "engine":
+                engine = value;
+                engineMatcher = new WildcardMatcher(value);
+                return true;
+
+            case "url":
+                urlPath = RoutePathTrie.toPath(value);
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+
+    private static String stripHelperSuffix(String name) {
+        for (String suffix : new String[] {"_path", "_url"})
+            if (name.endsWith(suffix))
+                return name.substring(0, name.length() - suffix.length());
+
+        return name;
+    }
+
+
+    /**
+     * Returns filter text without field clauses.
+     */
+    @NotNull
+    public String getText() {
+        return text;
+    }
+
+
+    public boolean hasClauses() {
+        return !verbs.isEmpty() || controller != null || name != null ||
+                engine != null || urlPath != null;
+    }
+
+
+    /**
+     * Returns request methods of verb clause, empty if there's no clause.
+     * List contains null if unknown verb is specified.
+     */
+    @NotNull
+    List<RequestMethod> getVerbs() {
+        return Collections.unmodifiableList(verbs);
+    }
+
+
+    @Nullable
+    WildcardMatcher getController() {
+        return controller;
+    }
+
+
+    @Nullable
+    WildcardMatcher getName() {
+        return name;
+    }
+
+
+    /**
+     * Returns value of engine clause or null if there's no clause.
+     */
+    @Nullable
+    String getEngine() {
+        return engine;
+    }
+
+
+    /**
+     * Returns path of the URL from url clause or null if there's no clause.
+     */
+    @Nullable
+    String getUrlPath() {
+        return urlPath;
+    }
+
+
+    /**
+     * Checks whether the route matches all field clauses.
+     *
+     * @param route Route to check.
+     * @return True if route matches or query has no clauses.
+     */
+    public boolean matchesClauses(@NotNull Route route) {
+        if (!verbs.isEmpty() && (verbs.contains(null) ||
+                (route.getRequestMethod() != RequestMethods.ANY &&
+                        !verbs.contains(route.getRequestMethod()))))
+            return false;
+
+        if (controller != null && !matchesController(controller, route))
+            return false;
+
+        if (name != null && !name.matchesEntirely(route.getLowerCaseRouteName()))
+            return false;
+
+        if (engine != null && !matchesEngine(route))
+            return false;
+
+        return urlPath == null || RoutePathTrie.matches(route, urlPath);
+    }
+
+
+    static boolean matchesController(@NotNull WildcardMatcher controller, @NotNull Route route) {
+        return route instanceof SimpleRoute && controller.matchesEntirely(
+                WildcardMatcher.toLowerCase(((SimpleRoute) route).getControllerName()));
+    }
+
+
+    private boolean matchesEngine(Route route) {
+        RailsEngine parentEngine = route.getParentEngine();
+
+        return matchesEngineNamespace(parentEngine == null ? null :
+                WildcardMatcher.toLowerCase(parentEngine.getNamespace()));
+    }
+
+
+    /**
+     * Checks whether routes of the engine match engine clause.
+     *
+     * @param namespace Lower-cased engine namespace or null for routes of
+     *                  the application.
+     * @return True if routes match the clause.
+     */
+    boolean matchesEngineNamespace(@Nullable String namespace) {
+        if (ENGINE_NONE.equals(engine))
+            return namespace == null;
+
+        if (ENGINE_ANY.equals(engine))
+            return namespace != null;
+
+        return namespace != null && engineMatcher != null &&
+                engineMatcher.matchesEntirely(namespace);
+    }
+}
@@ -1,9 +1,21 @@
 package net.bitpot.railways.models;
 
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Table models.
@@ -14,16 +26,78 @@ public class RouteTableModel extends AbstractTableModel {
     public final static int COL_ACTION      = 1;
     public final static int COL_NAME        = 2;
 
+    // Max number of routes which are shown when routes are ranked by fuzzy
+    // match score.
+    final static int RANKED_ROUTES_LIMIT = 200;
+
     private RouteList myRouteList;
-    private final RouteList filteredRoutes;
+    private RouteList filteredRoutes;
     private final RoutesFilter filter;
 
+    // Copy of the filter which current rows were filtered with. Rows are
+    // highlighted by this filter, as with async filtering the filter can be
+    // already changed while the rows are still shown.
+    private RoutesFilter appliedFilter;
+
+    // Trigram index of myRouteList, it's built when the list is filtered by
+    // text for the first time.
+    private RouteTrigramIndex trigramIndex = null;
+
+    // Index of route fields which is built when field clauses are used for
+    // the first time.
+    private RouteFieldIndex fieldIndex = null;
+
+    // Facet sets of myRouteList, they're built when the list is set.
+    private RouteFacetIndex facetIndex;
+
+    // Filter parameters which filteredRoutes were built with. When filter
+    // text is extended, filteredRoutes are narrowed instead of filtering
+    // the whole route list. Text is null when routes should be rescanned.
+    private String filteredText = null;
+    @Nullable
+    private RoutesFilter filteredFacets = null;
+
+    // Size of the route list which filteredRoutes were built from.
+    private int filteredTotalCount = 0;
+
+    // Rows of filtered routes, it's built when rows of updated routes are
+    // searched for the first time after filtering.
+    @Nullable
+    private Map<Route, Integer> filteredRows = null;
+
+    // Executor which filters routes in background. It's null when routes are
+    // filtered synchronously.
+    @Nullable
+    private final ExecutorService filterExecutor;
+
+    // Incremented on every filter change. Filtering pass is cancelled when
+    // it's outdated by a newer one.
+    private final AtomicInteger filterGeneration = new AtomicInteger();
+
 
     public RouteTableModel() {
+        this(false);
+    }
+
+
+    /**
+     * Creates table model.
+     *
+     * @param isFilteringAsync If true, routes are filtered in background
+     *                         thread and filtered rows are set in EDT when
+     *                         filtering is finished.
+     */
+    public RouteTableModel(boolean isFilteringAsync) {
         myRouteList = new RouteList();
         filteredRoutes = new RouteList();
+        facetIndex = new RouteFacetIndex(myRouteList);
+
+        filterExecutor = isFilteringAsync ?
+                AppExecutorUtil.createBoundedApplicationPoolExecutor("Railways Routes Filter", 1) :
+                null;
 
         filter = new RoutesFilter(this);
+        appliedFilter = filter.copy();
         filterChanged();
     }
 
@@ -33,10 +107,59 @@ public class RouteTableModel extends AbstractTableModel {
             routes = new RouteList();
 
         this.myRouteList = routes;
+        trigramIndex = null;
+        fieldIndex = null;
+        facetIndex = new RouteFacetIndex(routes);
+        filteredText = null;
         filterChanged();
     }
 
 
+    /**
+     * Updates facet of routes with unresolved actions. Should be called when
+     * action status of routes is updated.
+     */
+    public void actionStatusChanged() {
+        facetIndex.updateActionStatus();
+
+        if (filter.isFacetEnabled(RoutesFilter.FACET_UNRESOLVED_ACTIONS)) {
+            // Resolved routes should be removed and the others added, so
+            // filtered routes cannot be narrowed.
+            filteredText = null;
+            filterChanged();
+        }
+    }
+
+
+    /**
+     * Notifies listeners about rows of the routes which action status was
+     * updated. Only the range of rows which contains the routes is updated,
+     * routes which are filtered out are skipped.
+     *
+     * @param routes Updated routes.
+     */
+    public void routesUpdated(@NotNull List<Route> routes) {
+        if (filteredRows == null) {
+            filteredRows = new IdentityHashMap<>(filteredRoutes.size());
+            for (int i = 0; i < filteredRoutes.size(); i++)
+                filteredRows.put(filteredRoutes.get(i), i);
+        }
+
+        int firstRow = Integer.MAX_VALUE;
+        int lastRow = -1;
+        for (Route route : routes) {
+            Integer row = filteredRows.get(route);
+            if (row != null) {
+                firstRow = Math.min(firstRow, row);
+                lastRow = Math.max(lastRow, row);
+            }
+        }
+
+        if (lastRow >= 0)
+            fireTableRowsUpdated(firstRow, lastRow);
+    }
+
+
     @Override
     public String getColumnName(int column) {
         switch (column) {
@@ -95,21 +218,331 @@ public class RouteTableModel extends AbstractTableModel {
     }
 
 
+    /**
+     * Returns copy of the filter which current rows were filtered with. It
+     * should be used to highlight matches in the rows.
+     */
+    @NotNull
+    public RoutesFilter getAppliedFilter() {
+        return appliedFilter;
+    }
+
+
     void filterChanged() {
-        // Here we should update model.
-        filteredRoutes.clear();
-
-        if (!filter.isFilterActive()) {
-            filteredRoutes.setSize(myRouteList.size());
-            Collections.copy(filteredRoutes, myRouteList);
-        } else {
-            // Filter all elements
-            for (Route route : myRouteList)
+        FilterPass pass = new FilterPass(filterGeneration.incrementAndGet());
+
+        if (filterExecutor == null) {
+            pass.run();
+            applyFilterPass(pass);
+            return;
+        }
+
+        filterExecutor.execute(() -> {
+            pass.run();
+
+            if (!pass.isCancelled())
+                ApplicationManager.getApplication().invokeLater(
+                        () -> applyFilterPass(pass), ModalityState.any());
+        });
+    }
+
+
+    /**
+     * Sets rows filtered by the pass if no newer filter changes were made.
+     */
+    private void applyFilterPass(FilterPass pass) {
+        if (pass.isCancelled())
+            return;
+
+        if (pass.routes == myRouteList) {
+            trigramIndex = pass.index;
+            fieldIndex = pass.fieldIndex;
+        }
+
+        int previousTotalCount = filteredTotalCount;
+
+        RouteListDiff diff = RouteListDiff.compute(filteredRoutes, pass.result);
+        filteredRoutes = pass.result;
+        filteredRows = null;
+        // Ranked routes are limited, so they cannot be narrowed. Extended
+        // field clause can match more routes, ex. "verb:pos" matches nothing.
+        filteredText = pass.filter.isRankingActive() || pass.filter.getQuery().hasClauses() ?
+                null : pass.filter.getFilterText();
+        filteredFacets = pass.filter;
+        appliedFilter = pass.filter;
+        filteredTotalCount = pass.routes.size();
+
+        fireRoutesChanged(diff, previousTotalCount != filteredTotalCount);
+    }
+
+
+    /**
+     * Filtering of route list by the filter state at the moment when the
+     * pass was created. The pass doesn't change the model, so it can be run
+     * in any thread.
+     */
+    private class FilterPass implements Runnable {
+        // How often the pass checks whether it's cancelled.
+        private static final int CANCEL_CHECK_INTERVAL = 256;
+
+        private final int generation;
+        private final RouteList routes;
+        private final RoutesFilter filter;
+
+        // Routes which should be filtered when previous result is narrowed.
+        @Nullable
+        private final RouteList narrowedRoutes;
+
+        @Nullable
+        private RouteTrigramIndex index;
+
+        @Nullable
+        private RouteFieldIndex fieldIndex;
+
+        private final RouteFacetIndex facets;
+
+        private final RouteList result = new RouteList();
+
+
+        FilterPass(int generation) {
+            this.generation = generation;
+            routes = myRouteList;
+            filter = RouteTableModel.this.filter.copy();
+            narrowedRoutes = canNarrowFilteredRoutes() ? filteredRoutes : null;
+            index = trigramIndex;
+            fieldIndex = RouteTableModel.this.fieldIndex;
+            facets = facetIndex;
+        }
+
+
+        boolean isCancelled() {
+            return generation != filterGeneration.get();
+        }
+
+
+        @Override
+        public void run() {
+            if (!filter.isFilterActive()) {
+                result.addAll(routes);
+                return;
+            }
+
+            if (narrowedRoutes != null) {
+                // Routes that match extended filter text are a subset of
+                // routes that matched previous text.
+                filterRoutes(narrowedRoutes);
+                return;
+            }
+
+            // Routes which match field clauses and facets, the rest of the
+            // filter is checked only for them.
+            BitSet matches = findFieldMatches();
+            BitSet facetMatches = facets.find(filter);
+
+            if (matches == null)
+                matches = facetMatches;
+            else if (facetMatches != null)
+                matches.and(facetMatches);
+
+            if (filter.isRankingActive()) {
+                rankRoutes(matches);
+                return;
+            }
+
+            int[] candidates = findCandidates();
+
+            if (candidates == null && matches == null) {
+                // Filter all elements
+                filterRoutes(routes);
+                return;
+            }
+
+            if (candidates == null) {
+                int count = 0;
+                for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                    if (count++ % CANCEL_CHECK_INTERVAL == 0 && isCancelled())
+                        return;
+
+                    Route route = routes.get(i);
+                    if (filter.matchText(route))
+                        result.add(route);
+                }
+                return;
+            }
+
+            for (int i = 0; i < candidates.length; i++) {
+                if (i % CANCEL_CHECK_INTERVAL == 0 && isCancelled())
+                    return;
+
+                if (matches != null && !matches.get(candidates[i]))
+                    continue;
+
+                Route route = routes.get(candidates[i]);
+                if (filter.matchText(route))
+                    result.add(route);
+            }
+        }
+
+
+        /**
+         * Adds best matched routes to the result, ordered by their score.
+         * Only RANKED_ROUTES_LIMIT routes are kept in the heap, so the worst
+         * of them can be quickly replaced by a better one.
+         *
+         * @param matches Routes which match field clauses and facets, or
+         *                null if all routes should be ranked.
+         */
+        private void rankRoutes(@Nullable BitSet matches) {
+            PriorityQueue<ScoredRoute> heap = new PriorityQueue<>(RANKED_ROUTES_LIMIT + 1);
+
+            for (int i = 0; i < routes.size(); i++) {
+                if (i % CANCEL_CHECK_INTERVAL == 0 && isCancelled())
+                    return;
+
+                if (matches != null) {
+                    i = matches.nextSetBit(i);
+                    if (i < 0)
+                        break;
+                }
+
+                // Field clauses are already checked by the field index.
+                int score = filter.getTextScore(routes.get(i));
+                if (score == FuzzyMatcher.NO_MATCH)
+                    continue;
+
+                // Route with the same score is worse than any route in the
+                // heap, as it's further in the list.
+                if (heap.size() == RANKED_ROUTES_LIMIT && score <= heap.peek().score)
+                    continue;
+
+                heap.add(new ScoredRoute(routes.get(i), score, i));
+                if (heap.size() > RANKED_ROUTES_LIMIT)
+                    heap.poll();
+            }
+
+            ScoredRoute[] ranked = heap.toArray(new ScoredRoute[0]);
+            Arrays.sort(ranked, Collections.reverseOrder());
+
+            for (ScoredRoute scoredRoute : ranked)
+                result.add(scoredRoute.route);
+        }
+
+
+        private void filterRoutes(List<Route> routeList) {
+            for (int i = 0; i < routeList.size(); i++) {
+                if (i % CANCEL_CHECK_INTERVAL == 0 && isCancelled())
+                    return;
+
+                Route route = routeList.get(i);
                 if (filter.match(route))
-                    filteredRoutes.add(route);
+                    result.add(route);
+            }
+        }
+
+
+        /**
+         * Returns positions of routes that can match filter text or null if
+         * all routes should be checked.
+         */
+        @Nullable
+        private int[] findCandidates() {
+            String text = filter.getQuery().getText();
+            if (text.isEmpty())
+                return null;
+
+            if (index == null || index.getRoutesCount() != routes.size())
+                index = new RouteTrigramIndex(routes);
+
+            return index.findCandidates(text);
         }
 
-        this.fireTableDataChanged();
+
+        /**
+         * Returns positions of routes that match field clauses of the filter
+         * or null if there are no clauses.
+         */
+        @Nullable
+        private BitSet findFieldMatches() {
+            RouteQuery query = filter.getQuery();
+            if (!query.hasClauses())
+                return null;
+
+            if (fieldIndex == null || fieldIndex.getRoutesCount() != routes.size())
+                fieldIndex = new RouteFieldIndex(routes, facets);
+
+            return fieldIndex.find(query);
+        }
+    }
+
+
+    /**
+     * Route with its fuzzy match score. Routes are ordered from the worst to
+     * the best match, routes with the same score are ordered by position.
+     */
+    private static class ScoredRoute implements Comparable<ScoredRoute> {
+        final Route route;
+        final int score;
+        final int index;
+
+        ScoredRoute(Route route, int score, int index) {
+            this.route = route;
+            this.score = score;
+            this.index = index;
+        }
+
+        @Override
+        public int compareTo(@NotNull ScoredRoute other) {
+            if (score != other.score)
+                return Integer.compare(score, other.score);
+
+            return Integer.compare(other.index, index);
+        }
+    }
+
+
+    /**
+     * Checks whether current filter is more strict than the filter which
+     * filteredRoutes were built with. It's true when the same list is
+     * filtered by text that contains previous filter text, as every match of
+     * the new pattern contains a match of the previous one.
+     */
+    private boolean canNarrowFilteredRoutes() {
+        return filteredText != null && !filteredText.isEmpty() &&
+                !filter.isRankingActive() &&
+                !filter.getQuery().hasClauses() &&
+                filter.getFilterText().contains(filteredText) &&
+                filteredFacets != null && filter.hasSameFacets(filteredFacets);
+    }
+
+
+    /**
+     * Notifies listeners only about rows that were changed, so the table
+     * keeps selection and doesn't repaint unchanged rows.
+     */
+    private void fireRoutesChanged(RouteListDiff diff, boolean isTotalCountChanged) {
+        if (diff.isEmpty()) {
+            // Listeners should be notified about changed total count even if
+            // rows are the same.
+            if (isTotalCountChanged && getRowCount() > 0)
+                fireTableRowsUpdated(0, getRowCount() - 1);
+            else if (isTotalCountChanged)
+                fireTableDataChanged();
+
+            return;
+        }
+
+        int start = diff.getStart();
+        int oldCount = diff.getOldEnd() - start;
+        int newCount = diff.getNewEnd() - start;
+        int updatedCount = Math.min(oldCount, newCount);
+
+        if (updatedCount > 0)
+            fireTableRowsUpdated(start, start + updatedCount - 1);
+
+        if (newCount > oldCount)
+            fireTableRowsInserted(start + updatedCount, start + newCount - 1);
+        else if (oldCount > newCount)
+            fireTableRowsDeleted(start + updatedCount, start + oldCount - 1);
     }
 
     /**
@@ -123,11 +556,13 @@ public class RouteTableModel extends AbstractTableModel {
 
 
     /**
-     * Returns total number of routes that was successfully parsed.
+     * Returns total number of routes that was successfully parsed. When
+     * routes are filtered in background, it's the number of routes which
+     * current rows were filtered from, so it's consistent with row count.
      *
      * @return Number of parsed routes.
      */
     public int getTotalRoutesCount() {
-        return myRouteList.size();
+        return filteredTotalCount;
     }
 }
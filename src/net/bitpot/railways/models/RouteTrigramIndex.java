@@ -0,0 +1,139 @@
+package net.bitpot.railways.models;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trigram index of route list which is used to narrow routes that should be
+ * matched against filter text. For every trigram of route path, action title
+ * and name the index contains sorted list of route positions. Route can match
+ * filter only if it contains all trigrams of literal parts of the filter, so
+ * the rest of routes can be skipped without matching.
+ */
+public class RouteTrigramIndex {
+
+    private static final int[] EMPTY_POSTINGS = new int[0];
+
+    private final Map<Long, int[]> postings;
+    private final int routesCount;
+
+
+    /**
+     * Builds index for the route list. Index is not updated when the list is
+     * changed, so a new index should be built for a changed list.
+     *
+     * @param routes Routes to index.
+     */
+    public RouteTrigramIndex(@NotNull List<Route> routes) {
+        routesCount = routes.size();
+
+        Map<Long, PostingList> lists = new HashMap<>();
+        for (int i = 0; i < routesCount; i++) {
+            Route route = routes.get(i);
+
+            addTrigrams(lists, route.getPath(), i);
+            addTrigrams(lists, route.getActionTitle(), i);
+            addTrigrams(lists, route.getRouteName(), i);
+        }
+
+        postings = new HashMap<>(lists.size() * 2);
+        for (Map.Entry<Long, PostingList> entry : lists.entrySet())
+            postings.put(entry.getKey(), entry.getValue().toArray());
+    }
+
+
+    private static void addTrigrams(Map<Long, PostingList> lists, String text, int routeIndex) {
+        for (int i = 0; i + 3 <= text.length(); i++)
+            lists.computeIfAbsent(trigram(text, i), k -> new PostingList())
+                    .add(routeIndex);
+    }
+
+
+    /**
+     * Returns positions of routes which can match filter text. Filter text
+     * can contain "*" wildcards, which split it into literal parts.
+     *
+     * @param filterText Filter text.
+     * @return Sorted positions of routes which should be matched against the
+     *         filter or null if filter has no trigrams and all routes should
+     *         be matched.
+     */
+    @Nullable
+    public int[] findCandidates(@NotNull String filterText) {
+        int[] result = null;
+
+        for (String part : filterText.split("\\*")) {
+            for (int i = 0; i + 3 <= part.length(); i++) {
+                int[] list = postings.getOrDefault(trigram(part, i), EMPTY_POSTINGS);
+
+                result = (result == null) ? list : intersect(result, list);
+                if (result.length == 0)
+                    return result;
+            }
+        }
+
+        return result;
+    }
+
+
+    public int getRoutesCount() {
+        return routesCount;
+    }
+
+
+    private static long trigram(String text, int start) {
+        return ((long) Character.toLowerCase(text.charAt(start)) << 32) |
+                ((long) Character.toLowerCase(text.charAt(start + 1)) << 16) |
+                Character.toLowerCase(text.charAt(start + 2));
+    }
+
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0, j = 0;
+
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j])
+                i++;
+            else if (a[i] > b[j])
+                j++;
+            else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+
+    /**
+     * Growable list of route positions. Positions are added in ascending
+     * order, so duplicates can occur only at the end of the list.
+     */
+    private static class PostingList {
+        private int[] items = new int[4];
+        private int size = 0;
+
+        void add(int routeIndex) {
+            if (size > 0 && items[size - 1] == routeIndex)
+                return;
+
+            if (size == items.length)
+                items = Arrays.copyOf(items, size * 2);
+
+            items[size++] = routeIndex;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(items, size);
+        }
+    }
+}
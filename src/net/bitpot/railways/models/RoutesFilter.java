@@ -1,39 +1,103 @@
 package net.bitpot.railways.models;
 
+import net.bitpot.railways.models.requestMethods.RequestMethod;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class that contains all parameters of routes filtration.
  */
 public class RoutesFilter {
+
+    // Facets which show only routes of some kind. Facets are applied by
+    // RouteFacetIndex.
+    public static final int FACET_UNRESOLVED_ACTIONS = 1;
+    public static final int FACET_REDIRECTS = 2;
+    public static final int FACET_ENGINE_ROUTES = 4;
+
+    // Source of generation numbers, which are unique among all filters.
+    private static final AtomicInteger lastGeneration = new AtomicInteger();
+
     private final RouteTableModel tableModel;
+
+    // Generation of filter state which affects highlighting of routes. It's
+    // changed with filter text or matching mode.
+    private int generation = lastGeneration.incrementAndGet();
+
     private String filterText = "";
-    @NotNull private Pattern filterPattern = Pattern.compile("");
+    @NotNull private RouteQuery query = new RouteQuery("");
+    @NotNull private WildcardMatcher filterMatcher = new WildcardMatcher("");
     private boolean mountedRoutesVisible = true;
+    private int enabledFacets = 0;
+    private Set<RequestMethod> hiddenRequestMethods = new HashSet<>();
 
-    private static Pattern buildPattern(String filterText) {
-        // Escape regex special chars except "*"
-        filterText = filterText.replaceAll("[\\\\.\\[\\]{}()+\\-?^$|]", "\\\\$0");
-        String regex = filterText.replace("*", ".*?");
-        return Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
-    }
+    // In fuzzy mode routes are matched by FuzzyMatcher and are sorted by
+    // match score.
+    private boolean fuzzyMatching = false;
+    @NotNull private FuzzyMatcher fuzzyMatcher = new FuzzyMatcher("");
 
     public RoutesFilter(@NotNull RouteTableModel tableModel) {
         this.tableModel = tableModel;
     }
 
+    /**
+     * Returns a copy of the filter which is not changed when this filter is
+     * changed, so routes can be matched against it in other thread.
+     *
+     * @return Filter copy.
+     */
+    RoutesFilter copy() {
+        RoutesFilter result = new RoutesFilter(tableModel);
+        result.filterText = filterText;
+        result.query = query;
+        result.filterMatcher = filterMatcher;
+        result.mountedRoutesVisible = mountedRoutesVisible;
+        result.enabledFacets = enabledFacets;
+        result.hiddenRequestMethods = new HashSet<>(hiddenRequestMethods);
+        result.fuzzyMatching = fuzzyMatching;
+        result.fuzzyMatcher = fuzzyMatcher;
+        result.generation = generation;
+
+        return result;
+    }
+
     public void setFilterText(String filterText) {
-        filterText = filterText.toLowerCase();
+        filterText = WildcardMatcher.toLowerCase(filterText);
         if (!this.filterText.equals(filterText)) {
             this.filterText = filterText;
-            filterPattern = buildPattern(filterText);
+
+            // Field clauses are matched separately, so only free text is
+            // matched against route fields.
+            query = new RouteQuery(filterText);
+            filterMatcher = new WildcardMatcher(query.getText());
+            fuzzyMatcher = new FuzzyMatcher(query.getText());
+            generation = lastGeneration.incrementAndGet();
             tableModel.filterChanged();
         }
     }
 
+    @NotNull
+    public String getFilterText() {
+        return filterText;
+    }
+
+    /**
+     * Returns number which is changed when filter text or matching mode is
+     * changed, so it can be used as a key of cached highlighting.
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    @NotNull
+    public RouteQuery getQuery() {
+        return query;
+    }
+
     public boolean isMountedRoutesVisible() {
         return mountedRoutesVisible;
     }
@@ -45,6 +109,76 @@ public class RoutesFilter {
         }
     }
 
+    public boolean isFacetEnabled(int facet) {
+        return (enabledFacets & facet) != 0;
+    }
+
+    /**
+     * Enables or disables facet which shows only routes of some kind.
+     *
+     * @param facet One of FACET_* constants.
+     * @param value True to enable the facet.
+     */
+    public void setFacetEnabled(int facet, boolean value) {
+        int facets = value ? enabledFacets | facet : enabledFacets & ~facet;
+        if (enabledFacets != facets) {
+            enabledFacets = facets;
+            tableModel.filterChanged();
+        }
+    }
+
+    public boolean isRequestMethodVisible(RequestMethod method) {
+        return !hiddenRequestMethods.contains(method);
+    }
+
+    public void setRequestMethodVisible(RequestMethod method, boolean value) {
+        boolean isChanged = value ? hiddenRequestMethods.remove(method) :
+                hiddenRequestMethods.add(method);
+
+        if (isChanged)
+            tableModel.filterChanged();
+    }
+
+    /**
+     * Returns true if any facet, request method or mounted routes toggle is
+     * changed from its default value.
+     */
+    boolean isFacetFilterActive() {
+        return !mountedRoutesVisible || enabledFacets != 0 ||
+                !hiddenRequestMethods.isEmpty();
+    }
+
+    /**
+     * Checks whether routes filtered by other filter have the same facets, so
+     * they can be narrowed by this filter.
+     */
+    boolean hasSameFacets(@NotNull RoutesFilter other) {
+        return mountedRoutesVisible == other.mountedRoutesVisible &&
+                enabledFacets == other.enabledFacets &&
+                hiddenRequestMethods.equals(other.hiddenRequestMethods);
+    }
+
+    public boolean isFuzzyMatching() {
+        return fuzzyMatching;
+    }
+
+    public void setFuzzyMatching(boolean value) {
+        if (fuzzyMatching != value) {
+            fuzzyMatching = value;
+            generation = lastGeneration.incrementAndGet();
+            tableModel.filterChanged();
+        }
+    }
+
+    /**
+     * Returns true if routes should be ranked by fuzzy match score.
+     *
+     * @return True if fuzzy mode is on and filter text is specified.
+     */
+    boolean isRankingActive() {
+        return fuzzyMatching && !fuzzyMatcher.isEmpty();
+    }
+
     /**
      * Returns true if any filter is set and should be applied.
      * Actually checks if filter values are set to defaults or not.
@@ -52,27 +186,93 @@ public class RoutesFilter {
      * @return True when any filter is active, false otherwise.
      */
     boolean isFilterActive() {
-        return !filterText.equals("") || !mountedRoutesVisible;
+        return !filterText.equals("") || isFacetFilterActive();
     }
 
     /**
-     * Checks whether specified route matches current filter.
+     * Checks whether specified route matches current filter. Facets are not
+     * checked, routes should be taken from the set which is found by
+     * RouteFacetIndex.
      *
      * @param route Route to be matched against current filter.
      * @return True if route matches filter, false otherwise.
      */
     boolean match(Route route) {
-        if (!mountedRoutesVisible && route.getParentEngine() != null)
-            return false;
+        return query.matchesClauses(route) && matchText(route);
+    }
+
+    /**
+     * Checks whether the route matches the filter except field clauses of
+     * the query, which can be checked by RouteFieldIndex.
+     *
+     * @param route Route to be matched.
+     * @return True if route matches free text of the filter.
+     */
+    boolean matchText(Route route) {
+        if (isRankingActive())
+            return getTextScore(route) != FuzzyMatcher.NO_MATCH;
+
+        return filterMatcher.matches(route.getLowerCasePath()) ||
+                filterMatcher.matches(route.getLowerCaseActionTitle()) ||
+                filterMatcher.matches(route.getLowerCaseRouteName());
+    }
+
+    /**
+     * Returns fuzzy match score of the route, which is the best score of its
+     * path, action and name. Field clauses of the query are not checked,
+     * routes should be taken from the set which is found by RouteFieldIndex.
+     *
+     * @param route Route to be scored.
+     * @return Match score or FuzzyMatcher.NO_MATCH if route doesn't match.
+     */
+    int getTextScore(Route route) {
+        return Math.max(fuzzyMatcher.score(route.getLowerCasePath()),
+                Math.max(fuzzyMatcher.score(route.getLowerCaseActionTitle()),
+                        fuzzyMatcher.score(route.getLowerCaseRouteName())));
+    }
+
+    /**
+     * Finds regions of the text which are matched by fuzzy filter.
+     *
+     * @param lowerCaseText Text converted by WildcardMatcher.toLowerCase.
+     * @return Start and end offsets of regions or null if the text doesn't
+     *         match.
+     */
+    @Nullable
+    public int[] findFuzzyMatchRegions(String lowerCaseText) {
+        return fuzzyMatcher.findRegions(lowerCaseText);
+    }
+
+    /**
+     * Finds a part of the text which matches filter text.
+     *
+     * @param lowerCaseText Text converted by WildcardMatcher.toLowerCase.
+     * @return Match offsets packed by WildcardMatcher or
+     *         WildcardMatcher.NO_MATCH.
+     */
+    public long findMatch(String lowerCaseText) {
+        return filterMatcher.find(lowerCaseText);
+    }
 
-        return filterPattern.matcher(route.getPath()).find() ||
-                filterPattern.matcher(route.getActionTitle()).find() ||
-                filterPattern.matcher(route.getRouteName()).find();
+    /**
+     * Finds all parts of the text which match filter text.
+     *
+     * @param lowerCaseText Text converted by WildcardMatcher.toLowerCase.
+     * @return Start and end offsets of regions or null if the text doesn't
+     *         match.
+     */
+    @Nullable
+    public int[] findMatchRegions(String lowerCaseText) {
+        return filterMatcher.findAll(lowerCaseText);
     }
 
     public String findMatchedString(String text) {
-        Matcher matcher = filterPattern.matcher(text);
-        return matcher.find() ? matcher.group() : "";
+        long match = findMatch(WildcardMatcher.toLowerCase(text));
+        if (match == WildcardMatcher.NO_MATCH)
+            return "";
+
+        return text.substring(WildcardMatcher.getMatchStart(match),
+                WildcardMatcher.getMatchEnd(match));
     }
 
 }
@@ -0,0 +1,232 @@
+package net.bitpot.railways.models;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Case-insensitive matcher of filter text with "*" wildcards. Filter text is
+ * split by wildcards into literal segments, which are searched one after
+ * another in lower-cased text, so matching doesn't require regular
+ * expressions. Matcher is immutable and can be used from several threads.
+ *
+ * Match is the same as of the regular expression where "*" is replaced by
+ * ".*?": it starts at the first segment (or at the beginning of the text if
+ * filter starts with a wildcard) and ends after the last segment.
+ */
+public class WildcardMatcher {
+
+    public static final long NO_MATCH = -1;
+
+    private final String[] segments;
+    private final boolean startsWithWildcard;
+    private final boolean endsWithWildcard;
+
+
+    /**
+     * Compiles filter text.
+     *
+     * @param filterText Filter text, ex. "users*edit"
+     */
+    public WildcardMatcher(@NotNull String filterText) {
+        filterText = toLowerCase(filterText);
+
+        List<String> parts = new ArrayList<>();
+        for (String part : filterText.split("\\*"))
+            if (!part.isEmpty())
+                parts.add(part);
+
+        segments = parts.toArray(new String[0]);
+        startsWithWildcard = filterText.startsWith("*");
+        endsWithWildcard = filterText.endsWith("*");
+    }
+
+
+    /**
+     * Checks whether the text contains a match.
+     *
+     * @param lowerCaseText Text converted by toLowerCase method.
+     * @return True if text matches.
+     */
+    public boolean matches(@NotNull String lowerCaseText) {
+        return find(lowerCaseText) != NO_MATCH;
+    }
+
+
+    /**
+     * Checks whether the whole text matches, ex. "admin/*" matches
+     * "admin/users", but doesn't match "super_admin/users".
+     *
+     * @param lowerCaseText Text converted by toLowerCase method.
+     * @return True if text matches from the beginning to the end.
+     */
+    public boolean matchesEntirely(@NotNull String lowerCaseText) {
+        if (!startsWithWildcard && !endsWithWildcard && segments.length <= 1)
+            return lowerCaseText.equals(segments.length == 0 ? "" : segments[0]);
+
+        int from = 0;
+        int to = lowerCaseText.length();
+        int first = 0;
+        int last = segments.length;
+
+        if (!startsWithWildcard) {
+            if (!lowerCaseText.startsWith(segments[0]))
+                return false;
+
+            from = segments[0].length();
+            first++;
+        }
+
+        if (!endsWithWildcard && last > first) {
+            String segment = segments[last - 1];
+            if (!lowerCaseText.endsWith(segment) || to - segment.length() < from)
+                return false;
+
+            to -= segment.length();
+            last--;
+        }
+
+        for (int i = first; i < last; i++) {
+            int pos = lowerCaseText.indexOf(segments[i], from);
+            if (pos < 0 || pos + segments[i].length() > to)
+                return false;
+
+            from = pos + segments[i].length();
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Returns the part of filter text before the first wildcard.
+     */
+    @NotNull
+    public String getPrefix() {
+        return startsWithWildcard || segments.length == 0 ? "" : segments[0];
+    }
+
+
+    /**
+     * Finds the first match in the text. Match offsets are returned packed
+     * into one value to avoid allocations, use getMatchStart and getMatchEnd
+     * methods to get them.
+     *
+     * @param lowerCaseText Text converted by toLowerCase method.
+     * @return Match offsets or NO_MATCH if text doesn't match.
+     */
+    public long find(@NotNull String lowerCaseText) {
+        return find(lowerCaseText, 0);
+    }
+
+
+    /**
+     * Finds the first match in the text which starts at the offset or after
+     * it.
+     *
+     * @param lowerCaseText Text converted by toLowerCase method.
+     * @param fromIndex Offset to start search from.
+     * @return Match offsets or NO_MATCH if text doesn't match.
+     */
+    public long find(@NotNull String lowerCaseText, int fromIndex) {
+        if (segments.length == 0)
+            return pack(fromIndex, fromIndex);
+
+        int start = lowerCaseText.indexOf(segments[0], fromIndex);
+        if (start < 0)
+            return NO_MATCH;
+
+        // The first occurrence of each segment gives the match with the
+        // shortest end, if it cannot be found, later occurrences won't help.
+        int end = start + segments[0].length();
+        for (int i = 1; i < segments.length; i++) {
+            int pos = lowerCaseText.indexOf(segments[i], end);
+            if (pos < 0)
+                return NO_MATCH;
+
+            end = pos + segments[i].length();
+        }
+
+        return pack(startsWithWildcard ? fromIndex : start, end);
+    }
+
+
+    /**
+     * Finds all matches in the text which don't overlap, every next match
+     * is searched after the end of the previous one.
+     *
+     * @param lowerCaseText Text converted by toLowerCase method.
+     * @return Start and end offsets of matches or null if text doesn't
+     *         match or matches are empty.
+     */
+    @Nullable
+    public int[] findAll(@NotNull String lowerCaseText) {
+        int[] result = null;
+        int count = 0;
+        long match;
+        int from = 0;
+
+        while (from < lowerCaseText.length() &&
+                (match = find(lowerCaseText, from)) != NO_MATCH) {
+            int start = getMatchStart(match);
+            int end = getMatchEnd(match);
+            if (start >= end)
+                break;
+
+            if (result == null)
+                result = new int[2];
+            else if (count == result.length)
+                result = Arrays.copyOf(result, count * 2);
+
+            result[count++] = start;
+            result[count++] = end;
+            from = end;
+        }
+
+        return result == null || count == result.length ? result :
+                Arrays.copyOf(result, count);
+    }
+
+
+    public static int getMatchStart(long match) {
+        return (int) (match >>> 32);
+    }
+
+
+    public static int getMatchEnd(long match) {
+        return (int) match;
+    }
+
+
+    private static long pack(int start, int end) {
+        return ((long) start << 32) | end;
+    }
+
+
+    /**
+     * Converts text to lower case char by char, so offsets in converted text
+     * are the same as in original one. String.toLowerCase can change length
+     * of the string for some locales and characters.
+     *
+     * @param text Text to convert.
+     * @return Lower-cased text.
+     */
+    @NotNull
+    public static String toLowerCase(@NotNull String text) {
+        int i = 0;
+        while (i < text.length() && Character.toLowerCase(text.charAt(i)) == text.charAt(i))
+            i++;
+
+        if (i == text.length())
+            return text;
+
+        char[] chars = text.toCharArray();
+        for (; i < chars.length; i++)
+            chars[i] = Character.toLowerCase(chars[i]);
+
+        return new String(chars);
+    }
+}
@@ -21,6 +21,11 @@ public class EngineRoute extends Route {
     }
 
 
+    public String getEngineClass() {
+        return engineClass;
+    }
+
+
     @Override
     public String getQualifiedActionTitle() {
         return engineClass;
@@ -23,6 +23,17 @@ public class RedirectRoute extends Route {
     }
 
 
+    /**
+     * Returns redirect path.
+     *
+     * @return Redirect path or empty string if it's defined at runtime.
+     */
+    @NotNull
+    public String getRedirectPath() {
+        return redirectPath;
+    }
+
+
     /**
      * Returns displayable text for route action in short format. Short format
      * is used in routes table.
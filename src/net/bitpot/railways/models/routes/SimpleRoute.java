@@ -2,12 +2,12 @@ package net.bitpot.railways.models.routes;
 
 import com.intellij.openapi.module.Module;
 import net.bitpot.railways.gui.RailwaysIcons;
+import net.bitpot.railways.models.ControllersCache;
 import net.bitpot.railways.models.RailsActionInfo;
 import net.bitpot.railways.models.Route;
 import net.bitpot.railways.models.requestMethods.RequestMethod;
 import net.bitpot.railways.utils.RailwaysPsiUtils;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.plugins.ruby.rails.model.RailsApp;
 import org.jetbrains.plugins.ruby.ruby.lang.psi.controlStructures.classes.RClass;
 
 import javax.swing.*;
@@ -17,10 +17,15 @@ public class SimpleRoute extends Route {
 
     private final String controllerName;
     private final String actionName;
+    private final String actionTitle;
 
     @NotNull
     private final RailsActionInfo actionInfo = new RailsActionInfo();
 
+    // Qualified action title and controller class which it was built for.
+    private String qualifiedActionTitle = null;
+    private RClass qualifiedTitleClass = null;
+
 
     public SimpleRoute(Module myModule, RequestMethod requestMethod,
                        String routePath, String routeName,
@@ -29,18 +34,28 @@ public class SimpleRoute extends Route {
 
         this.controllerName = controllerName;
         this.actionName = actionName;
+
+        actionTitle = controllerName.isEmpty() ? actionName :
+                controllerName + "#" + actionName;
     }
 
 
-    @Override
-    public String getActionTitle() {
-        if (!controllerName.isEmpty())
-            return String.format("%s#%s", controllerName, actionName);
+    public String getControllerName() {
+        return controllerName;
+    }
+
 
+    public String getActionName() {
         return actionName;
     }
 
 
+    @Override
+    public String getActionTitle() {
+        return actionTitle;
+    }
+
+
     @Override
     public String getQualifiedActionTitle() {
         // Return unqualified action title in case controller is specified as
@@ -48,15 +63,22 @@ public class SimpleRoute extends Route {
         if (controllerName.contains(":"))
             return getActionTitle();
 
-        String ctrlClassName;
-
+        // Title is built again only when controller class is resolved to
+        // other element.
         RClass ctrlClass = getActionInfo().getPsiClass();
-        if (ctrlClass != null)
-            ctrlClassName = ctrlClass.getQualifiedName();
-        else
-            ctrlClassName = RailwaysPsiUtils.getControllerClassNameByShortName(controllerName);
+        if (qualifiedActionTitle == null || ctrlClass != qualifiedTitleClass) {
+            String ctrlClassName;
+
+            if (ctrlClass != null)
+                ctrlClassName = ctrlClass.getQualifiedName();
+            else
+                ctrlClassName = RailwaysPsiUtils.getControllerClassNameByShortName(controllerName);
+
+            qualifiedActionTitle = ctrlClassName + "#" + actionName;
+            qualifiedTitleClass = ctrlClass;
+        }
 
-        return String.format("%s#%s", ctrlClassName, actionName);
+        return qualifiedActionTitle;
     }
 
 
@@ -69,7 +91,7 @@ public class SimpleRoute extends Route {
         else if (action.getPsiClass() != null)
             return RailwaysIcons.NODE_CONTROLLER;
 
-        return RailwaysIcons.NODE_UNKNOWN;
+        return action.getIndexedIcon();
     }
 
 
@@ -100,10 +122,10 @@ public class SimpleRoute extends Route {
     /**
      * Checks route action status and sets isActionDeclarationFound flag.
      *
-     * @param app Rails application which will be checked for controller action.
+     * @param controllers Controllers cache of the module.
      */
     @Override
-    public void updateActionStatus(RailsApp app) {
-        getActionInfo().update(app, controllerName, actionName);
+    public void updateActionStatus(ControllersCache controllers) {
+        getActionInfo().update(controllers, controllerName, actionName);
     }
 }
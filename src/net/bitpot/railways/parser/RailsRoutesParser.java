@@ -13,7 +13,13 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,16 +34,13 @@ public class RailsRoutesParser extends AbstractRoutesParser {
     public static final int ERROR_RAKE_TASK_NOT_FOUND = -2;
 
 
-    private static final Pattern ROUTE_LINE_PATTERN = Pattern.compile("^([a-z0-9_]+)?\\s*([A-Z|]+)?\\s+([/(]\\S*?)\\s+(.+?)$");
-    private static final Pattern ACTION_PATTERN = Pattern.compile(":action\\s*=>\\s*['\"](.+?)['\"]");
-    private static final Pattern CONTROLLER_PATTERN = Pattern.compile(":controller\\s*=>\\s*['\"](.+?)['\"]");
-    private static final Pattern REQUIREMENTS_PATTERN = Pattern.compile("(\\{.+?}\\s*$)");
-    private static final Pattern REDIRECT_PATTERN = Pattern.compile("redirect\\(\\d+(?:,\\s*(.+?))?\\).*");
-
     private static final String EXCEPTION_REGEX = "(?s)rake aborted!\\s*(.+?)Tasks:";
 
-    // Will capture both {:to => Test::Server} and Test::Server.
-    private static final Pattern RACK_CONTROLLER_PATTERN = Pattern.compile("([A-Z_][A-Za-z0-9_:/]+)");
+    // Minimal number of lines in output that is parsed using several threads.
+    private static final int PARALLEL_PARSING_MIN_LINES = 10000;
+
+    // Number of lines that are parsed by a single task when parsing in parallel.
+    private static final int PARALLEL_PARSING_CHUNK_SIZE = 2000;
 
     private static final Pattern HEADER_LINE = Pattern.compile("^\\s*Prefix\\s+Verb");
     private static final Pattern ENGINE_ROUTES_HEADER_LINE = Pattern.compile("^Routes for ([a-zA-Z0-9:_]+):");
@@ -51,7 +54,14 @@ public class RailsRoutesParser extends AbstractRoutesParser {
     private List<RailsEngine> mountedEngines;
     private RouteList routes;
 
-    private int insertPos;
+    // Routes are collected into sections: application routes and routes of
+    // mounted engines. Engine sections are spliced after the routes which
+    // mount engines when route list is assembled.
+    private List<Route> appRoutes;
+    private List<Route> currentSection;
+    private Map<Route, List<List<Route>>> engineSections;
+    private Map<String, Route> engineMountRoutes;
+    private boolean isAssembled;
 
     @Nullable
     private RailsEngine currentEngine;
@@ -78,7 +88,115 @@ public class RailsRoutesParser extends AbstractRoutesParser {
     public RouteList parse(String stdOut, @Nullable String stdErr) {
         parseErrors(stdErr);
 
-        return parse(new ByteArrayInputStream(stdOut.getBytes()));
+        List<String> lines = splitLines(stdOut);
+        if (lines.size() >= PARALLEL_PARSING_MIN_LINES)
+            return parseInParallel(lines);
+
+        clear();
+        for (String line : lines)
+            parseNextLine(line);
+
+        return getRoutes();
+    }
+
+
+    /**
+     * Parses routes using several threads. Lines are broken into route parts
+     * in parallel on the common ForkJoinPool. Engines of sections depend on
+     * the routes which mount them, so engine headers and mount routes are
+     * processed sequentially to find the engine of every line, then the rest
+     * of routes are created in parallel. Finally routes are added to sections
+     * in the original order. The result is the same as for line by line
+     * parsing.
+     *
+     * Lines are split into equal ranges instead of sections of engines, as
+     * application section is often the largest one and sections would load
+     * threads unevenly.
+     *
+     * @param lines Lines of 'rake routes' output.
+     * @return Parsed route list.
+     */
+    @NotNull
+    public RouteList parseInParallel(@NotNull List<String> lines) {
+        int count = lines.size();
+        RouteLineTokenizer.RouteLine[] routeLines = new RouteLineTokenizer.RouteLine[count];
+        String[] engineHeaders = new String[count];
+
+        ForkJoinPool.commonPool().invoke(new LinesTask(0, count, i -> {
+            String line = lines.get(i);
+            if (isHeaderLine(line))
+                return;
+
+            engineHeaders[i] = parseEngineHeader(line);
+            if (engineHeaders[i] == null)
+                routeLines[i] = RouteLineTokenizer.tokenize(line);
+        }));
+
+        // Engine sections are tracked by a separate parser, which receives
+        // only engine headers and mount routes.
+        RailsRoutesParser engineParser = new RailsRoutesParser(myModule);
+        RailsEngine[] lineEngines = new RailsEngine[count];
+        List<List<Route>> lineRoutes = new ArrayList<>(Collections.nCopies(count, null));
+
+        for (int i = 0; i < count; i++) {
+            if (engineHeaders[i] != null)
+                engineParser.beginEngineSection(engineHeaders[i]);
+            else if (routeLines[i] != null) {
+                if (routeLines[i].getEngineClass().isEmpty())
+                    lineEngines[i] = engineParser.currentEngine;
+                else {
+                    List<Route> mountRoutes = engineParser.createRoutes(routeLines[i],
+                            engineParser.currentEngine);
+                    engineParser.addParsedRoutes(mountRoutes);
+                    lineRoutes.set(i, mountRoutes);
+                }
+            }
+        }
+
+        ForkJoinPool.commonPool().invoke(new LinesTask(0, count, i -> {
+            if (routeLines[i] != null && lineRoutes.get(i) == null)
+                lineRoutes.set(i, createRoutes(routeLines[i], lineEngines[i]));
+        }));
+
+        clear();
+        for (int i = 0; i < count; i++) {
+            if (engineHeaders[i] != null)
+                beginEngineSection(engineHeaders[i]);
+            else if (lineRoutes.get(i) != null)
+                addParsedRoutes(lineRoutes.get(i));
+        }
+
+        return getRoutes();
+    }
+
+
+    /**
+     * Breaks text into lines in the same way as BufferedReader does: lines
+     * can be terminated by '\n', '\r' or "\r\n".
+     */
+    @NotNull
+    private static List<String> splitLines(@NotNull String text) {
+        List<String> lines = new ArrayList<>();
+        int length = text.length();
+        int lineStart = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c != '\n' && c != '\r')
+                continue;
+
+            lines.add(text.substring(lineStart, i));
+
+            if (c == '\r' && i + 1 < length && text.charAt(i + 1) == '\n')
+                i++;
+
+            lineStart = i + 1;
+        }
+
+        if (lineStart < length)
+            lines.add(text.substring(lineStart));
+
+        return lines;
     }
 
 
@@ -91,23 +209,12 @@ public class RailsRoutesParser extends AbstractRoutesParser {
             BufferedReader br = new BufferedReader(new InputStreamReader(ds));
 
             String strLine;
-            List<Route> routeList;
 
             //Read File Line By Line
-            while ((strLine = br.readLine()) != null) {
-                if (parseSpecialLine(strLine))
-                    continue;
-
-                routeList = parseLine(strLine);
-                if (!routeList.isEmpty()) {
-                    addRoutes(routeList);
-
-                    addRakeEngineIfPresent(routeList);
-                }
+            while ((strLine = br.readLine()) != null)
+                parseNextLine(strLine);
 
-            }
-
-            return routes;
+            return getRoutes();
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -116,19 +223,105 @@ public class RailsRoutesParser extends AbstractRoutesParser {
     }
 
 
-    private void addRoutes(List<Route> routeList) {
-        if (insertPos < 0)
-            routes.addAll(routeList);
-        else {
-            routes.addAll(insertPos, routeList);
-            insertPos += routeList.size();
+    /**
+     * Prepares parser to receive routes line by line using parseNextLine.
+     * All previously parsed routes are cleared.
+     */
+    public void beginParsing() {
+        clear();
+    }
+
+
+    /**
+     * Parses next line of 'rake routes' output and adds parsed routes to the
+     * route list. It allows to parse output while it's still being received.
+     *
+     * @param line Line from 'rake routes' output.
+     */
+    public void parseNextLine(String line) {
+        if (parseSpecialLine(line))
+            return;
+
+        addParsedRoutes(parseLine(line));
+    }
+
+
+    private void addParsedRoutes(List<Route> routeList) {
+        if (!routeList.isEmpty()) {
+            addRoutes(routeList);
+
+            addRakeEngineIfPresent(routeList);
         }
     }
 
 
+    /**
+     * Returns routes parsed so far. Routes of mounted engines follow the
+     * routes which mount them.
+     *
+     * @return Route list assembled by the parser.
+     */
+    @NotNull
+    public RouteList getRoutes() {
+        if (!isAssembled) {
+            routes = new RouteList();
+            appendSection(appRoutes);
+            isAssembled = true;
+        }
+
+        return routes;
+    }
+
+
+    /**
+     * Adds routes of the section to the route list. Each route is followed by
+     * sections of the engine it mounts. Sections, which were started later,
+     * are added first.
+     */
+    private void appendSection(List<Route> section) {
+        for (Route route : section) {
+            routes.add(route);
+
+            List<List<Route>> sections = engineSections.get(route);
+            if (sections != null)
+                for (int i = sections.size() - 1; i >= 0; i--)
+                    appendSection(sections.get(i));
+        }
+    }
+
+
+    /**
+     * Returns a copy of routes parsed so far. Unlike getRoutes, the returned
+     * list is not changed when parser receives new lines.
+     *
+     * @return Copy of parsed route list.
+     */
+    @NotNull
+    public RouteList getRoutesSnapshot() {
+        RouteList snapshot = new RouteList();
+        snapshot.addAll(getRoutes());
+
+        return snapshot;
+    }
+
+
+    private void addRoutes(List<Route> routeList) {
+        currentSection.addAll(routeList);
+        isAssembled = false;
+
+        for (Route route : routeList)
+            if (route instanceof EngineRoute)
+                engineMountRoutes.putIfAbsent(route.getQualifiedActionTitle(), route);
+    }
+
+
     private void clear() {
         routes = new RouteList();
-        insertPos = -1;
+        appRoutes = new ArrayList<>();
+        currentSection = appRoutes;
+        engineSections = new HashMap<>();
+        engineMountRoutes = new HashMap<>();
+        isAssembled = true;
         currentEngine = null;
         mountedEngines = new ArrayList<>();
     }
@@ -161,22 +354,12 @@ public class RailsRoutesParser extends AbstractRoutesParser {
      * @return true if line is a special line and was parsed successfully.
      */
     public boolean parseSpecialLine(String line) {
-        Matcher matcher = HEADER_LINE.matcher(line);
-        if (matcher.find())
+        if (isHeaderLine(line))
             return true;
 
-        matcher = ENGINE_ROUTES_HEADER_LINE.matcher(line);
-        if (matcher.find()) {
-            // All following routes belong to parsed route engine. We should
-            // find engine mount route and add them after it.
-            String engineName = getGroup(matcher, 1);
-            int index = findEngineRouteIndex(engineName);
-
-            if (index >= 0) {
-                insertPos = index + 1;
-                currentEngine = findEngine(engineName);
-            }
-
+        String engineName = parseEngineHeader(line);
+        if (engineName != null) {
+            beginEngineSection(engineName);
             return true;
         }
 
@@ -184,6 +367,41 @@ public class RailsRoutesParser extends AbstractRoutesParser {
     }
 
 
+    private static boolean isHeaderLine(String line) {
+        return HEADER_LINE.matcher(line).find();
+    }
+
+
+    /**
+     * Returns engine name from the line which starts routes section of
+     * the engine, ex. "Routes for RailsAdmin::Engine:".
+     *
+     * @param line Line from rake routes.
+     * @return Engine name or null if the line is not an engine header.
+     */
+    @Nullable
+    private static String parseEngineHeader(String line) {
+        Matcher matcher = ENGINE_ROUTES_HEADER_LINE.matcher(line);
+
+        return matcher.find() ? getGroup(matcher, 1) : null;
+    }
+
+
+    private void beginEngineSection(String engineName) {
+        // All following routes belong to parsed route engine. They will be
+        // added after the route which mounts the engine.
+        Route mountRoute = engineMountRoutes.get(engineName);
+
+        if (mountRoute != null) {
+            currentSection = new ArrayList<>();
+            engineSections.computeIfAbsent(mountRoute, k -> new ArrayList<>())
+                    .add(currentSection);
+
+            currentEngine = findEngine(engineName);
+        }
+    }
+
+
     @Nullable
     private RailsEngine findEngine(String engineName) {
         for(RailsEngine engine: mountedEngines)
@@ -194,15 +412,6 @@ public class RailsRoutesParser extends AbstractRoutesParser {
     }
 
 
-    private int findEngineRouteIndex(String engineName) {
-        for(int i = 0; i < routes.size(); i++)
-            if (routes.get(i).getQualifiedActionTitle().equals(engineName))
-                return i;
-
-        return -1;
-    }
-
-
     /**
      * Parses standard line from the output of rake 'routes' task. If this line contains route information,
      * new Route will be created and its fields set with appropriate parsed values.
@@ -212,67 +421,43 @@ public class RailsRoutesParser extends AbstractRoutesParser {
      */
     @NotNull
     public List<Route> parseLine(String line) {
-        List<Route> result = new ArrayList<>();
+        RouteLineTokenizer.RouteLine routeLine = RouteLineTokenizer.tokenize(line);
+        if (routeLine == null)
+            return new ArrayList<>();
 
-        // Ignore line with specific substrings - this is to avoid making overcomplicated regexes
-        if (line.contains("bin/bundle exec"))
-            return result;
-
-        // 1. Break line into 3 groups - [name]+[verb], path, conditions(action, controller)
-        Matcher groups = ROUTE_LINE_PATTERN.matcher(line.trim());
-
-        if (!groups.matches())
-            return result;
-
-        String routeController = "", routeAction = "";
-        String routeName = getGroup(groups, 1);
-        String routePath = getGroup(groups, 3);
-        String conditions = getGroup(groups, 4);
-        String[] actionInfo = conditions.split("#", 2);
-        String engineClass = "";
-        String redirectPath = null; // null - when it's not redirect
-
-        Matcher redirectMatcher = REDIRECT_PATTERN.matcher(conditions);
-        if (redirectMatcher.matches())
-            redirectPath = getGroup(redirectMatcher, 1);
-        // Process new format of output: 'controller#action'
-        else if (actionInfo.length == 2) {
-            routeController = actionInfo[0];
-
-            // In this case second part can contain additional requirements. Example:
-            // "index {:user_agent => /something/}"
-            routeAction = extractRouteRequirements(actionInfo[1]);
-        } else {
-
-            // Older format - all route requirements are specified in ruby hash:
-            // {:controller => 'users', :action => 'index'}
-            routeController = captureGroup(CONTROLLER_PATTERN, conditions);
-            routeAction = captureGroup(ACTION_PATTERN, conditions);
-
-            // Check reference to mounted engine.
-            if (routeController.isEmpty() && routeAction.isEmpty())
-                engineClass = captureGroup(RACK_CONTROLLER_PATTERN, conditions);
-
-            // Else just set action to provided text.
-            if (routeAction.isEmpty() && routeController.isEmpty() &&
-                    engineClass.isEmpty())
-                routeAction = conditions;
-        }
+        return createRoutes(routeLine, currentEngine);
+    }
 
 
-        // We can have several request methods here: "GET|POST"
-        String[] requestMethods = getGroup(groups, 2).split("\\|");
+    /**
+     * Creates routes from parsed route line. Several routes are created if
+     * the line contains several request methods.
+     *
+     * @param routeLine Route line parts.
+     * @param engine Engine which section contains the line, can be null.
+     * @return List of Route objects.
+     */
+    @NotNull
+    private List<Route> createRoutes(RouteLineTokenizer.RouteLine routeLine,
+                                     @Nullable RailsEngine engine) {
+        List<Route> result = new ArrayList<>();
+
+        String routeName = routeLine.getName();
+        String routePath = routeLine.getPath();
+        String engineClass = routeLine.getEngineClass();
+        String redirectPath = routeLine.getRedirectPath(); // null - when it's not redirect
 
         // Also fix path if this route belongs to some engine
-        if (currentEngine != null) {
+        if (engine != null) {
             if (routePath.equals("/"))
-                routePath = currentEngine.getRootPath();
+                routePath = engine.getRootPath();
             else
-                routePath = currentEngine.getRootPath() + routePath;
+                routePath = engine.getRootPath() + routePath;
         }
 
 
-        for (String requestMethodName : requestMethods) {
+        // We can have several request methods here: "GET|POST"
+        for (String requestMethodName : routeLine.getRequestMethods()) {
             Route route;
 
             if (!engineClass.isEmpty()) {
@@ -288,10 +473,11 @@ public class RailsRoutesParser extends AbstractRoutesParser {
             } else {
                 route = new SimpleRoute(myModule,
                         RequestMethods.get(requestMethodName), routePath,
-                        routeName, routeController, routeAction);
+                        routeName, routeLine.getController(),
+                        routeLine.getAction());
             }
 
-            route.setParentEngine(currentEngine);
+            route.setParentEngine(engine);
 
             result.add(route);
         }
@@ -300,43 +486,13 @@ public class RailsRoutesParser extends AbstractRoutesParser {
     }
 
 
-    /**
-     * Extracts requirements from second part and fills route information.
-     *
-     * @param actionWithReq Action with possible requirements part
-     * @return Route action name without requirements.
-     */
-    private String extractRouteRequirements(String actionWithReq) {
-        String requirements = captureGroup(REQUIREMENTS_PATTERN, actionWithReq);
-
-        // Return action without requirements
-        return actionWithReq.substring(0, actionWithReq.length() - requirements.length()).trim();
-    }
-
-
     @NotNull
-    private String getGroup(Matcher matcher, int groupNum) {
+    private static String getGroup(Matcher matcher, int groupNum) {
         String s = matcher.group(groupNum);
         return (s != null) ? s.trim() : "";
     }
 
 
-    /**
-     * Captures first group in subject
-     *
-     * @param pattern Regex pattern
-     * @param subject Subject string
-     * @return Captured group or an empty string.
-     */
-    private String captureGroup(Pattern pattern, String subject) {
-        Matcher m = pattern.matcher(subject);
-        if (m.find())
-            return m.group(1);
-
-        return "";
-    }
-
-
     public void parseErrors(@Nullable String stdErr) {
         clearErrors();
 
@@ -376,4 +532,37 @@ public class RailsRoutesParser extends AbstractRoutesParser {
     public List<RailsEngine> getMountedEngines() {
         return mountedEngines;
     }
+
+
+    /**
+     * Task that performs an action for every line index in the range. Range
+     * is split until it's small enough to be processed by a single thread.
+     */
+    private static class LinesTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+
+        LinesTask(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_PARSING_CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+
+                invokeAll(new LinesTask(from, middle, action),
+                        new LinesTask(middle, to, action));
+                return;
+            }
+
+            for (int i = from; i < to; i++)
+                action.accept(i);
+        }
+    }
 }
@@ -0,0 +1,389 @@
+package net.bitpot.railways.parser;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Breaks a line of 'rake routes' output into route parts: name, request
+ * methods, path, controller, action, mounted engine class and redirect path.
+ * The line is scanned character by character in a single pass, without
+ * regular expressions.
+ */
+public class RouteLineTokenizer {
+
+    private static final String[] NO_REQUEST_METHODS = new String[0];
+
+    private static final String CONTROLLER_KEY = ":controller";
+    private static final String ACTION_KEY = ":action";
+    private static final String REDIRECT_PREFIX = "redirect(";
+
+
+    /**
+     * Contains parts of a route line.
+     */
+    public static class RouteLine {
+        private final String name;
+        private final String[] requestMethods;
+        private final String path;
+        private final String controller;
+        private final String action;
+        private final String engineClass;
+        @Nullable private final String redirectPath;
+
+
+        RouteLine(String name, String[] requestMethods, String path,
+                  String controller, String action, String engineClass,
+                  @Nullable String redirectPath) {
+            this.name = name;
+            this.requestMethods = requestMethods;
+            this.path = path;
+            this.controller = controller;
+            this.action = action;
+            this.engineClass = engineClass;
+            this.redirectPath = redirectPath;
+        }
+
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns names of request methods. A line can contain several
+         * methods, ex. "GET|POST". Empty string is returned as method name
+         * when no method is specified.
+         *
+         * @return Array of request method names.
+         */
+        public String[] getRequestMethods() {
+            return requestMethods;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getController() {
+            return controller;
+        }
+
+        public String getAction() {
+            return action;
+        }
+
+        /**
+         * Returns class name of mounted engine or rack application.
+         *
+         * @return Engine class name or empty string if the route is not a
+         *         mount route.
+         */
+        public String getEngineClass() {
+            return engineClass;
+        }
+
+        /**
+         * Returns redirect path.
+         *
+         * @return Redirect path, empty string if redirect path is defined at
+         *         runtime or null if the route is not a redirect.
+         */
+        @Nullable
+        public String getRedirectPath() {
+            return redirectPath;
+        }
+    }
+
+
+    /**
+     * Breaks line from 'rake routes' output into route parts.
+     *
+     * @param line Line from 'rake routes' output
+     * @return RouteLine object or null if the line is not a route line.
+     */
+    @Nullable
+    public static RouteLine tokenize(@NotNull String line) {
+        // Ignore line with specific substrings
+        if (line.contains("bin/bundle exec"))
+            return null;
+
+        int end = line.length();
+        int pos = 0;
+
+        // Skip leading and trailing spaces
+        while (pos < end && line.charAt(pos) <= ' ')
+            pos++;
+
+        while (end > pos && line.charAt(end - 1) <= ' ')
+            end--;
+
+        // 1. Route name: [a-z0-9_]*
+        int nameStart = pos;
+        while (pos < end && isNameChar(line.charAt(pos)))
+            pos++;
+
+        int nameEnd = pos;
+
+        int spacesEnd = skipSpaces(line, pos, end);
+        boolean isSpaceBeforePath = spacesEnd > pos;
+        pos = spacesEnd;
+
+        // 2. Request methods: [A-Z|]*
+        int methodsStart = pos;
+        while (pos < end && isMethodChar(line.charAt(pos)))
+            pos++;
+
+        int methodsEnd = pos;
+        if (methodsEnd > methodsStart) {
+            spacesEnd = skipSpaces(line, pos, end);
+            isSpaceBeforePath = spacesEnd > pos;
+            pos = spacesEnd;
+        }
+
+        // 3. Path should be separated by spaces and start from '/' or '('
+        if (!isSpaceBeforePath || pos >= end)
+            return null;
+
+        char c = line.charAt(pos);
+        if (c != '/' && c != '(')
+            return null;
+
+        int pathStart = pos;
+        while (pos < end && !isSpace(line.charAt(pos)))
+            pos++;
+
+        int pathEnd = pos;
+
+        // 4. Conditions (action, controller, requirements etc.) take the rest
+        // of the line and are separated from path by spaces.
+        if (pos >= end || !isSpace(line.charAt(pos)))
+            return null;
+
+        while (pos < end && line.charAt(pos) <= ' ')
+            pos++;
+
+        String[] requestMethods = splitRequestMethods(line, methodsStart, methodsEnd);
+        if (requestMethods.length == 0)
+            return null;
+
+        String name = line.substring(nameStart, nameEnd);
+        String path = line.substring(pathStart, pathEnd);
+
+        return tokenizeConditions(line, pos, end, name, requestMethods, path);
+    }
+
+
+    @NotNull
+    private static RouteLine tokenizeConditions(String line, int start, int end,
+                                                String name, String[] requestMethods,
+                                                String path) {
+        String controller = "", action = "", engineClass = "";
+
+        String redirectPath = parseRedirect(line, start, end);
+        if (redirectPath != null)
+            return new RouteLine(name, requestMethods, path, controller,
+                    action, engineClass, redirectPath);
+
+        int hashPos = line.indexOf('#', start);
+        if (hashPos >= 0 && hashPos < end) {
+            // Format 'controller#action'. Action can be followed by
+            // additional requirements, ex. "index {:user_agent => /something/}"
+            controller = line.substring(start, hashPos);
+            action = parseActionWithRequirements(line, hashPos + 1, end);
+        } else {
+            // Older format - all route requirements are specified in ruby hash:
+            // {:controller => 'users', :action => 'index'}
+            controller = findHashValue(line, CONTROLLER_KEY, start, end);
+            action = findHashValue(line, ACTION_KEY, start, end);
+
+            // Check reference to mounted engine: {:to => Test::Server}
+            // or Test::Server.
+            if (controller.isEmpty() && action.isEmpty()) {
+                engineClass = findClassName(line, start, end);
+
+                // Else just set action to provided text.
+                if (engineClass.isEmpty())
+                    action = line.substring(start, end);
+            }
+        }
+
+        return new RouteLine(name, requestMethods, path, controller, action,
+                engineClass, null);
+    }
+
+
+    /**
+     * Parses redirect condition, ex. "redirect(301, /books)".
+     *
+     * @return Redirect path, empty string if path is not specified or null
+     *         when conditions don't contain redirect.
+     */
+    @Nullable
+    private static String parseRedirect(String line, int start, int end) {
+        if (!line.startsWith(REDIRECT_PREFIX, start))
+            return null;
+
+        int pos = start + REDIRECT_PREFIX.length();
+        int digitsStart = pos;
+        while (pos < end && line.charAt(pos) >= '0' && line.charAt(pos) <= '9')
+            pos++;
+
+        if (pos == digitsStart || pos >= end)
+            return null;
+
+        char c = line.charAt(pos);
+        if (c == ')')
+            return "";
+
+        if (c != ',')
+            return null;
+
+        int commaEnd = pos + 1;
+        int pathStart = skipSpaces(line, commaEnd, end);
+
+        // Path should contain at least one character and end with the first
+        // closing bracket.
+        int pathEnd = pathStart + 1 < end ? line.indexOf(')', pathStart + 1) : -1;
+        if (pathEnd >= 0 && pathEnd < end)
+            return line.substring(pathStart, pathEnd).trim();
+
+        if (pathStart > commaEnd && pathStart < end && line.charAt(pathStart) == ')')
+            return "";
+
+        return null;
+    }
+
+
+    /**
+     * Returns action name, cutting off requirements part at the end, ex.
+     * "show {:id=>/[A-Za-z]{3,}/}".
+     */
+    private static String parseActionWithRequirements(String line, int start, int end) {
+        int reqStart = line.indexOf('{', start);
+
+        if (reqStart >= 0 && reqStart + 2 <= end - 1 && line.charAt(end - 1) == '}')
+            end = reqStart;
+
+        return line.substring(start, end).trim();
+    }
+
+
+    /**
+     * Finds value of specified key in ruby hash, ex. :controller => "users".
+     *
+     * @return Found value or empty string.
+     */
+    private static String findHashValue(String line, String key, int start, int end) {
+        int keyPos = start;
+
+        while ((keyPos = line.indexOf(key, keyPos)) >= 0 && keyPos < end) {
+            int pos = skipSpaces(line, keyPos + key.length(), end);
+            keyPos++;
+
+            if (!line.startsWith("=>", pos))
+                continue;
+
+            pos = skipSpaces(line, pos + 2, end);
+            if (pos >= end || !isQuote(line.charAt(pos)))
+                continue;
+
+            int valueStart = pos + 1;
+
+            // Value contains at least one character
+            for (pos = valueStart + 1; pos < end; pos++)
+                if (isQuote(line.charAt(pos)))
+                    return line.substring(valueStart, pos);
+        }
+
+        return "";
+    }
+
+
+    /**
+     * Finds the first ruby class name, ex. "Test::Server".
+     */
+    private static String findClassName(String line, int start, int end) {
+        for (int pos = start; pos < end - 1; pos++) {
+            char c = line.charAt(pos);
+            if (!((c >= 'A' && c <= 'Z') || c == '_') ||
+                    !isClassNameChar(line.charAt(pos + 1)))
+                continue;
+
+            int nameEnd = pos + 2;
+            while (nameEnd < end && isClassNameChar(line.charAt(nameEnd)))
+                nameEnd++;
+
+            return line.substring(pos, nameEnd);
+        }
+
+        return "";
+    }
+
+
+    /**
+     * Splits request methods separated by '|' in the same way as
+     * String.split does - trailing empty items are removed.
+     */
+    private static String[] splitRequestMethods(String line, int start, int end) {
+        if (start == end)
+            return new String[] {""};
+
+        // Trailing separators produce empty items which should be skipped.
+        while (end > start && line.charAt(end - 1) == '|')
+            end--;
+
+        if (end == start)
+            return NO_REQUEST_METHODS;
+
+        int count = 1;
+        for (int i = start; i < end; i++)
+            if (line.charAt(i) == '|')
+                count++;
+
+        String[] result = new String[count];
+        int itemStart = start;
+        int index = 0;
+
+        for (int i = start; i <= end; i++)
+            if (i == end || line.charAt(i) == '|') {
+                result[index++] = line.substring(itemStart, i);
+                itemStart = i + 1;
+            }
+
+        return result;
+    }
+
+
+    private static int skipSpaces(String line, int pos, int end) {
+        while (pos < end && isSpace(line.charAt(pos)))
+            pos++;
+
+        return pos;
+    }
+
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' ||
+                c == '\f' || c == '\r';
+    }
+
+
+    private static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+
+    private static boolean isMethodChar(char c) {
+        return (c >= 'A' && c <= 'Z') || c == '|';
+    }
+
+
+    private static boolean isClassNameChar(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') ||
+                (c >= '0' && c <= '9') || c == '_' || c == ':' || c == '/';
+    }
+
+
+    private static boolean isQuote(char c) {
+        return c == '\'' || c == '"';
+    }
+}
@@ -0,0 +1,279 @@
+package net.bitpot.railways.parser;
+
+import com.intellij.openapi.module.Module;
+import net.bitpot.railways.models.RailsEngine;
+import net.bitpot.railways.models.RequestMethods;
+import net.bitpot.railways.models.Route;
+import net.bitpot.railways.models.RouteList;
+import net.bitpot.railways.models.routes.EngineRoute;
+import net.bitpot.railways.models.routes.RedirectRoute;
+import net.bitpot.railways.models.routes.SimpleRoute;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Writes and reads binary snapshots of parsed route lists, so routes can be
+ * restored without parsing 'rake routes' output again.
+ *
+ * Snapshot contains magic number, format version, string table, mounted
+ * engines and routes. All strings are stored in the string table only once
+ * and are referenced by their indexes.
+ */
+public class RouteListSerializer {
+
+    private static final int MAGIC = 0x52574159; // "RWAY"
+
+    /**
+     * Version of snapshot format. Should be increased every time the format
+     * is changed, snapshots with other versions are ignored.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final byte ROUTE = 0;
+    private static final byte SIMPLE_ROUTE = 1;
+    private static final byte ENGINE_ROUTE = 2;
+    private static final byte REDIRECT_ROUTE = 3;
+
+    private static final int NO_VALUE = -1;
+
+
+    /**
+     * Writes route list snapshot to the file.
+     *
+     * @param routes Route list to save.
+     * @param file File to write snapshot to.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(@NotNull RouteList routes, @NotNull File file) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        Map<RailsEngine, Integer> engines = new IdentityHashMap<>();
+
+        // Routes are written first, as string table and engine list are
+        // filled while routes are written.
+        ByteArrayOutputStream routesData = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(routesData);
+
+        out.writeInt(routes.size());
+        for (Route route : routes)
+            writeRoute(out, route, strings, engines);
+
+        ByteArrayOutputStream enginesData = new ByteArrayOutputStream();
+        DataOutputStream enginesOut = new DataOutputStream(enginesData);
+
+        enginesOut.writeInt(engines.size());
+        for (RailsEngine engine : sortByIndex(engines)) {
+            enginesOut.writeInt(indexOf(engine.getRubyClassName(), strings));
+            enginesOut.writeInt(indexOf(engine.getRootPath(), strings));
+            enginesOut.writeInt(indexOf(engine.getNamespace(), strings));
+        }
+
+        // Snapshot is written to a temporary file which then replaces the
+        // old one, so the old snapshot is never left partially overwritten.
+        File tempFile = new File(file.getPath() + ".tmp");
+
+        try (DataOutputStream fileOut = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            fileOut.writeInt(MAGIC);
+            fileOut.writeInt(FORMAT_VERSION);
+
+            fileOut.writeInt(strings.size());
+            for (String str : strings.keySet()) {
+                byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+                fileOut.writeInt(bytes.length);
+                fileOut.write(bytes);
+            }
+
+            enginesData.writeTo(fileOut);
+            routesData.writeTo(fileOut);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+
+        replaceFile(tempFile, file);
+    }
+
+
+    private static void replaceFile(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+
+    private static void writeRoute(DataOutputStream out, Route route,
+                                   Map<String, Integer> strings,
+                                   Map<RailsEngine, Integer> engines) throws IOException {
+        if (route instanceof SimpleRoute)
+            out.writeByte(SIMPLE_ROUTE);
+        else if (route instanceof EngineRoute)
+            out.writeByte(ENGINE_ROUTE);
+        else if (route instanceof RedirectRoute)
+            out.writeByte(REDIRECT_ROUTE);
+        else
+            out.writeByte(ROUTE);
+
+        out.writeInt(indexOf(route.getRequestMethod().getName(), strings));
+        out.writeInt(indexOf(route.getPath(), strings));
+        out.writeInt(indexOf(route.getLocalRouteName(), strings));
+
+        RailsEngine engine = route.getParentEngine();
+        if (engine == null)
+            out.writeInt(NO_VALUE);
+        else {
+            Integer engineIndex = engines.get(engine);
+            if (engineIndex == null) {
+                engineIndex = engines.size();
+                engines.put(engine, engineIndex);
+            }
+
+            out.writeInt(engineIndex);
+        }
+
+        if (route instanceof SimpleRoute) {
+            SimpleRoute simpleRoute = (SimpleRoute) route;
+            out.writeInt(indexOf(simpleRoute.getControllerName(), strings));
+            out.writeInt(indexOf(simpleRoute.getActionName(), strings));
+        } else if (route instanceof EngineRoute)
+            out.writeInt(indexOf(((EngineRoute) route).getEngineClass(), strings));
+        else if (route instanceof RedirectRoute)
+            out.writeInt(indexOf(((RedirectRoute) route).getRedirectPath(), strings));
+    }
+
+
+    private static int indexOf(@Nullable String str, Map<String, Integer> strings) {
+        if (str == null)
+            return NO_VALUE;
+
+        Integer index = strings.get(str);
+        if (index == null) {
+            index = strings.size();
+            strings.put(str, index);
+        }
+
+        return index;
+    }
+
+
+    private static List<RailsEngine> sortByIndex(Map<RailsEngine, Integer> engines) {
+        RailsEngine[] result = new RailsEngine[engines.size()];
+        for (Map.Entry<RailsEngine, Integer> entry : engines.entrySet())
+            result[entry.getValue()] = entry.getKey();
+
+        return Arrays.asList(result);
+    }
+
+
+    /**
+     * Reads route list snapshot from the file. The file is read into memory
+     * at once and is not kept open, so it can be overwritten by the next
+     * snapshot. Routes are read without any parsing of route text.
+     *
+     * @param file Snapshot file.
+     * @param module Module routes belong to.
+     * @return Route list or null if the file is not a snapshot or has
+     *         different format version.
+     * @throws IOException if the file cannot be read or snapshot is corrupted.
+     */
+    @Nullable
+    public static RouteList read(@NotNull File file, @Nullable Module module) throws IOException {
+        return read(ByteBuffer.wrap(Files.readAllBytes(file.toPath())), module);
+    }
+
+
+    @Nullable
+    private static RouteList read(ByteBuffer buffer, @Nullable Module module) throws IOException {
+        try {
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC ||
+                    buffer.getInt() != FORMAT_VERSION)
+                return null;
+
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            RailsEngine[] engines = new RailsEngine[buffer.getInt()];
+            for (int i = 0; i < engines.length; i++)
+                engines[i] = new RailsEngine(readString(buffer, strings),
+                        readString(buffer, strings), readString(buffer, strings));
+
+            RouteList routes = new RouteList();
+            int routesCount = buffer.getInt();
+            routes.ensureCapacity(routesCount);
+
+            for (int i = 0; i < routesCount; i++)
+                routes.add(readRoute(buffer, strings, engines, module));
+
+            return routes;
+        } catch (RuntimeException e) {
+            // Buffer underflow or invalid indexes.
+            throw new IOException("Routes snapshot is corrupted", e);
+        }
+    }
+
+
+    private static Route readRoute(ByteBuffer buffer, String[] strings,
+                                   RailsEngine[] engines, @Nullable Module module) throws IOException {
+        byte kind = buffer.get();
+
+        String requestMethod = readString(buffer, strings);
+        String path = readString(buffer, strings);
+        String name = readString(buffer, strings);
+
+        int engineIndex = buffer.getInt();
+
+        Route route;
+        switch (kind) {
+            case SIMPLE_ROUTE:
+                route = new SimpleRoute(module, RequestMethods.get(requestMethod),
+                        path, name, readString(buffer, strings),
+                        readString(buffer, strings));
+                break;
+
+            case ENGINE_ROUTE:
+                route = new EngineRoute(module, RequestMethods.get(requestMethod),
+                        path, name, readString(buffer, strings));
+                break;
+
+            case REDIRECT_ROUTE:
+                route = new RedirectRoute(module, RequestMethods.get(requestMethod),
+                        path, name, readString(buffer, strings));
+                break;
+
+            case ROUTE:
+                route = new Route(module, RequestMethods.get(requestMethod), path, name);
+                break;
+
+            default:
+                throw new IOException("Unknown route type: " + kind);
+        }
+
+        if (engineIndex != NO_VALUE)
+            route.setParentEngine(engines[engineIndex]);
+
+        return route;
+    }
+
+
+    @Nullable
+    private static String readString(ByteBuffer buffer, String[] strings) {
+        int index = buffer.getInt();
+
+        return index == NO_VALUE ? null : strings[index];
+    }
+}
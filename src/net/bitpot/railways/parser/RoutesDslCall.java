@@ -0,0 +1,109 @@
+package net.bitpot.railways.parser;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Method call of Rails routing DSL from routes.rb, ex.
+ * "resources :users, only: [:index] do ... end". Arguments and options are
+ * stored as source text, so they can be interpreted by RoutesDslMapper
+ * without PSI.
+ */
+public class RoutesDslCall {
+
+    private final String methodName;
+    private final List<String> arguments = new ArrayList<>();
+    private final Map<String, String> options = new LinkedHashMap<>();
+
+    @Nullable
+    private List<RoutesDslCall> blockCalls = null;
+
+
+    public RoutesDslCall(@NotNull String methodName) {
+        this.methodName = methodName;
+    }
+
+
+    @NotNull
+    public String getMethodName() {
+        return methodName;
+    }
+
+
+    /**
+     * Adds positional argument.
+     *
+     * @param text Source text of the argument, ex. ":users" or "'users#index'"
+     * @return This call.
+     */
+    public RoutesDslCall addArgument(@NotNull String text) {
+        arguments.add(text);
+        return this;
+    }
+
+
+    /**
+     * Adds hash argument.
+     *
+     * @param key Source text of the key, ex. "to:", ":to" or "'/about'"
+     * @param value Source text of the value, ex. "'pages#about'"
+     * @return This call.
+     */
+    public RoutesDslCall addOption(@NotNull String key, @NotNull String value) {
+        options.put(key, value);
+        return this;
+    }
+
+
+    /**
+     * Adds a call from the block which is passed to this call. Call is
+     * considered to have a block after the first call is added.
+     *
+     * @param call Call from the block.
+     * @return This call.
+     */
+    public RoutesDslCall addBlockCall(@NotNull RoutesDslCall call) {
+        setHasBlock();
+        blockCalls.add(call);
+
+        return this;
+    }
+
+
+    /**
+     * Marks that the call has a block, even if the block is empty.
+     */
+    public void setHasBlock() {
+        if (blockCalls == null)
+            blockCalls = new ArrayList<>();
+    }
+
+
+    @NotNull
+    public List<String> getArguments() {
+        return arguments;
+    }
+
+
+    @NotNull
+    public Map<String, String> getOptions() {
+        return options;
+    }
+
+
+    public boolean hasBlock() {
+        return blockCalls != null;
+    }
+
+
+    @NotNull
+    public List<RoutesDslCall> getBlockCalls() {
+        return blockCalls == null ? Collections.emptyList() : blockCalls;
+    }
+}
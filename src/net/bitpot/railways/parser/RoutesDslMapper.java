@@ -0,0 +1,741 @@
+package net.bitpot.railways.parser;
+
+import com.intellij.openapi.module.Module;
+import net.bitpot.railways.models.RequestMethods;
+import net.bitpot.railways.models.Route;
+import net.bitpot.railways.models.RouteList;
+import net.bitpot.railways.models.requestMethods.RequestMethod;
+import net.bitpot.railways.models.routes.EngineRoute;
+import net.bitpot.railways.models.routes.RedirectRoute;
+import net.bitpot.railways.models.routes.SimpleRoute;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Converts calls of Rails routing DSL into routes in the same way as Rails
+ * does, but without running the application. Only the most common DSL
+ * methods are supported: resources, resource, namespace, scope, controller,
+ * member, collection, HTTP verbs, match, root, mount and draw. The result
+ * is approximate and should be replaced by output of 'rake routes'.
+ */
+public class RoutesDslMapper {
+
+    private static final String FORMAT_SUFFIX = "(.:format)";
+
+    private static final Pattern SYMBOL = Pattern.compile("^:([\\w?!]+)$");
+    private static final Pattern QUOTED_SYMBOL = Pattern.compile("^:(['\"])(.*)\\1$");
+    private static final Pattern SINGLE_QUOTED_STRING = Pattern.compile("^'([^']*)'$");
+    private static final Pattern DOUBLE_QUOTED_STRING = Pattern.compile("^\"([^\"#]*)\"$");
+    private static final Pattern LABEL = Pattern.compile("^([\\w?!]+):$");
+    private static final Pattern STRING_IN_TEXT = Pattern.compile("(['\"])(.*?)\\1");
+
+    private static final Set<String> HTTP_VERBS = new HashSet<>(Arrays.asList(
+            "get", "post", "put", "patch", "delete"));
+
+    // Options of DSL methods which can't be confused with "path => target"
+    // hash argument.
+    private static final Set<String> KNOWN_OPTIONS = new HashSet<>(Arrays.asList(
+            "to", "as", "via", "on", "controller", "action", "path", "module",
+            "only", "except", "param", "format", "constraints", "defaults",
+            "at", "shallow", "anchor", "path_names"));
+
+    // Calls with blocks which don't change routes scope.
+    private static final Set<String> TRANSPARENT_BLOCK_CALLS = new HashSet<>(Arrays.asList(
+            "draw", "constraints", "defaults", "shallow"));
+
+    private static final String[] RESOURCES_ACTIONS = {
+            "index", "create", "new", "edit", "show", "update", "destroy" };
+
+    private static final String[] RESOURCE_ACTIONS = {
+            "create", "new", "edit", "show", "update", "destroy" };
+
+
+    @Nullable
+    private final Module module;
+
+    private RouteList routes = new RouteList();
+
+    // Rails assigns route name only to the first route with this name.
+    private final Set<String> usedNames = new HashSet<>();
+
+
+    /**
+     * Describes resource which routes are defined in the block of resource
+     * or resources method. Member and collection blocks are mapped using it.
+     */
+    private static class Resource {
+        String memberPath;
+        String collectionPath;
+        String memberName;
+        String collectionName;
+        String controller;
+    }
+
+
+    /**
+     * Current routes scope which is changed by namespace, scope and other
+     * methods with blocks.
+     */
+    private static class Scope implements Cloneable {
+        String path = "";
+        String name = "";
+        String module = "";
+
+        // Controller with module, which is used when it's not specified in
+        // route target.
+        @Nullable
+        String controller = null;
+
+        // Resource which block is being mapped.
+        @Nullable
+        Resource resource = null;
+
+        // Name of resource member or collection. Names of routes in member
+        // and collection blocks are prefixed with action name, ex.
+        // "preview_user".
+        @Nullable
+        String memberName = null;
+
+
+        Scope copy() {
+            try {
+                Scope scope = (Scope) clone();
+                scope.resource = null;
+                scope.memberName = null;
+
+                return scope;
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+
+    public RoutesDslMapper(@Nullable Module module) {
+        this.module = module;
+    }
+
+
+    /**
+     * Converts calls of routing DSL into route list.
+     *
+     * @param calls Calls from the block passed to routes.draw method.
+     * @return List of routes.
+     */
+    @NotNull
+    public RouteList map(@NotNull List<RoutesDslCall> calls) {
+        routes = new RouteList();
+        usedNames.clear();
+
+        mapCalls(calls, new Scope());
+
+        return routes;
+    }
+
+
+    private void mapCalls(List<RoutesDslCall> calls, Scope scope) {
+        for (RoutesDslCall call : calls)
+            mapCall(call, scope);
+    }
+
+
+    private void mapCall(RoutesDslCall call, Scope scope) {
+        String methodName = call.getMethodName();
+
+        switch (methodName) {
+            case "namespace":
+                mapNamespace(call, scope);
+                break;
+
+            case "scope":
+                mapScope(call, scope);
+                break;
+
+            case "controller":
+                mapControllerScope(call, scope);
+                break;
+
+            case "resources":
+                mapResources(call, scope, true);
+                break;
+
+            case "resource":
+                mapResources(call, scope, false);
+                break;
+
+            case "member":
+            case "collection":
+                mapMemberOrCollection(call, scope, methodName.equals("member"));
+                break;
+
+            case "match":
+                mapVerb(call, scope, getMatchRequestMethods(call));
+                break;
+
+            case "root":
+                mapRoot(call, scope);
+                break;
+
+            case "mount":
+                mapMount(call, scope);
+                break;
+
+            default:
+                if (HTTP_VERBS.contains(methodName))
+                    mapVerb(call, scope, Collections.singletonList(
+                            RequestMethods.get(methodName.toUpperCase())));
+                else if (TRANSPARENT_BLOCK_CALLS.contains(methodName))
+                    mapCalls(call.getBlockCalls(), scope);
+        }
+    }
+
+
+    private void mapNamespace(RoutesDslCall call, Scope scope) {
+        String name = getArgument(call, 0);
+        if (name == null)
+            return;
+
+        Scope nsScope = scope.copy();
+        nsScope.path = joinPath(scope.path, getOption(call, "path", name));
+        nsScope.name = joinName(scope.name, getOption(call, "as", name));
+        nsScope.module = joinModule(scope.module, getOption(call, "module", name));
+        nsScope.controller = null;
+
+        mapCalls(call.getBlockCalls(), nsScope);
+    }
+
+
+    private void mapScope(RoutesDslCall call, Scope scope) {
+        Scope newScope = scope.copy();
+
+        String path = getArgument(call, 0);
+        if (path == null)
+            path = getOption(call, "path", null);
+
+        if (path != null)
+            newScope.path = joinPath(scope.path, path);
+
+        String moduleName = getOption(call, "module", null);
+        if (moduleName != null)
+            newScope.module = joinModule(scope.module, moduleName);
+
+        String as = getOption(call, "as", null);
+        if (as != null)
+            newScope.name = joinName(scope.name, as);
+
+        String controller = getOption(call, "controller", null);
+        if (controller != null)
+            newScope.controller = joinModule(newScope.module, controller);
+
+        mapCalls(call.getBlockCalls(), newScope);
+    }
+
+
+    private void mapControllerScope(RoutesDslCall call, Scope scope) {
+        String controller = getArgument(call, 0);
+        if (controller == null)
+            return;
+
+        Scope newScope = scope.copy();
+        newScope.controller = joinModule(scope.module, controller);
+
+        mapCalls(call.getBlockCalls(), newScope);
+    }
+
+
+    private void mapResources(RoutesDslCall call, Scope scope, boolean isPlural) {
+        // Several resources can be declared by one call, ex. resources :users, :posts
+        for (String argument : call.getArguments()) {
+            String entity = literal(argument);
+            if (entity != null)
+                mapResource(call, scope, entity, isPlural);
+        }
+    }
+
+
+    private void mapResource(RoutesDslCall call, Scope scope, String entity,
+                             boolean isPlural) {
+        String nameBase = getOption(call, "as", entity);
+        String param = getOption(call, "param", "id");
+
+        String controller = getOption(call, "controller",
+                isPlural ? entity : pluralize(entity));
+        controller = joinModule(joinModule(scope.module,
+                getOption(call, "module", "")), controller);
+
+        Resource resource = new Resource();
+        resource.controller = controller;
+        resource.collectionPath = joinPath(scope.path, getOption(call, "path", entity));
+
+        Scope nestedScope = scope.copy();
+        nestedScope.controller = controller;
+        nestedScope.resource = resource;
+
+        if (isPlural) {
+            String singularName = singularize(nameBase);
+
+            resource.memberPath = resource.collectionPath + "/:" + param;
+            resource.collectionName = joinName(scope.name, nameBase);
+            resource.memberName = joinName(scope.name, singularName);
+
+            nestedScope.path = resource.collectionPath + "/:" + singularName + "_" + param;
+        } else {
+            resource.memberPath = resource.collectionPath;
+            resource.collectionName = joinName(scope.name, nameBase);
+            resource.memberName = resource.collectionName;
+
+            nestedScope.path = resource.memberPath;
+        }
+
+        nestedScope.name = resource.memberName;
+
+        // Routes from the block go before default resource routes.
+        mapCalls(call.getBlockCalls(), nestedScope);
+
+        Set<String> actions = new LinkedHashSet<>(Arrays.asList(
+                isPlural ? RESOURCES_ACTIONS : RESOURCE_ACTIONS));
+
+        String only = getRawOption(call, "only");
+        if (only != null)
+            actions.retainAll(literalList(only));
+
+        String except = getRawOption(call, "except");
+        if (except != null)
+            actions.removeAll(literalList(except));
+
+        for (String action : actions)
+            addResourceRoutes(resource, action, isPlural);
+    }
+
+
+    private void addResourceRoutes(Resource res, String action, boolean isPlural) {
+        switch (action) {
+            case "index":
+                addRoute(RequestMethods.GET, res.collectionPath, res.collectionName,
+                        res.controller, action);
+                break;
+
+            case "create":
+                addRoute(RequestMethods.POST, res.collectionPath,
+                        isPlural ? res.collectionName : res.memberName,
+                        res.controller, action);
+                break;
+
+            case "new":
+                addRoute(RequestMethods.GET, res.collectionPath + "/new",
+                        joinName("new", res.memberName), res.controller, action);
+                break;
+
+            case "edit":
+                addRoute(RequestMethods.GET, res.memberPath + "/edit",
+                        joinName("edit", res.memberName), res.controller, action);
+                break;
+
+            case "show":
+                addRoute(RequestMethods.GET, res.memberPath, res.memberName,
+                        res.controller, action);
+                break;
+
+            case "update":
+                addRoute(RequestMethods.PATCH, res.memberPath, res.memberName,
+                        res.controller, action);
+                addRoute(RequestMethods.PUT, res.memberPath, res.memberName,
+                        res.controller, action);
+                break;
+
+            case "destroy":
+                addRoute(RequestMethods.DELETE, res.memberPath, res.memberName,
+                        res.controller, action);
+                break;
+        }
+    }
+
+
+    private void mapMemberOrCollection(RoutesDslCall call, Scope scope, boolean isMember) {
+        Resource resource = scope.resource;
+        if (resource == null)
+            return;
+
+        Scope newScope = scope.copy();
+        newScope.path = isMember ? resource.memberPath : resource.collectionPath;
+        newScope.memberName = isMember ? resource.memberName : resource.collectionName;
+        newScope.controller = resource.controller;
+
+        mapCalls(call.getBlockCalls(), newScope);
+    }
+
+
+    private void mapVerb(RoutesDslCall call, Scope scope, List<RequestMethod> methods) {
+        String pathText = call.getArguments().isEmpty() ? null : call.getArguments().get(0);
+        String targetText = getRawOption(call, "to");
+
+        // Route can be specified by hash, ex. get '/about' => 'pages#about'
+        if (pathText == null)
+            for (Map.Entry<String, String> option : call.getOptions().entrySet())
+                if (!KNOWN_OPTIONS.contains(optionName(option.getKey()))) {
+                    pathText = option.getKey();
+                    targetText = option.getValue();
+                    break;
+                }
+
+        String path = pathText == null ? null : literal(pathText);
+        if (path == null)
+            return;
+
+        // Member or collection scope is the same as `on` option.
+        Scope routeScope = scope;
+        String on = getOption(call, "on", null);
+        if (on != null && scope.resource != null) {
+            routeScope = scope.copy();
+            routeScope.controller = scope.resource.controller;
+            if (on.equals("member")) {
+                routeScope.path = scope.resource.memberPath;
+                routeScope.memberName = scope.resource.memberName;
+            } else if (on.equals("collection")) {
+                routeScope.path = scope.resource.collectionPath;
+                routeScope.memberName = scope.resource.collectionName;
+            }
+        }
+
+        String routePath = joinPath(routeScope.path, path);
+        String routeName = getVerbRouteName(call, routeScope, path);
+
+        // Redirect routes, ex. get '/stories', to: redirect('/articles')
+        if (targetText != null && targetText.startsWith("redirect")) {
+            Matcher matcher = STRING_IN_TEXT.matcher(targetText);
+            String redirectPath = matcher.find() ? matcher.group(2) : "";
+
+            for (RequestMethod method : methods)
+                addRoute(new RedirectRoute(module, method, routePath + FORMAT_SUFFIX,
+                        useName(routeName), redirectPath));
+
+            return;
+        }
+
+        String controller = routeScope.controller;
+        String action = null;
+
+        String target = targetText == null ? null : literal(targetText);
+        if (target != null) {
+            int hashPos = target.indexOf('#');
+            if (hashPos >= 0) {
+                controller = joinModule(routeScope.module, target.substring(0, hashPos));
+                action = target.substring(hashPos + 1);
+            } else
+                action = target;
+        }
+
+        String controllerOption = getOption(call, "controller", null);
+        if (controllerOption != null)
+            controller = joinModule(routeScope.module, controllerOption);
+
+        action = getOption(call, "action", action);
+
+        // Without target Rails takes controller and action from path, ex.
+        // get 'photos/search' or get :preview in resource member block.
+        if (action == null) {
+            String[] segments = trimSlashes(path).split("/");
+            if (controller == null && segments.length == 2) {
+                controller = joinModule(routeScope.module, segments[0]);
+                action = segments[1];
+            } else
+                action = segments[segments.length - 1];
+        }
+
+        if (controller == null)
+            return;
+
+        for (RequestMethod method : methods)
+            addRoute(method, routePath, routeName, controller, action);
+    }
+
+
+    /**
+     * Returns name of route defined by HTTP verb. Name is taken from `as`
+     * option or generated from static route path.
+     */
+    @Nullable
+    private String getVerbRouteName(RoutesDslCall call, Scope scope, String path) {
+        String name = getOption(call, "as", null);
+
+        if (name == null) {
+            // Rails doesn't generate names for paths with dynamic segments.
+            if (!path.matches("[\\w/\\-.]*"))
+                return null;
+
+            name = trimSlashes(path).replaceAll("[/\\-.]", "_");
+        }
+
+        if (name.isEmpty())
+            return null;
+
+        if (scope.memberName != null)
+            return joinName(name, scope.memberName);
+
+        return joinName(scope.name, name);
+    }
+
+
+    private static List<RequestMethod> getMatchRequestMethods(RoutesDslCall call) {
+        String via = getRawOption(call, "via");
+        List<RequestMethod> methods = new ArrayList<>();
+
+        if (via != null)
+            for (String method : literalList(via))
+                if (!method.equals("all"))
+                    methods.add(RequestMethods.get(method.toUpperCase()));
+
+        if (methods.isEmpty())
+            methods.add(RequestMethods.ANY);
+
+        return methods;
+    }
+
+
+    private void mapRoot(RoutesDslCall call, Scope scope) {
+        String target = getArgument(call, 0);
+        if (target == null)
+            target = getOption(call, "to", null);
+
+        if (target == null || !target.contains("#"))
+            return;
+
+        int hashPos = target.indexOf('#');
+        String controller = joinModule(scope.module, target.substring(0, hashPos));
+        String action = target.substring(hashPos + 1);
+
+        String path = scope.path.isEmpty() ? "/" : scope.path + FORMAT_SUFFIX;
+        addRoute(new SimpleRoute(module, RequestMethods.GET, path,
+                useName(joinName(scope.name, getOption(call, "as", "root"))),
+                controller, action));
+    }
+
+
+    private void mapMount(RoutesDslCall call, Scope scope) {
+        String engineClass = call.getArguments().isEmpty() ? null :
+                call.getArguments().get(0).trim();
+        String path = getOption(call, "at", null);
+
+        // mount Blog::Engine => '/blog'
+        if (engineClass == null)
+            for (Map.Entry<String, String> option : call.getOptions().entrySet())
+                if (!KNOWN_OPTIONS.contains(optionName(option.getKey()))) {
+                    engineClass = option.getKey().trim();
+                    path = literal(option.getValue());
+                    break;
+                }
+
+        if (engineClass == null || path == null)
+            return;
+
+        String name = getOption(call, "as", getEngineRouteName(engineClass));
+
+        addRoute(new EngineRoute(module, RequestMethods.ANY,
+                joinPath(scope.path, path), useName(joinName(scope.name, name)),
+                engineClass));
+    }
+
+
+    /**
+     * Returns default route name of mounted engine, ex. "rails_admin" for
+     * RailsAdmin::Engine.
+     */
+    private static String getEngineRouteName(String engineClass) {
+        String name = engineClass.replaceAll("::Engine$", "");
+
+        return name.replace("::", "_")
+                .replaceAll("([A-Z]+)([A-Z][a-z])", "$1_$2")
+                .replaceAll("([a-z\\d])([A-Z])", "$1_$2")
+                .toLowerCase();
+    }
+
+
+    private void addRoute(RequestMethod method, String path, @Nullable String name,
+                          String controller, String action) {
+        addRoute(new SimpleRoute(module, method, path + FORMAT_SUFFIX,
+                useName(name), controller, action));
+    }
+
+
+    private void addRoute(Route route) {
+        routes.add(route);
+    }
+
+
+    /**
+     * Returns route name if it's not used yet, otherwise empty string.
+     */
+    private String useName(@Nullable String name) {
+        if (name == null || name.isEmpty() || !usedNames.add(name))
+            return "";
+
+        return name;
+    }
+
+
+    @Nullable
+    private static String getArgument(RoutesDslCall call, int index) {
+        List<String> arguments = call.getArguments();
+
+        return index < arguments.size() ? literal(arguments.get(index)) : null;
+    }
+
+
+    private static String getOption(RoutesDslCall call, String name,
+                                    @Nullable String defaultValue) {
+        String value = getRawOption(call, name);
+        if (value == null)
+            return defaultValue;
+
+        String literalValue = literal(value);
+        return literalValue == null ? defaultValue : literalValue;
+    }
+
+
+    @Nullable
+    private static String getRawOption(RoutesDslCall call, String name) {
+        for (Map.Entry<String, String> option : call.getOptions().entrySet())
+            if (optionName(option.getKey()).equals(name))
+                return option.getValue().trim();
+
+        return null;
+    }
+
+
+    /**
+     * Returns option name from hash key, ex. "to" for "to:", ":to" or "'to'".
+     */
+    private static String optionName(String key) {
+        String name = literal(key);
+
+        return name == null ? key.trim() : name;
+    }
+
+
+    /**
+     * Returns value of string or symbol literal.
+     *
+     * @param text Source text of literal, ex. ":users", "'users'" or "users:"
+     * @return Literal value or null if text is not a string or symbol literal.
+     */
+    @Nullable
+    static String literal(String text) {
+        text = text.trim();
+
+        for (Pattern pattern : new Pattern[] {SYMBOL, SINGLE_QUOTED_STRING,
+                DOUBLE_QUOTED_STRING, LABEL}) {
+            Matcher matcher = pattern.matcher(text);
+            if (matcher.matches())
+                return matcher.group(1);
+        }
+
+        Matcher matcher = QUOTED_SYMBOL.matcher(text);
+        if (matcher.matches())
+            return matcher.group(2);
+
+        return null;
+    }
+
+
+    /**
+     * Returns values of array literal, ex. "[:index, :show]" or "%i[index show]".
+     * Single literal is treated as an array with one item.
+     */
+    static List<String> literalList(String text) {
+        text = text.trim();
+        List<String> result = new ArrayList<>();
+
+        if (text.matches("^%[iIwW][\\[({<].*[\\])}>]$")) {
+            for (String item : text.substring(3, text.length() - 1).trim().split("\\s+"))
+                if (!item.isEmpty())
+                    result.add(item);
+
+            return result;
+        }
+
+        if (text.startsWith("[") && text.endsWith("]"))
+            text = text.substring(1, text.length() - 1);
+
+        for (String item : text.split(",")) {
+            String value = literal(item);
+            if (value != null)
+                result.add(value);
+        }
+
+        return result;
+    }
+
+
+    private static String joinPath(String prefix, String path) {
+        path = trimSlashes(path);
+
+        return path.isEmpty() ? prefix : prefix + "/" + path;
+    }
+
+
+    private static String joinName(String prefix, String name) {
+        if (prefix.isEmpty())
+            return name;
+
+        return name.isEmpty() ? prefix : prefix + "_" + name;
+    }
+
+
+    private static String joinModule(String module, String name) {
+        name = trimSlashes(name);
+
+        if (module.isEmpty())
+            return name;
+
+        return name.isEmpty() ? module : module + "/" + name;
+    }
+
+
+    private static String trimSlashes(String path) {
+        int start = 0, end = path.length();
+        while (start < end && path.charAt(start) == '/')
+            start++;
+
+        while (end > start && path.charAt(end - 1) == '/')
+            end--;
+
+        return path.substring(start, end);
+    }
+
+
+    /**
+     * Simplified version of ActiveSupport pluralize, which handles the most
+     * common English words.
+     */
+    static String pluralize(String word) {
+        if (word.matches(".*[^aeiou]y$"))
+            return word.substring(0, word.length() - 1) + "ies";
+
+        if (word.matches(".*(s|x|z|ch|sh)$"))
+            return word + "es";
+
+        return word + "s";
+    }
+
+
+    /**
+     * Simplified version of ActiveSupport singularize, which handles the most
+     * common English words.
+     */
+    static String singularize(String word) {
+        if (word.endsWith("ies") && word.length() > 3)
+            return word.substring(0, word.length() - 3) + "y";
+
+        if (word.matches(".*(ss|x|z|ch|sh)es$"))
+            return word.substring(0, word.length() - 2);
+
+        if (word.endsWith("s") && !word.endsWith("ss"))
+            return word.substring(0, word.length() - 1);
+
+        return word;
+    }
+}
@@ -0,0 +1,212 @@
+package net.bitpot.railways.parser;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import net.bitpot.railways.models.RouteList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.plugins.ruby.rails.model.RailsApp;
+import org.jetbrains.plugins.ruby.ruby.lang.psi.controlStructures.blocks.RCompoundStatement;
+import org.jetbrains.plugins.ruby.ruby.lang.psi.expressions.RAssoc;
+import org.jetbrains.plugins.ruby.ruby.lang.psi.iterators.RBlockCall;
+import org.jetbrains.plugins.ruby.ruby.lang.psi.iterators.RCodeBlock;
+import org.jetbrains.plugins.ruby.ruby.lang.psi.methodCall.RCall;
+
+import java.util.*;
+
+/**
+ * Extracts routes from PSI of routes.rb files without running Rails
+ * application. Calls of routing DSL are collected from PSI and converted to
+ * routes by RoutesDslMapper, so the result is provisional and should be
+ * replaced by output of 'rake routes' when it's available.
+ *
+ * Methods of this class should be called inside read action.
+ */
+public class RoutesPsiExtractor {
+
+    private static final String DRAW_METHOD = "draw";
+
+    private final PsiManager psiManager;
+
+    // Files which are already loaded by draw method, to avoid infinite
+    // recursion.
+    private final Set<VirtualFile> drawnFiles = new HashSet<>();
+
+
+    private RoutesPsiExtractor(PsiManager psiManager) {
+        this.psiManager = psiManager;
+    }
+
+
+    /**
+     * Extracts routes from config/routes.rb of the application.
+     *
+     * @param app Rails application.
+     * @return Provisional route list, empty if routes file cannot be found.
+     */
+    @NotNull
+    public static RouteList extractRoutes(@NotNull RailsApp app) {
+        VirtualFile routesFile = findMainRoutesFile(app);
+        if (routesFile == null)
+            return new RouteList();
+
+        RoutesPsiExtractor extractor = new RoutesPsiExtractor(
+                PsiManager.getInstance(app.getProject()));
+
+        List<RoutesDslCall> calls = extractor.collectDrawBlockCalls(routesFile);
+
+        return new RoutesDslMapper(app.getModule()).map(calls);
+    }
+
+
+    @Nullable
+    private static VirtualFile findMainRoutesFile(RailsApp app) {
+        return app.getRoutesFiles().allFiles()
+                .filter(file -> file.getName().equals("routes.rb") &&
+                        file.getParent() != null &&
+                        file.getParent().getName().equals("config"))
+                .findFirst()
+                .orElse(null);
+    }
+
+
+    /**
+     * Returns calls from the block of Rails.application.routes.draw method.
+     */
+    private List<RoutesDslCall> collectDrawBlockCalls(VirtualFile routesFile) {
+        List<RoutesDslCall> result = new ArrayList<>();
+
+        PsiFile psiFile = psiManager.findFile(routesFile);
+        if (psiFile == null)
+            return result;
+
+        drawnFiles.add(routesFile);
+
+        for (RBlockCall blockCall : PsiTreeUtil.findChildrenOfType(psiFile, RBlockCall.class))
+            if (DRAW_METHOD.equals(getMethodName(blockCall.getCall()))) {
+                collectCalls(blockCall.getBlock(), result, routesFile);
+                break;
+            }
+
+        return result;
+    }
+
+
+    /**
+     * Collects calls from statements of the element. Nested compound
+     * statements are processed too, other statements are skipped.
+     */
+    private void collectCalls(@Nullable PsiElement element, List<RoutesDslCall> result,
+                              VirtualFile routesFile) {
+        if (element == null)
+            return;
+
+        for (PsiElement child = element.getFirstChild(); child != null;
+             child = child.getNextSibling()) {
+            if (child instanceof RBlockCall)
+                result.add(createBlockCall((RBlockCall) child, routesFile));
+            else if (child instanceof RCall)
+                result.add(createCall((RCall) child, routesFile));
+            else if (child instanceof RCompoundStatement || child instanceof RCodeBlock)
+                collectCalls(child, result, routesFile);
+        }
+    }
+
+
+    private RoutesDslCall createBlockCall(RBlockCall blockCall, VirtualFile routesFile) {
+        PsiElement call = blockCall.getCall();
+
+        RoutesDslCall result = call instanceof RCall ?
+                createCall((RCall) call, routesFile) :
+                new RoutesDslCall(getMethodName(call));
+
+        result.setHasBlock();
+
+        List<RoutesDslCall> blockCalls = new ArrayList<>();
+        collectCalls(blockCall.getBlock(), blockCalls, routesFile);
+
+        for (RoutesDslCall blockItem : blockCalls)
+            result.addBlockCall(blockItem);
+
+        return result;
+    }
+
+
+    private RoutesDslCall createCall(RCall call, VirtualFile routesFile) {
+        RoutesDslCall result = new RoutesDslCall(getMethodName(call));
+
+        for (PsiElement argument : call.getArguments()) {
+            if (argument instanceof RAssoc) {
+                addOption(result, (RAssoc) argument);
+                continue;
+            }
+
+            // Hash arguments can be wrapped into a list or hash literal.
+            List<RAssoc> assocs = PsiTreeUtil.getChildrenOfTypeAsList(argument, RAssoc.class);
+            if (!assocs.isEmpty() && !argument.getText().startsWith("["))
+                for (RAssoc assoc : assocs)
+                    addOption(result, assoc);
+            else
+                result.addArgument(argument.getText());
+        }
+
+        // Routes from config/routes/*.rb are added by draw method.
+        if (DRAW_METHOD.equals(result.getMethodName()) && !result.getArguments().isEmpty())
+            addDrawnCalls(result, routesFile);
+
+        return result;
+    }
+
+
+    private static void addOption(RoutesDslCall call, RAssoc assoc) {
+        if (assoc.getKey() != null && assoc.getValue() != null)
+            call.addOption(assoc.getKey().getText(), assoc.getValue().getText());
+    }
+
+
+    /**
+     * Adds calls from routes file loaded by draw method, ex. "draw :admin"
+     * loads config/routes/admin.rb.
+     */
+    private void addDrawnCalls(RoutesDslCall drawCall, VirtualFile routesFile) {
+        String name = RoutesDslMapper.literal(drawCall.getArguments().get(0));
+        VirtualFile configDir = routesFile.getParent();
+        if (name == null || configDir == null)
+            return;
+
+        // Drawn files can also call draw, they are searched from config dir.
+        if (configDir.getName().equals("routes") && configDir.getParent() != null)
+            configDir = configDir.getParent();
+
+        VirtualFile drawnFile = configDir.findFileByRelativePath("routes/" + name + ".rb");
+        if (drawnFile == null || !drawnFiles.add(drawnFile))
+            return;
+
+        PsiFile psiFile = psiManager.findFile(drawnFile);
+        List<RoutesDslCall> calls = new ArrayList<>();
+        collectCalls(psiFile, calls, drawnFile);
+
+        drawCall.setHasBlock();
+        for (RoutesDslCall call : calls)
+            drawCall.addBlockCall(call);
+    }
+
+
+    @NotNull
+    private static String getMethodName(@Nullable PsiElement call) {
+        if (call instanceof RCall)
+            return ((RCall) call).getCommand();
+
+        // Calls without arguments, ex. "member do ... end" or
+        // "Rails.application.routes.draw do ... end", can be parsed as
+        // identifiers or references.
+        if (call == null)
+            return "";
+
+        String text = call.getText();
+        return text.substring(text.lastIndexOf('.') + 1).trim();
+    }
+}
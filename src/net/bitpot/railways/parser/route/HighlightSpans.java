@@ -0,0 +1,105 @@
+package net.bitpot.railways.parser.route;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parts of text chunks which are highlighted or not. Spans are stored as
+ * offsets in chunk texts in a single int buffer, so text can be highlighted
+ * without creating new chunks and the buffer can be reused.
+ */
+public class HighlightSpans {
+
+    // Every span is stored as chunk index, start and end offsets in chunk
+    // text and highlighting flag.
+    private static final int SPAN_SIZE = 4;
+
+    private int[] data;
+    private int count = 0;
+
+
+    public HighlightSpans() {
+        this(8);
+    }
+
+
+    public HighlightSpans(int capacity) {
+        data = new int[Math.max(capacity, 1) * SPAN_SIZE];
+    }
+
+
+    public void clear() {
+        count = 0;
+    }
+
+
+    void add(int chunkIndex, int startOffset, int endOffset, boolean isHighlighted) {
+        if ((count + 1) * SPAN_SIZE > data.length)
+            data = Arrays.copyOf(data, data.length * 2);
+
+        int pos = count * SPAN_SIZE;
+        data[pos] = chunkIndex;
+        data[pos + 1] = startOffset;
+        data[pos + 2] = endOffset;
+        data[pos + 3] = isHighlighted ? 1 : 0;
+        count++;
+    }
+
+
+    public int getSpanCount() {
+        return count;
+    }
+
+
+    public int getChunkIndex(int span) {
+        return data[span * SPAN_SIZE];
+    }
+
+
+    public int getStartOffset(int span) {
+        return data[span * SPAN_SIZE + 1];
+    }
+
+
+    public int getEndOffset(int span) {
+        return data[span * SPAN_SIZE + 2];
+    }
+
+
+    public boolean isHighlighted(int span) {
+        return data[span * SPAN_SIZE + 3] != 0;
+    }
+
+
+    /**
+     * Returns text of the span. Text of the whole chunk is returned as is,
+     * without copying.
+     *
+     * @param chunks Chunks which spans were found for.
+     * @param span Span index.
+     * @return Span text.
+     */
+    @NotNull
+    public String getText(@NotNull List<TextChunk> chunks, int span) {
+        String text = chunks.get(getChunkIndex(span)).getText();
+        int start = getStartOffset(span);
+        int end = getEndOffset(span);
+
+        return start == 0 && end == text.length() ? text : text.substring(start, end);
+    }
+
+
+    /**
+     * Returns a copy of spans which takes as little memory as possible.
+     */
+    @NotNull
+    public HighlightSpans copy() {
+        HighlightSpans result = new HighlightSpans(count);
+        System.arraycopy(data, 0, result.data, 0, count * SPAN_SIZE);
+        result.count = count;
+
+        return result;
+    }
+}
@@ -16,14 +16,14 @@ public class RouteActionChunk extends TextChunk {
     }
 
     @Override
-    public SimpleTextAttributes getTextAttrs() {
+    public SimpleTextAttributes getTextAttrs(boolean isHighlighted) {
         SimpleTextAttributes textAttrs;
 
         if (getType() == RouteActionChunk.ACTION)
-            textAttrs = isHighlighted() ?
+            textAttrs = isHighlighted ?
                     RailwaysColors.METHOD_HL_ATTR : RailwaysColors.METHOD_ATTR;
         else
-            textAttrs = isHighlighted() ?
+            textAttrs = isHighlighted ?
                 RailwaysColors.REGULAR_HL_ATTR : SimpleTextAttributes.REGULAR_ATTRIBUTES;
 
         return textAttrs;
@@ -16,18 +16,18 @@ public class RoutePathChunk extends TextChunk {
     }
 
     @Override
-    public SimpleTextAttributes getTextAttrs() {
+    public SimpleTextAttributes getTextAttrs(boolean isHighlighted) {
         switch(getType()) {
             case RoutePathChunk.PARAMETER:
-                return isHighlighted() ? RailwaysColors.PARAM_TOKEN_HL_ATTR :
+                return isHighlighted ? RailwaysColors.PARAM_TOKEN_HL_ATTR :
                         RailwaysColors.PARAM_TOKEN_ATTR;
 
             case RoutePathChunk.OPTIONAL:
-                return isHighlighted() ? RailwaysColors.OPTIONAL_TOKEN_HL_ATTR :
+                return isHighlighted ? RailwaysColors.OPTIONAL_TOKEN_HL_ATTR :
                         RailwaysColors.OPTIONAL_TOKEN_ATTR;
 
             default:
-                return isHighlighted() ? RailwaysColors.REGULAR_HL_ATTR :
+                return isHighlighted ? RailwaysColors.REGULAR_HL_ATTR :
                         SimpleTextAttributes.REGULAR_ATTRIBUTES;
         }
     }
@@ -45,7 +45,19 @@ public abstract class TextChunk {
         this.isHighlighted = isHighlighted;
     }
 
-    public abstract SimpleTextAttributes getTextAttrs();
+    public SimpleTextAttributes getTextAttrs() {
+        return getTextAttrs(isHighlighted);
+    }
+
+
+    /**
+     * Returns attributes of chunk text, which depend on chunk type.
+     *
+     * @param isHighlighted Whether attributes of highlighted text should be
+     *                      returned.
+     * @return Text attributes.
+     */
+    public abstract SimpleTextAttributes getTextAttrs(boolean isHighlighted);
 
 
 }
@@ -4,6 +4,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -34,6 +35,93 @@ public abstract class TextChunkHighlighter {
     }
 
 
+    /**
+     * Highlights the region of text which chunks are made of.
+     *
+     * @param textChunks Text chunks.
+     * @param startOffset Start offset of highlighted region.
+     * @param endOffset End offset of highlighted region.
+     * @return New chunk list or passed one if the region is empty.
+     */
+    public List<TextChunk> highlight(List<TextChunk> textChunks,
+                                     int startOffset, int endOffset) {
+        if (startOffset >= endOffset)
+            return textChunks;
+
+        return highlightRegions(textChunks,
+                Collections.singletonList(new TextRegion(startOffset, endOffset)));
+    }
+
+
+    /**
+     * Highlights several regions of text which chunks are made of.
+     *
+     * @param textChunks Text chunks.
+     * @param regionOffsets Start and end offsets of sorted regions.
+     * @return New chunk list.
+     */
+    public List<TextChunk> highlight(List<TextChunk> textChunks, int[] regionOffsets) {
+        List<TextRegion> regions = new ArrayList<>(regionOffsets.length / 2);
+        for (int i = 0; i + 1 < regionOffsets.length; i += 2)
+            regions.add(new TextRegion(regionOffsets[i], regionOffsets[i + 1]));
+
+        return highlightRegions(textChunks, regions);
+    }
+
+
+    /**
+     * Splits chunks into spans which are highlighted or not, without
+     * creating new chunks.
+     *
+     * @param textChunks Text chunks.
+     * @param regionOffsets Start and end offsets of sorted regions.
+     * @param regionsLength Number of used values in regionOffsets.
+     * @param spans Buffer which receives spans, it's cleared first.
+     */
+    public static void findSpans(List<TextChunk> textChunks, int[] regionOffsets,
+                                 int regionsLength, HighlightSpans spans) {
+        spans.clear();
+        int r = 0;
+
+        for (int i = 0; i < textChunks.size(); i++) {
+            TextChunk chunk = textChunks.get(i);
+            int begin = chunk.getBeginOffset();
+            int end = chunk.getEndOffset();
+            int pos = begin;
+
+            while (pos < end) {
+                // Skip regions which end before current position and empty ones.
+                while (r + 1 < regionsLength && (regionOffsets[r + 1] <= pos ||
+                        regionOffsets[r] >= regionOffsets[r + 1]))
+                    r += 2;
+
+                if (r + 1 >= regionsLength || regionOffsets[r] >= end) {
+                    spans.add(i, pos - begin, end - begin, false);
+                    break;
+                }
+
+                int highlightStart = Math.max(pos, regionOffsets[r]);
+                if (highlightStart > pos)
+                    spans.add(i, pos - begin, highlightStart - begin, false);
+
+                int highlightEnd = Math.min(end, regionOffsets[r + 1]);
+                spans.add(i, highlightStart - begin, highlightEnd - begin, true);
+                pos = highlightEnd;
+            }
+        }
+    }
+
+
+    private List<TextChunk> highlightRegions(List<TextChunk> textChunks,
+                                             List<TextRegion> regions) {
+        ArrayList<TextChunk> result = new ArrayList<>();
+        for(TextChunk chunk: textChunks)
+            highlightChunk(chunk, regions, result);
+
+        return result;
+    }
+
+
     /**
      * Finds all regions of provided string which contain provided substring.
      * Returns array of arrays. Each item is an array that contains begin and
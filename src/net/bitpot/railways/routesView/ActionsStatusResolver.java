@@ -0,0 +1,250 @@
+package net.bitpot.railways.routesView;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import net.bitpot.railways.index.ControllerActionsIndex;
+import net.bitpot.railways.models.ControllersCache;
+import net.bitpot.railways.models.RailsActionInfo;
+import net.bitpot.railways.models.Route;
+import net.bitpot.railways.models.RouteDependencyIndex;
+import net.bitpot.railways.models.RouteList;
+import net.bitpot.railways.models.routes.SimpleRoute;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.concurrency.CancellablePromise;
+import org.jetbrains.plugins.ruby.rails.model.RailsApp;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves actions of routes in background read actions, so the UI isn't
+ * blocked on large route lists. Routes are resolved in batches and results
+ * of every batch are published in EDT. Resolution is cancelled by write
+ * actions and restarted by the platform, and it's started from the
+ * beginning when resolution of another route list is requested.
+ *
+ * Files which controllers of resolved routes depend on are collected, so
+ * only affected routes can be resolved again when a file is changed.
+ */
+class ActionsStatusResolver {
+
+    // Number of routes which are resolved in one read action.
+    private static final int BATCH_SIZE = 100;
+
+    interface Listener {
+        /**
+         * Called in EDT when action status of the routes is updated.
+         */
+        void routesUpdated(@NotNull List<Route> routes);
+
+        /**
+         * Called in EDT when all routes are resolved.
+         */
+        void resolutionFinished();
+    }
+
+
+    @NotNull
+    private final Project project;
+
+    @NotNull
+    private final Disposable parentDisposable;
+
+    @Nullable
+    private CancellablePromise<?> currentBatch = null;
+
+    // Lookup of action status in the index, which is performed in dumb
+    // mode until routes can be resolved.
+    @Nullable
+    private CancellablePromise<?> indexLookup = null;
+
+    // Files which controllers of resolved routes depend on.
+    private final RouteDependencyIndex dependencies = new RouteDependencyIndex();
+
+
+    ActionsStatusResolver(@NotNull Project project, @NotNull Disposable parentDisposable) {
+        this.project = project;
+        this.parentDisposable = parentDisposable;
+    }
+
+
+    /**
+     * Returns files which controllers of resolved routes depend on. It's
+     * updated in EDT when routes are resolved.
+     */
+    @NotNull
+    RouteDependencyIndex getDependencies() {
+        return dependencies;
+    }
+
+
+    boolean isRunning() {
+        return currentBatch != null;
+    }
+
+
+    /**
+     * Starts resolution of route actions. Previous resolution is cancelled.
+     * Should be called in EDT.
+     *
+     * @param module Module with Rails application.
+     * @param routes Routes to resolve.
+     * @param listener Listener which is notified about resolved routes.
+     */
+    void start(@NotNull Module module, @NotNull RouteList routes,
+               @NotNull Listener listener) {
+        cancel();
+
+        // PSI cannot be used in dumb mode, but the index which is kept
+        // between IDE sessions can. Routes are resolved when indexing is
+        // finished.
+        if (DumbService.isDumb(project))
+            submitIndexLookup(module, routes, listener);
+
+        submitBatch(module, routes, 0, listener);
+    }
+
+
+    /**
+     * Cancels current resolution. Routes which are already resolved keep
+     * their new status.
+     */
+    void cancel() {
+        if (currentBatch != null) {
+            currentBatch.cancel();
+            currentBatch = null;
+        }
+
+        if (indexLookup != null) {
+            indexLookup.cancel();
+            indexLookup = null;
+        }
+    }
+
+
+    private void submitIndexLookup(@NotNull Module module, @NotNull RouteList routes,
+                                   @NotNull Listener listener) {
+        indexLookup = ReadAction
+                .nonBlocking(() -> ControllerActionsIndex.findActionsStatus(module, routes))
+                .expireWith(parentDisposable)
+                .expireWhen(module::isDisposed)
+                .finishOnUiThread(ModalityState.any(), statuses -> {
+                    indexLookup = null;
+
+                    // Routes can be already resolved if indexing is finished.
+                    ControllerActionsIndex.applyActionsStatus(routes, statuses);
+                    listener.routesUpdated(routes);
+                    listener.resolutionFinished();
+                })
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
+
+
+    private void submitBatch(@NotNull Module module, @NotNull RouteList routes,
+                             int start, @NotNull Listener listener) {
+        int end = Math.min(start + BATCH_SIZE, routes.size());
+
+        currentBatch = ReadAction
+                .nonBlocking(() -> resolveBatch(module, routes, start, end))
+                .inSmartMode(project)
+                .expireWith(parentDisposable)
+                .expireWhen(module::isDisposed)
+                .finishOnUiThread(ModalityState.any(), resolved -> {
+                    if (resolved == null) {
+                        currentBatch = null;
+                        return;
+                    }
+
+                    List<Route> batch = routes.subList(start, end);
+                    applyBatch(batch, resolved);
+                    resolved.controllerFiles.forEach(dependencies::setControllerFiles);
+                    listener.routesUpdated(batch);
+
+                    if (end < routes.size())
+                        submitBatch(module, routes, end, listener);
+                    else {
+                        currentBatch = null;
+                        listener.resolutionFinished();
+                    }
+                })
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
+
+
+    /**
+     * Resolves actions of routes in the range. Results are returned as new
+     * action infos, so routes which are shown in the table are changed only
+     * in EDT.
+     *
+     * @return Resolved batch or null if module isn't a Rails application
+     *         anymore.
+     */
+    @Nullable
+    private static ResolvedBatch resolveBatch(@NotNull Module module,
+                                              @NotNull RouteList routes,
+                                              int start, int end) {
+        if (RailsApp.fromModule(module) == null)
+            return null;
+
+        ControllersCache controllers = ControllersCache.getInstance(module);
+        ResolvedBatch result = new ResolvedBatch(end - start);
+
+        for (int i = start; i < end; i++) {
+            ProgressManager.checkCanceled();
+
+            Route route = routes.get(i);
+            if (route instanceof SimpleRoute) {
+                SimpleRoute simpleRoute = (SimpleRoute) route;
+                String controllerName = simpleRoute.getControllerName();
+
+                // Class and method of the route are kept if they're still
+                // valid, ex. when they're taken from previous routes.
+                RailsActionInfo info = new RailsActionInfo();
+                info.copyFrom(simpleRoute.getActionInfo());
+                info.update(controllers, controllerName, simpleRoute.getActionName());
+                result.actions[i - start] = info;
+
+                if (!controllerName.isEmpty() &&
+                        !result.controllerFiles.containsKey(controllerName))
+                    result.controllerFiles.put(controllerName,
+                            controllers.getController(controllerName).getFiles());
+            }
+        }
+
+        return result;
+    }
+
+
+    private static void applyBatch(@NotNull List<Route> batch,
+                                   @NotNull ResolvedBatch resolved) {
+        for (int i = 0; i < resolved.actions.length; i++)
+            if (resolved.actions[i] != null)
+                ((SimpleRoute) batch.get(i)).getActionInfo().copyFrom(resolved.actions[i]);
+    }
+
+
+    /**
+     * Results of batch resolution which are applied in EDT.
+     */
+    private static class ResolvedBatch {
+        // Resolved action infos by route positions in the batch.
+        final RailsActionInfo[] actions;
+
+        // Files which controllers of the batch routes depend on.
+        final Map<String, Set<VirtualFile>> controllerFiles = new HashMap<>();
+
+        ResolvedBatch(int size) {
+            actions = new RailsActionInfo[size];
+        }
+    }
+}
@@ -1,25 +1,41 @@
 package net.bitpot.railways.routesView;
 
+import com.intellij.execution.process.ProcessAdapter;
+import com.intellij.execution.process.ProcessEvent;
 import com.intellij.execution.process.ProcessOutput;
+import com.intellij.execution.process.ProcessOutputTypes;
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.components.PersistentStateComponent;
 import com.intellij.openapi.components.State;
 import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import net.bitpot.railways.models.RouteList;
+import net.bitpot.railways.models.RouteListDiff;
 import net.bitpot.railways.parser.RailsRoutesParser;
+import net.bitpot.railways.parser.RouteListSerializer;
+import net.bitpot.railways.parser.RoutesPsiExtractor;
 import net.bitpot.railways.utils.RailwaysUtils;
+import net.bitpot.railways.worker.RoutesWorker;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.plugins.ruby.rails.model.RailsApp;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.LinkedList;
+import java.util.Objects;
 
 /**
  * Class is responsible for receiving and storing the list of routes for
@@ -29,7 +45,9 @@ import java.util.LinkedList;
         name = "RailwaysModuleConfiguration",
         storages = {@Storage(value = "$MODULE_FILE$")}
 )
-public class RoutesManager implements PersistentStateComponent<RoutesManager.State> {
+public class RoutesManager implements PersistentStateComponent<RoutesManager.State>, Disposable {
+
+    private static final Logger log = Logger.getInstance(RoutesManager.class.getName());
 
     /**
      * Default state. It is set just after RoutesManager is created.
@@ -55,6 +73,13 @@ public class RoutesManager implements PersistentStateComponent<RoutesManager.Sta
     public static final int ERROR       = 3;
 
 
+    /**
+     * Minimal interval in milliseconds between notifications about partially
+     * received routes.
+     */
+    private static final int PARTIAL_ROUTES_NOTIFY_INTERVAL = 300;
+
+
     private int myRoutesState = DEFAULT;
 
     private final LinkedList<RoutesManagerListener> listeners = new LinkedList<>();
@@ -65,7 +90,24 @@ public class RoutesManager implements PersistentStateComponent<RoutesManager.Sta
     private ProcessOutput output;
 
     private final RailsRoutesParser parser;
-    private RouteList routeList = new RouteList();
+
+    // Route list is replaced by partial routes on the thread which receives
+    // output of Rails application and is read on EDT.
+    private volatile RouteList routeList = new RouteList();
+
+    // Set when route list is extracted from routes.rb and is shown until
+    // routes are received from Rails application.
+    private volatile boolean isRouteListProvisional = false;
+
+    // Guards replacing of provisional and partial route lists, as they are
+    // set from different threads during routes update.
+    private final Object routeListLock = new Object();
+
+    // Worker process which keeps Rails application loaded. It's used only
+    // when enabled in module settings.
+    @Nullable
+    private RoutesWorker routesWorker = null;
+    private String routesWorkerEnvironment = null;
 
     // Rails module
     private final Module module;
@@ -86,6 +128,10 @@ public class RoutesManager implements PersistentStateComponent<RoutesManager.Sta
         // Check whether route action is found in the project and highlight
         // actions in route list depending on their availability.
         public boolean liveActionHighlighting = true;
+
+        // Keep Rails application loaded in a worker process between routes
+        // updates instead of running rake task every time.
+        public boolean useRoutesWorker = false;
     }
 
 
@@ -143,6 +189,12 @@ public class RoutesManager implements PersistentStateComponent<RoutesManager.Sta
     }
 
 
+    @Override
+    public void dispose() {
+        stopRoutesWorker();
+    }
+
+
     public void addListener(RoutesManagerListener listener) {
         listeners.add(listener);
     }
@@ -171,11 +223,83 @@ public class RoutesManager implements PersistentStateComponent<RoutesManager.Sta
      * tries to update routes.
      */
     public void initRouteList() {
+        RouteList cachedRoutes = getCachedRoutes();
+        if (cachedRoutes != null) {
+            // Actions are resolved in background by routes view.
+            routeList = cachedRoutes;
+            setState(UPDATED);
+            return;
+        }
+
+        // Fall back to parsing of cached output, when routes snapshot is
+        // missing or was written in other format.
         String cachedOutput = getCachedOutput();
         if (cachedOutput != null) {
-            parseRakeRoutesOutput(cachedOutput, null);
-        } else
+            parseRakeRoutesOutput(cachedOutput, null, routeList);
+        } else {
             updateRouteList();
+            extractProvisionalRoutes();
+        }
+    }
+
+
+    /**
+     * Returns true if current route list is extracted from routes.rb files
+     * without running Rails application and can differ from actual routes.
+     *
+     * @return True if route list is provisional.
+     */
+    public boolean isRouteListProvisional() {
+        return isRouteListProvisional;
+    }
+
+
+    /**
+     * Extracts route list from routes.rb files in background read action, so
+     * routes can be shown while they are being retrieved from Rails
+     * application.
+     */
+    private void extractProvisionalRoutes() {
+        RailsApp app = RailsApp.fromModule(module);
+        if (app == null)
+            return;
+
+        ReadAction.nonBlocking(() -> {
+                    try {
+                        RouteList routes = RoutesPsiExtractor.extractRoutes(app);
+                        RailwaysUtils.updateActionsStatus(getModule(), routes);
+
+                        return routes;
+                    } catch (ProcessCanceledException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        // Provisional routes are optional, actual routes will
+                        // be received from Rails application.
+                        return new RouteList();
+                    }
+                })
+                .expireWith(this)
+                .finishOnUiThread(ModalityState.any(), this::setProvisionalRoutes)
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
+
+
+    /**
+     * Sets provisional route list. Routes are set only while routes update
+     * is in progress and nothing is received from Rails application yet.
+     *
+     * @param routes Routes extracted from routes.rb files.
+     */
+    private void setProvisionalRoutes(RouteList routes) {
+        synchronized (routeListLock) {
+            if (routes.isEmpty() || myRoutesState != UPDATING || !routeList.isEmpty())
+                return;
+
+            routeList = routes;
+            isRouteListProvisional = true;
+        }
+
+        notifyPartialRoutesReceived();
     }
 
 
@@ -244,6 +368,10 @@ public class RoutesManager implements PersistentStateComponent<RoutesManager.Sta
      * @param newState New state of RouteManager.
      */
     private void setState(int newState) {
+        // Provisional routes are shown only while routes are being updated.
+        if (newState != UPDATING)
+            isRouteListProvisional = false;
+
         if (myRoutesState == newState)
             return;
 
@@ -255,12 +383,29 @@ public class RoutesManager implements PersistentStateComponent<RoutesManager.Sta
     }
 
 
+    /**
+     * Notifies all listeners that a part of routes is received while routes
+     * update is still in progress.
+     */
+    private void notifyPartialRoutesReceived() {
+        for (RoutesManagerListener l : listeners)
+            l.partialRoutesReceived(this);
+    }
+
+
     /**
      * Internal class that is responsible for executing rake task and receiving
      * its output.
      */
     private class UpdateRoutesTask extends Task.Backgroundable {
 
+        // Route list which was actual before update. It's restored when
+        // the task is cancelled.
+        private final RouteList previousRouteList = routeList;
+
+        private RoutesOutputListener outputListener =
+                new RoutesOutputListener(previousRouteList);
+
         public UpdateRoutesTask() {
             super(module.getProject(), "Retrieving application routes...", true);
 
@@ -278,9 +423,23 @@ public class RoutesManager implements PersistentStateComponent<RoutesManager.Sta
             // Save indicator to be able to cancel task execution.
             routesUpdateIndicator = indicator;
 
-            output = RailwaysUtils.queryRakeRoutes(getModule(),
-                    myModuleSettings.routesTaskName,
-                    myModuleSettings.environment);
+            parser.beginParsing();
+            output = null;
+
+            if (myModuleSettings.useRoutesWorker)
+                output = queryRoutesWorker(indicator, outputListener);
+            else
+                stopRoutesWorker();
+
+            // Fall back to rake task if worker cannot be used.
+            if (output == null && !indicator.isCanceled()) {
+                parser.beginParsing();
+                outputListener = new RoutesOutputListener(previousRouteList);
+
+                output = RailwaysUtils.queryRakeRoutes(getModule(),
+                        myModuleSettings.routesTaskName,
+                        myModuleSettings.environment, outputListener);
+            }
 
             if (output == null)
                 setState(UPDATED);
@@ -296,7 +455,14 @@ public class RoutesManager implements PersistentStateComponent<RoutesManager.Sta
             if ((output == null) || (!myProject.isOpen()) || myProject.isDisposed())
                 return;
 
-            parseRakeRoutesOutput(output.getStdout(), output.getStderr());
+            if (outputListener.isOutputReceived()) {
+                // Output is already parsed while it was received, so only
+                // errors should be parsed.
+                parser.parseErrors(output.getStderr());
+                setParsedRoutes(parser.getRoutes(), output.getStdout(), previousRouteList);
+            } else
+                parseRakeRoutesOutput(output.getStdout(), output.getStderr(),
+                        previousRouteList);
         }
 
 
@@ -304,6 +470,11 @@ public class RoutesManager implements PersistentStateComponent<RoutesManager.Sta
         public void onCancel() {
             routesUpdateIndicator = null;
 
+            // Provisional routes are kept, as they're extracted from current
+            // routes.rb files.
+            if (!isRouteListProvisional)
+                routeList = previousRouteList;
+
             setState(UPDATED);
 
             super.onCancel();
@@ -311,16 +482,193 @@ public class RoutesManager implements PersistentStateComponent<RoutesManager.Sta
     }
 
 
+    /**
+     * Requests routes from the worker process. Worker is started if it's not
+     * running yet and restarted if application gems or environment were
+     * changed.
+     *
+     * @param indicator Progress indicator of routes update task.
+     * @param listener Listener which receives route lines.
+     * @return Output of the worker or null if worker cannot be used.
+     */
+    @Nullable
+    private ProcessOutput queryRoutesWorker(ProgressIndicator indicator,
+                                            RoutesOutputListener listener) {
+        String environment = myModuleSettings.environment;
+
+        if (routesWorker != null && (routesWorker.isOutdated() ||
+                !Objects.equals(routesWorkerEnvironment, environment)))
+            stopRoutesWorker();
+
+        if (routesWorker == null) {
+            indicator.setText("Loading Rails application for module " +
+                    getModule().getName() + "...");
+
+            routesWorker = RailwaysUtils.startRoutesWorker(getModule(), environment);
+            routesWorkerEnvironment = environment;
+        }
+
+        RoutesWorker worker = routesWorker;
+        if (worker == null)
+            return null;
+
+        // Waiting for application loading can be cancelled, hung worker is
+        // killed after timeout.
+        if (!worker.waitUntilReady(indicator::isCanceled, RoutesWorker.BOOT_TIMEOUT_MS)) {
+            stopRoutesWorker();
+            return null;
+        }
+
+        try {
+            ProcessOutput workerOutput = worker.queryRoutes(line -> {
+                // Stopped worker interrupts reading of its output.
+                if (indicator.isCanceled())
+                    worker.stop();
+                else
+                    listener.lineReceived(line);
+            });
+
+            if (workerOutput != null)
+                return workerOutput;
+        } catch (IOException e) {
+            // Worker is broken, it will be restarted next time.
+        }
+
+        stopRoutesWorker();
+        return null;
+    }
+
+
+    private void stopRoutesWorker() {
+        if (routesWorker != null) {
+            routesWorker.stop();
+            routesWorker = null;
+        }
+    }
+
+
+    /**
+     * Process listener which passes 'rake routes' output to the parser line by
+     * line while the task is still running. Routes that are parsed so far are
+     * published periodically, so they can be shown before the whole output
+     * is received.
+     */
+    private class RoutesOutputListener extends ProcessAdapter {
+        private final StringBuilder lineBuffer = new StringBuilder();
+        private final RouteList previousRoutes;
+        private long lastNotifyTime = 0;
+
+        private int notifiedRoutesCount = 0;
+        private volatile boolean isOutputReceived = false;
+
+
+        RoutesOutputListener(RouteList previousRoutes) {
+            this.previousRoutes = previousRoutes;
+        }
+
+
+        boolean isOutputReceived() {
+            return isOutputReceived;
+        }
+
+
+        @Override
+        public void onTextAvailable(@NotNull ProcessEvent event, @NotNull Key outputType) {
+            if (outputType != ProcessOutputTypes.STDOUT)
+                return;
+
+            isOutputReceived = true;
+            lineBuffer.append(event.getText());
+
+            // Text can be received by chunks that don't match lines, so we
+            // parse only complete lines and keep the rest in the buffer.
+            int eolPos;
+            while ((eolPos = lineBuffer.indexOf("\n")) >= 0) {
+                parser.parseNextLine(lineBuffer.substring(0, eolPos));
+                lineBuffer.delete(0, eolPos + 1);
+            }
+
+            publishPartialRoutes();
+        }
+
+
+        /**
+         * Passes a complete line of output to the parser. It's used when
+         * output is received line by line, not from a process event.
+         *
+         * @param line Line of routes output.
+         */
+        void lineReceived(String line) {
+            isOutputReceived = true;
+            parser.parseNextLine(line);
+
+            publishPartialRoutes();
+        }
+
+
+        private void publishPartialRoutes() {
+            long time = System.currentTimeMillis();
+            if (time - lastNotifyTime < PARTIAL_ROUTES_NOTIFY_INTERVAL)
+                return;
+
+            synchronized (routeListLock) {
+                // Provisional routes are replaced only when more routes are parsed.
+                int shownRoutesCount = isRouteListProvisional ? routeList.size() : notifiedRoutesCount;
+                if (parser.getRoutes().size() <= shownRoutesCount)
+                    return;
+
+                lastNotifyTime = time;
+                RouteList routes = parser.getRoutesSnapshot();
+                RouteListDiff.reuseRoutes(routes, previousRoutes);
+
+                routeList = routes;
+                isRouteListProvisional = false;
+                notifiedRoutesCount = routes.size();
+            }
+
+            notifyPartialRoutesReceived();
+        }
+
+
+        @Override
+        public void processTerminated(@NotNull ProcessEvent event) {
+            // Parse the last line if it doesn't end with line break.
+            if (lineBuffer.length() > 0) {
+                parser.parseNextLine(lineBuffer.toString());
+                lineBuffer.setLength(0);
+            }
+        }
+    }
+
+
     /**
      * Parses 'rake routes' output and notifies all listeners that route list was updated.
      *
      * @param stdOut Rake routes result.
      * @param stdErr Rake routes stderr output. Can be null.
+     * @param previousRoutes Routes which were shown before update.
+     */
+    private void parseRakeRoutesOutput(String stdOut, @Nullable String stdErr,
+                                       RouteList previousRoutes) {
+        setParsedRoutes(parser.parse(stdOut, stdErr), stdOut, previousRoutes);
+    }
+
+
+    /**
+     * Sets route list received from the parser and notifies all listeners
+     * that route list was updated. Actions of the routes are resolved in
+     * background by routes view when it receives the new state.
+     *
+     * @param routes Parsed route list.
+     * @param stdOut Rake routes result, which is cached on success.
+     * @param previousRoutes Routes which were shown before update. Unchanged
+     *                       routes are taken from this list.
      */
-    private void parseRakeRoutesOutput(String stdOut, @Nullable String stdErr) {
-        routeList = parser.parse(stdOut, stdErr);
+    private void setParsedRoutes(RouteList routes, String stdOut, RouteList previousRoutes) {
+        RouteListDiff.reuseRoutes(routes, previousRoutes);
 
-        RailwaysUtils.updateActionsStatus(getModule(), routeList);
+        routeList = routes;
+        isRouteListProvisional = false;
 
         // After routes parsing we can have several situations:
         // 1. parser contains routes and isErrorReported = false. Everything is OK.
@@ -332,6 +680,7 @@ public class RoutesManager implements PersistentStateComponent<RoutesManager.Sta
             setState(ERROR);
         } else {
             cacheOutput(stdOut);
+            cacheRoutes(routeList);
             setState(UPDATED);
         }
     }
@@ -355,7 +704,29 @@ public class RoutesManager implements PersistentStateComponent<RoutesManager.Sta
             // Set cache file modification date/time the same as for routes.rb
             f.setLastModified(getRoutesFilesMTime());
         } catch (Exception e) {
-            // Do nothing
+            log.warn("Cannot save routes output cache", e);
+        }
+    }
+
+
+    /**
+     * Saves binary snapshot of parsed routes and sets the same modification
+     * time as routes.rb has.
+     *
+     * @param routes Parsed route list.
+     */
+    private void cacheRoutes(RouteList routes) {
+        try {
+            String fileName = getRoutesSnapshotFileName();
+            if (fileName == null)
+                return;
+
+            File f = new File(fileName);
+            RouteListSerializer.write(routes, f);
+
+            f.setLastModified(getRoutesFilesMTime());
+        } catch (Exception e) {
+            log.warn("Cannot save routes snapshot", e);
         }
     }
 
@@ -410,6 +781,30 @@ public class RoutesManager implements PersistentStateComponent<RoutesManager.Sta
     }
 
 
+    /**
+     * Returns routes from binary snapshot if it exists and actual. Snapshot
+     * is actual if its modification time is the same as for routes.rb file.
+     *
+     * @return Route list or null if no valid snapshot is found.
+     */
+    @Nullable
+    private RouteList getCachedRoutes() {
+        try {
+            String fileName = getRoutesSnapshotFileName();
+            if (fileName == null)
+                return null;
+
+            File f = new File(fileName);
+            if (!f.exists() || getRoutesFilesMTime() != f.lastModified())
+                return null;
+
+            return RouteListSerializer.read(f, getModule());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+
     /**
      * Returns name of the cache file which contains output data.
      *
@@ -426,4 +821,18 @@ public class RoutesManager implements PersistentStateComponent<RoutesManager.Sta
                 File.separator + "railways.cache";
     }
 
+
+    /**
+     * Returns name of the file which contains binary snapshot of parsed
+     * routes.
+     *
+     * @return Name of the snapshot file.
+     */
+    @Nullable
+    private String getRoutesSnapshotFileName() {
+        String cacheFileName = getCacheFileName();
+
+        return cacheFileName == null ? null : cacheFileName + ".routes";
+    }
+
 }
\ No newline at end of file
@@ -8,4 +8,14 @@ public interface RoutesManagerListener {
      * @param routesManager RoutesManager that changed its state.
      */
     void stateChanged(RoutesManager routesManager);
+
+
+    /**
+     * Invoked when a part of routes is received while routes update is still
+     * in progress. Routes received so far are available via
+     * RoutesManager.getRouteList().
+     *
+     * @param routesManager RoutesManager that received routes.
+     */
+    void partialRoutesReceived(RoutesManager routesManager);
 }
@@ -10,6 +10,7 @@ import com.intellij.openapi.module.ModuleManager;
 import com.intellij.openapi.module.ModuleType;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowAnchor;
 import com.intellij.openapi.wm.ToolWindowContentUiType;
@@ -17,21 +18,31 @@ import com.intellij.openapi.wm.ToolWindowManager;
 import com.intellij.openapi.wm.ex.ToolWindowManagerEx;
 import com.intellij.openapi.wm.ex.ToolWindowManagerListener;
 import com.intellij.openapi.wm.impl.content.ToolWindowContentUi;
-import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiTreeChangeAdapter;
+import com.intellij.psi.PsiTreeChangeEvent;
 import com.intellij.ui.content.*;
 import com.intellij.util.Alarm;
 import com.intellij.util.messages.MessageBusConnection;
 import com.intellij.util.ui.UIUtil;
 import net.bitpot.railways.gui.MainPanel;
+import net.bitpot.railways.models.RequestMethods;
+import net.bitpot.railways.models.Route;
+import net.bitpot.railways.models.RouteDependencyIndex;
 import net.bitpot.railways.models.RouteList;
+import net.bitpot.railways.models.RoutesFilter;
+import net.bitpot.railways.models.requestMethods.RequestMethod;
 import net.bitpot.railways.navigation.ChooseByRouteRegistry;
-import net.bitpot.railways.utils.RailwaysUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.plugins.ruby.rails.model.RailsApp;
 
 import javax.swing.*;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Implements tool window logic. Synchronizes the number of tool window panes
@@ -54,6 +65,26 @@ public class RoutesView implements PersistentStateComponent<RoutesView.State>,
     private ContentManager myContentManager;
 
     private final MainPanel mainPanel;
+    private final ActionsStatusResolver actionsStatusResolver;
+    private final ActionsStatusResolver.Listener actionsStatusListener =
+            new ActionsStatusResolver.Listener() {
+                @Override
+                public void routesUpdated(@NotNull List<Route> routes) {
+                    mainPanel.routesUpdated(routes);
+                }
+
+                @Override
+                public void resolutionFinished() {
+                    mainPanel.actionStatusChanged();
+                }
+            };
+
+    // The last route list which resolution of all routes was started for.
+    @Nullable
+    private RouteList resolvedRoutes = null;
+
+    // Controllers which files were changed since routes were resolved.
+    private final Set<String> changedControllers = new HashSet<>();
 
     private final ArrayList<RoutesViewPane> myPanes = new ArrayList<>();
     private RoutesViewPane currentPane = null;
@@ -66,18 +97,22 @@ public class RoutesView implements PersistentStateComponent<RoutesView.State>,
     public RoutesView(@NotNull Project project) {
         myProject = project;
         mainPanel = new MainPanel(project);
+        actionsStatusResolver = new ActionsStatusResolver(project, this);
         myConnection = myProject.getMessageBus().connect();
 
-        // Subscribe on files changes to update Route list regularly.
-        // We connect to project bus, as module bus don't work with this topic
-        MessageBusConnection conn = project.getMessageBus().connect();
-        conn.subscribe(PsiModificationTracker.TOPIC, new PSIModificationListener());
+        // Subscribe on PSI changes to update action status of routes which
+        // controller files are changed.
+        PsiManager.getInstance(project).addPsiTreeChangeListener(
+                new ControllerChangeListener(), this);
     }
 
 
     static class State {
         int selectedTabId;
         boolean hideMountedRoutes;
+        boolean fuzzyMatching;
+        int enabledFacets;
+        List<String> hiddenRequestMethods = new ArrayList<>();
     }
 
     @Nullable
@@ -135,6 +170,13 @@ public class RoutesView implements PersistentStateComponent<RoutesView.State>,
             myContentManager.setSelectedContent(savedContent);
 
         mainPanel.getRouteFilter().setMountedRoutesVisible(!myState.hideMountedRoutes);
+        mainPanel.getRouteFilter().setFuzzyMatching(myState.fuzzyMatching);
+
+        RoutesFilter filter = mainPanel.getRouteFilter();
+        filter.setFacetEnabled(myState.enabledFacets, true);
+        for (RequestMethod method : RequestMethods.getAllRequestMethods())
+            filter.setRequestMethodVisible(method,
+                    !myState.hiddenRequestMethods.contains(method.getName()));
 
         myConnection.subscribe(ToolWindowManagerListener.TOPIC, new ToolWindowManagerListener() {
 
@@ -174,6 +216,43 @@ public class RoutesView implements PersistentStateComponent<RoutesView.State>,
     }
 
 
+    public boolean isFuzzyMatching() {
+        return mainPanel.getRouteFilter().isFuzzyMatching();
+    }
+
+
+    public void setFuzzyMatching(boolean value) {
+        mainPanel.getRouteFilter().setFuzzyMatching(value);
+        myState.fuzzyMatching = value;
+    }
+
+
+    public boolean isFacetEnabled(int facet) {
+        return mainPanel.getRouteFilter().isFacetEnabled(facet);
+    }
+
+
+    public void setFacetEnabled(int facet, boolean value) {
+        mainPanel.getRouteFilter().setFacetEnabled(facet, value);
+        myState.enabledFacets = value ? myState.enabledFacets | facet :
+                myState.enabledFacets & ~facet;
+    }
+
+
+    public boolean isRequestMethodVisible(RequestMethod method) {
+        return mainPanel.getRouteFilter().isRequestMethodVisible(method);
+    }
+
+
+    public void setRequestMethodVisible(RequestMethod method, boolean value) {
+        mainPanel.getRouteFilter().setRequestMethodVisible(method, value);
+
+        myState.hiddenRequestMethods.remove(method.getName());
+        if (!value)
+            myState.hiddenRequestMethods.add(method.getName());
+    }
+
+
     private void updateToolWindowOrientation(ToolWindow toolWindow) {
         if (toolWindow.isDisposed())
             return;
@@ -209,6 +288,7 @@ public class RoutesView implements PersistentStateComponent<RoutesView.State>,
 
     @Override
     public void dispose() {
+        actionsStatusResolver.cancel();
         myConnection.disconnect();
     }
 
@@ -304,7 +384,11 @@ public class RoutesView implements PersistentStateComponent<RoutesView.State>,
     private void syncPanelWithRoutesManager(RoutesManager routesManager) {
         switch(routesManager.getRoutesState()) {
             case RoutesManager.UPDATING:
-                mainPanel.showLoadingMessage();
+                // Provisional routes are shown until actual ones are received.
+                if (routesManager.isRouteListProvisional())
+                    mainPanel.setPartialRoutes(routesManager.getRouteList());
+                else
+                    mainPanel.showLoadingMessage();
                 break;
 
             case RoutesManager.UPDATED:
@@ -321,29 +405,131 @@ public class RoutesView implements PersistentStateComponent<RoutesView.State>,
         return currentPane.getRoutesManager().getState().liveActionHighlighting;
     }
 
+    /**
+     * Resolves actions of all routes of current pane in background. When
+     * live highlighting is disabled, routes are resolved only once after
+     * they're set.
+     */
     private void refreshRouteActionsStatus() {
+        if (currentPane == null)
+            return;
+
         RoutesManager rm = currentPane.getRoutesManager();
         RouteList routes = rm.getRouteList();
-        if (rm.isUpdating() || routes.size() == 0 || !isLiveHighlightingEnabled())
+        if (rm.isUpdating() || routes.size() == 0 ||
+                (!isLiveHighlightingEnabled() && routes == resolvedRoutes))
             return;
 
-        RailwaysUtils.updateActionsStatus(currentPane.getModule(), routes);
-        mainPanel.refresh();
+        resolvedRoutes = routes;
+
+        // All routes are resolved, so dependencies are collected again.
+        changedControllers.clear();
+        actionsStatusResolver.getDependencies().clear();
+        actionsStatusResolver.start(currentPane.getModule(), routes,
+                actionsStatusListener);
     }
 
 
-    private class PSIModificationListener implements PsiModificationTracker.Listener {
+    /**
+     * Resolves again only routes which controller files were changed.
+     */
+    private void refreshChangedRouteActions() {
+        if (changedControllers.isEmpty() || currentPane == null)
+            return;
+
+        // Partial resolution would cancel resolution of all routes.
+        if (actionsStatusResolver.isRunning()) {
+            refreshRouteActionsStatus();
+            return;
+        }
+
+        RoutesManager rm = currentPane.getRoutesManager();
+        if (rm.isUpdating() || !isLiveHighlightingEnabled())
+            return;
+
+        RouteList routes = RouteDependencyIndex.findRoutes(rm.getRouteList(),
+                changedControllers);
+        changedControllers.clear();
+
+        if (routes.size() > 0)
+            actionsStatusResolver.start(currentPane.getModule(), routes,
+                    actionsStatusListener);
+    }
+
+
+    /**
+     * Listens to PSI changes and schedules resolution of routes which
+     * controllers depend on changed files. Changes of other files are
+     * ignored.
+     */
+    private class ControllerChangeListener extends PsiTreeChangeAdapter {
         final Alarm alarm = new Alarm();
 
         @Override
-        public void modificationCountChanged() {
-            if (PowerSaveMode.isEnabled() ||
+        public void childAdded(@NotNull PsiTreeChangeEvent event) {
+            fileChanged(event);
+        }
+
+        @Override
+        public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+            fileChanged(event);
+        }
+
+        @Override
+        public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+            fileChanged(event);
+        }
+
+        @Override
+        public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+            fileChanged(event);
+        }
+
+        @Override
+        public void childMoved(@NotNull PsiTreeChangeEvent event) {
+            fileChanged(event);
+        }
+
+        @Override
+        public void propertyChanged(@NotNull PsiTreeChangeEvent event) {
+            fileChanged(event);
+        }
+
+
+        private void fileChanged(PsiTreeChangeEvent event) {
+            VirtualFile file = getChangedFile(event);
+            if (file == null)
+                return;
+
+            Set<String> controllers =
+                    actionsStatusResolver.getDependencies().findControllers(file);
+            if (controllers.isEmpty())
+                return;
+
+            changedControllers.addAll(controllers);
+
+            if (PowerSaveMode.isEnabled() || currentPane == null ||
                     myToolWindow == null || !myToolWindow.isVisible() ||
                     !isLiveHighlightingEnabled())
                 return;
 
             alarm.cancelAllRequests();
-            alarm.addRequest(RoutesView.this::refreshRouteActionsStatus, 1000, ModalityState.NON_MODAL);
+            alarm.addRequest(RoutesView.this::refreshChangedRouteActions, 1000, ModalityState.NON_MODAL);
+        }
+
+
+        @Nullable
+        private VirtualFile getChangedFile(PsiTreeChangeEvent event) {
+            PsiFile file = event.getFile();
+
+            // Files which are added, removed or renamed are passed as
+            // changed elements.
+            if (file == null && event.getChild() instanceof PsiFile)
+                file = (PsiFile) event.getChild();
+            else if (file == null && event.getElement() instanceof PsiFile)
+                file = (PsiFile) event.getElement();
+
+            return file != null ? file.getVirtualFile() : null;
         }
     }
 
@@ -356,8 +542,27 @@ public class RoutesView implements PersistentStateComponent<RoutesView.State>,
             UIUtil.invokeLaterIfNeeded(() -> {
                 // Synchronize with routesManager only if it belongs to
                 // currently selected pane.
-                if (routesManager == getCurrentRoutesManager())
-                    syncPanelWithRoutesManager(routesManager);
+                if (routesManager != getCurrentRoutesManager())
+                    return;
+
+                syncPanelWithRoutesManager(routesManager);
+
+                // Updated routes are resolved in background, which also
+                // collects files of controllers which appeared after update.
+                if (routesManager.getRoutesState() == RoutesManager.UPDATED)
+                    refreshRouteActionsStatus();
+            });
+        }
+
+
+        @Override
+        public void partialRoutesReceived(final RoutesManager routesManager) {
+            UIUtil.invokeLaterIfNeeded(() -> {
+                // Skip if update is already finished, as the final route list
+                // is set on state change.
+                if (routesManager == getCurrentRoutesManager() &&
+                        routesManager.getRoutesState() == RoutesManager.UPDATING)
+                    mainPanel.setPartialRoutes(routesManager.getRouteList());
             });
         }
     }
@@ -2,7 +2,9 @@ package net.bitpot.railways.utils;
 
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiNamedElement;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.stubs.StubIndex;
@@ -25,7 +27,12 @@ import org.jetbrains.plugins.ruby.ruby.lang.psi.indexes.RubyClassModuleNameIndex
 import org.jetbrains.plugins.ruby.ruby.lang.psi.methodCall.RCall;
 import org.jetbrains.plugins.ruby.utils.NamingConventions;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Class that contains helper methods for working with PSI elements.
@@ -61,9 +68,9 @@ public class RailwaysPsiUtils {
 
 
     /**
-     * Searched for method implementation recursively in current class and all
-     * included modules, then if not found, in parent class and all included
-     * modules, etc.
+     * Searches for method implementation in Ruby method resolution order:
+     * in current class, then in its included modules starting from the last
+     * included one, then in parent class and its modules, etc.
      *
      * @param app Rails app.
      * @param ctrlClass Class in which method implementation will be searched for.
@@ -74,26 +81,87 @@ public class RailwaysPsiUtils {
     public static RMethod findControllerMethod(RailsApp app,
                                                @NotNull RClass ctrlClass,
                                                @NotNull String methodName) {
-        RClass currentClass = ctrlClass;
-
-        while (true) {
-            RMethod method = RubyPsiUtil.getMethodWithPossibleZeroArgsByName(currentClass, methodName);
+        return findInClassHierarchy(app, ctrlClass, psiClass -> {
+            RMethod method = findMethod(psiClass, methodName);
             if (method != null)
                 return method;
 
-            method = findMethodInClassModules(currentClass, methodName);
-            if (method != null)
-                return method;
+            for (RModule module : findClassModules(psiClass)) {
+                method = findMethod(module, methodName);
+                if (method != null)
+                    return method;
+            }
+
+            return null;
+        });
+    }
 
-            // Search in parent classes
-            RSuperClass psiParentRef = currentClass.getPsiSuperClass();
-            if ((psiParentRef == null) || (psiParentRef.getName() == null))
-                return null;
 
-            currentClass = findControllerClass(app, psiParentRef.getName());
-            if (currentClass == null)
-                return null;
+    /**
+     * Applies the finder to the class and then to its parent classes until
+     * the finder returns non-null result.
+     *
+     * @param app Rails app.
+     * @param psiClass Class to start from.
+     * @param finder Function which returns found value or null.
+     * @return First found value or null.
+     */
+    @Nullable
+    public static <T> T findInClassHierarchy(RailsApp app, @NotNull RClass psiClass,
+                                             @NotNull Function<RClass, T> finder) {
+        return findInHierarchy(psiClass, currentClass -> findParentClass(app, currentClass),
+                finder);
+    }
+
+
+    @Nullable
+    static <C, T> T findInHierarchy(@NotNull C start, @NotNull Function<C, C> parentLookup,
+                                    @NotNull Function<C, T> finder) {
+        // Visited classes are remembered, so invalid code with cyclic
+        // inheritance cannot hang the search.
+        Set<C> visited = new HashSet<>();
+        C current = start;
+
+        while (current != null && visited.add(current)) {
+            T result = finder.apply(current);
+            if (result != null)
+                return result;
+
+            current = parentLookup.apply(current);
         }
+
+        return null;
+    }
+
+
+    /**
+     * Finds method which is defined in the class or module itself.
+     *
+     * @param container Class or module.
+     * @param methodName Name of the method to find.
+     * @return Found method or null.
+     */
+    @Nullable
+    public static RMethod findMethod(@NotNull RContainer container,
+                                     @NotNull String methodName) {
+        return RubyPsiUtil.getMethodWithPossibleZeroArgsByName(container, methodName);
+    }
+
+
+    /**
+     * Finds parent class of the class.
+     *
+     * @param app Rails app.
+     * @param psiClass Class which parent should be found.
+     * @return Parent class or null if class has no parent or it isn't found.
+     */
+    @Nullable
+    public static RClass findParentClass(RailsApp app, @NotNull RClass psiClass) {
+        RSuperClass psiParentRef = psiClass.getPsiSuperClass();
+        if ((psiParentRef == null) || (psiParentRef.getName() == null))
+            return null;
+
+        return findControllerClass(app, psiParentRef.getName());
     }
 
 
@@ -175,43 +243,118 @@ public class RailwaysPsiUtils {
 
 
     /**
-     * Performs search in all modules that are included in specified class. So
-     * if ruby-class contains explicit includes:
+     * Finds modules which are included in specified class in the order their
+     * methods are looked up. So if ruby-class contains explicit includes:
      *
      *     include Admin::MyModule
      *     include Concerns::Logging
      *
-     * the specified methodName will be searched in both modules in order
-     * of their declaration.
+     * Concerns::Logging is returned first, as next included module can
+     * override same-named methods of previously included module. Modules
+     * which are included into a module follow that module.
      *
-     * @param ctrlClass Class to look for modules.
-     * @param methodName Method name to search within modules of specified ruby
-     *                   class
-     * @return First method which name matches methodName
+     * @param container Class or module to look for modules.
+     * @return Included modules in method resolution order.
      */
-    @Nullable
-    private static RMethod findMethodInClassModules(RClass ctrlClass, String methodName) {
-        PsiElement[] elements = PsiTreeUtil.collectElements(ctrlClass,
-                INCLUDE_MODULE_FILTER);
+    @NotNull
+    public static List<RModule> findClassModules(@NotNull RContainer container) {
+        List<RModule> result = new ArrayList<>();
+        for (RContainer module : orderIncludedModules(container,
+                RailwaysPsiUtils::findIncludedModules))
+            result.add((RModule)module);
 
-        // Iterate from the end of the list as next included module can override
-        // same-named methods of previously included module.
-        int i = elements.length;
-        while (--i >= 0) {
-            RCall includeMethodCall = (RCall)elements[i];
+        return result;
+    }
+
+
+    /**
+     * Returns modules which are directly included in the class or module, in
+     * the order of include expressions.
+     */
+    private static List<RContainer> findIncludedModules(RContainer container) {
+        PsiElement[] elements = PsiTreeUtil.collectElements(container,
+                INCLUDE_MODULE_FILTER);
+        List<RContainer> result = new ArrayList<>();
 
-            RPsiElement moduleNameArg = includeMethodCall.getArguments().get(0);
+        for (PsiElement element : elements) {
+            RPsiElement moduleNameArg = ((RCall)element).getArguments().get(0);
             if (moduleNameArg == null)
                 continue;
 
             RContainer cont = findClassOrModule(moduleNameArg.getText(),
-                    ctrlClass.getProject());
-
+                    container.getProject());
             if (cont instanceof RModule)
-                return RubyPsiUtil.getMethodWithPossibleZeroArgsByName(cont, methodName);
+                result.add(cont);
         }
 
-        return null;
+        return result;
+    }
+
+
+    /**
+     * Orders modules included in the container and, recursively, in the
+     * modules in method resolution order. Every module is returned once.
+     *
+     * @param container Class or module.
+     * @param includes Returns modules directly included in a container, in
+     *                 the order of include expressions.
+     * @return Included modules in method resolution order.
+     */
+    @NotNull
+    static <T> List<T> orderIncludedModules(@NotNull T container,
+                                            @NotNull Function<T, List<T>> includes) {
+        List<T> result = new ArrayList<>();
+        collectIncludedModules(container, includes, new HashSet<>(), result);
+
+        return result;
+    }
+
+
+    private static <T> void collectIncludedModules(T container,
+                                                   Function<T, List<T>> includes,
+                                                   Set<T> visitedModules,
+                                                   List<T> result) {
+        List<T> modules = includes.apply(container);
+
+        int i = modules.size();
+        while (--i >= 0) {
+            T module = modules.get(i);
+            if (visitedModules.add(module)) {
+                result.add(module);
+                collectIncludedModules(module, includes, visitedModules, result);
+            }
+        }
+    }
+
+
+    /**
+     * Collects files which action methods of the controller can be found in:
+     * files of the class, its parent classes and modules which are included
+     * in them.
+     *
+     * @param app Rails app.
+     * @param ctrlClass Controller class.
+     * @param files Set to add found files to.
+     */
+    public static void collectControllerFiles(RailsApp app,
+                                              @NotNull RClass ctrlClass,
+                                              @NotNull Set<VirtualFile> files) {
+        findInClassHierarchy(app, ctrlClass, psiClass -> {
+            addContainingFile(psiClass, files);
+
+            for (RModule module : findClassModules(psiClass))
+                addContainingFile(module, files);
+
+            // Nothing is searched, so all ancestors are visited.
+            return null;
+        });
+    }
+
+
+    private static void addContainingFile(PsiElement element, Set<VirtualFile> files) {
+        PsiFile file = element.getContainingFile();
+        if (file != null && file.getVirtualFile() != null)
+            files.add(file.getVirtualFile());
     }
 
     public static void logPsiParentChain(PsiElement elem) {
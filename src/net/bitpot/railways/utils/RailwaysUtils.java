@@ -1,11 +1,12 @@
 package net.bitpot.railways.utils;
 
 import com.intellij.execution.ExecutionModes;
-import com.intellij.execution.process.ProcessOutput;
+import com.intellij.execution.process.*;
 import com.intellij.notification.Notification;
 import com.intellij.notification.NotificationType;
 import com.intellij.notification.Notifications;
 import com.intellij.openapi.actionSystem.*;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleManager;
@@ -13,16 +14,26 @@ import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.projectRoots.Sdk;
 import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.util.ArrayUtil;
 import net.bitpot.railways.gui.ErrorInfoDlg;
 import net.bitpot.railways.gui.StringFormatter;
+import net.bitpot.railways.index.ControllerActionsIndex;
+import net.bitpot.railways.models.ControllersCache;
 import net.bitpot.railways.models.Route;
 import net.bitpot.railways.models.RouteList;
 import net.bitpot.railways.routesView.RoutesManager;
+import net.bitpot.railways.worker.RoutesWorker;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.plugins.ruby.gem.RubyGemExecutionContext;
 import org.jetbrains.plugins.ruby.rails.model.RailsApp;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Class that contains all API methods for Railways plugin.
  */
@@ -58,6 +69,25 @@ public class RailwaysUtils {
     @Nullable
     public static ProcessOutput queryRakeRoutes(Module module,
                                                 String routesTaskName, String railsEnv) {
+        return queryRakeRoutes(module, routesTaskName, railsEnv, null);
+    }
+
+
+    /**
+     * Runs rake task and gets its output. Specified process listener receives
+     * output while the task is still running, which allows to handle output
+     * before the task is finished. This method should be called from
+     * backgroundable task.
+     *
+     * @param module Rails module for which rake task should be run.
+     * @param listener Listener which receives process output as it arrives.
+     *                 Can be null.
+     * @return Output of 'rake routes'.
+     */
+    @Nullable
+    public static ProcessOutput queryRakeRoutes(Module module,
+                                                String routesTaskName, String railsEnv,
+                                                @Nullable ProcessListener listener) {
         // Get root path of Rails application from module.
         RailsApp app = RailsApp.fromModule(module);
         if ((app == null) || (app.getRailsApplicationRoot() == null))
@@ -80,11 +110,15 @@ public class RailwaysUtils {
         try {
             railsEnv = (railsEnv == null) ? "" : "RAILS_ENV=" + railsEnv;
 
+            ExecutionModes.SameThreadMode mode = new ExecutionModes.SameThreadMode();
+            if (listener != null)
+                mode.addProcessListener(listener);
+
             // Will work on IntelliJ platform since 2017.3
             return RubyGemExecutionContext.create(sdk, "rails")
                     .withModule(module)
                     .withWorkingDirPath(moduleContentRoot)
-                    .withExecutionMode(new ExecutionModes.SameThreadMode())
+                    .withExecutionMode(mode)
                     .withArguments(routesTaskName, "--trace", railsEnv)
                     .executeScript();
         } catch (Exception e) {
@@ -95,6 +129,99 @@ public class RailwaysUtils {
     }
 
 
+    /**
+     * Starts routes worker process which keeps Rails application of the module
+     * loaded. The worker script is run by 'rails runner' in the same execution
+     * context as 'rake routes', so both use the same Ruby, gemsets and bundler
+     * environment of the module SDK. This method should be called from
+     * backgroundable task.
+     *
+     * @param module Rails module for which worker should be started.
+     * @param railsEnv Rails environment or null for default one.
+     * @return Started worker or null if it cannot be started.
+     */
+    @Nullable
+    public static RoutesWorker startRoutesWorker(Module module, @Nullable String railsEnv) {
+        RailsApp app = RailsApp.fromModule(module);
+        if ((app == null) || (app.getRailsApplicationRoot() == null))
+            return null;
+
+        Sdk sdk = ModuleRootManager.getInstance(module).getSdk();
+        if (sdk == null)
+            return null;
+
+        String appRoot = app.getRailsApplicationRoot().getPresentableUrl();
+        File gemfileLock = new File(appRoot, "Gemfile.lock");
+        CompletableFuture<RoutesWorker> startedWorker = new CompletableFuture<>();
+
+        try {
+            List<String> args = new ArrayList<>();
+            args.add("runner");
+            if (railsEnv != null) {
+                args.add("-e");
+                args.add(railsEnv);
+            }
+            args.add(RoutesWorker.getScriptFile().getPath());
+
+            // Output of the process is read by process handler, so it's
+            // passed to the worker by the listener.
+            ExecutionModes.SameThreadMode mode = new ExecutionModes.SameThreadMode();
+            mode.addProcessListener(new ProcessAdapter() {
+                private RoutesWorker worker = null;
+
+                @Override
+                public void startNotified(@NotNull ProcessEvent event) {
+                    ProcessHandler handler = event.getProcessHandler();
+                    if (handler instanceof BaseProcessHandler)
+                        worker = new RoutesWorker(
+                                ((BaseProcessHandler<?>) handler).getProcess(),
+                                gemfileLock, false);
+
+                    startedWorker.complete(worker);
+                }
+
+                @Override
+                public void onTextAvailable(@NotNull ProcessEvent event, @NotNull Key outputType) {
+                    if (worker != null && outputType == ProcessOutputTypes.STDOUT)
+                        worker.appendOutput(event.getText());
+                }
+
+                @Override
+                public void processTerminated(@NotNull ProcessEvent event) {
+                    if (worker != null)
+                        worker.closeOutput();
+
+                    startedWorker.complete(null);
+                }
+            });
+
+            RubyGemExecutionContext context = RubyGemExecutionContext.create(sdk, "rails")
+                    .withModule(module)
+                    .withWorkingDirPath(appRoot)
+                    .withExecutionMode(mode)
+                    .withArguments(ArrayUtil.toStringArray(args));
+
+            // Script execution waits until the worker is finished, so it's
+            // run in a pooled thread for all worker lifetime.
+            ApplicationManager.getApplication().executeOnPooledThread(() -> {
+                try {
+                    context.executeScript();
+                } catch (Exception e) {
+                    log.info("Routes worker failed", e);
+                } finally {
+                    startedWorker.complete(null);
+                }
+            });
+
+            return startedWorker.get();
+        } catch (Exception e) {
+            log.info("Cannot start routes worker", e);
+        }
+
+        return null;
+    }
+
+
     /**
      * Shows a dialog with 'rake routes' error stacktrace.
      *
@@ -136,13 +263,21 @@ public class RailwaysUtils {
 
     public static void updateActionsStatus(Module module, RouteList routeList) {
         RailsApp app = RailsApp.fromModule(module);
-        if ((app == null) || (DumbService.isDumb(module.getProject())))
+        if (app == null)
             return;
 
+        // PSI cannot be used in dumb mode, but the index which is kept
+        // between IDE sessions can.
+        if (DumbService.isDumb(module.getProject())) {
+            ControllerActionsIndex.updateActionsStatus(module, routeList);
+            return;
+        }
+
         // TODO: investigate multiple calls of this method when switching focus from code to tool window without any changes.
 
+        ControllersCache controllers = ControllersCache.getInstance(module);
         for (Route route: routeList)
-            route.updateActionStatus(app);
+            route.updateActionStatus(controllers);
     }
 
 
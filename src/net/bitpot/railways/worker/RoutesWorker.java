@@ -0,0 +1,366 @@
+package net.bitpot.railways.worker;
+
+import com.intellij.execution.process.ProcessOutput;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Long-lived process which keeps Rails application loaded and prints its
+ * routes on request. Communication with the process is performed over its
+ * stdin/stdout, see routes_worker.rb for protocol description.
+ *
+ * The worker is not thread-safe, it should be used by one routes update
+ * task at a time.
+ */
+public class RoutesWorker {
+
+    static final String READY_MARKER = "#railways:ready";
+    static final String END_MARKER = "#railways:end";
+    static final String ERROR_MARKER = "#railways:error";
+
+    static final String ROUTES_COMMAND = "routes";
+    static final String QUIT_COMMAND = "quit";
+
+    static final String SCRIPT_NAME = "routes_worker.rb";
+
+    // Max time of Rails application loading. Worker which isn't ready after
+    // this time is considered hung and is killed.
+    public static final long BOOT_TIMEOUT_MS = 3 * 60 * 1000;
+
+    // How often waiting for the worker checks whether it's cancelled.
+    private static final long POLL_INTERVAL_MS = 100;
+
+    // Marks the end of worker output in the lines queue.
+    private static final String EOF = new String("");
+
+    private static File scriptFile = null;
+
+    private final Process process;
+    private final Writer writer;
+
+    // Lines of worker output, which are read in a separate thread, so
+    // waiting for output can be cancelled.
+    private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+
+    // Incomplete line of output which is passed in chunks.
+    private final StringBuilder outputBuffer = new StringBuilder();
+
+    // Gemfile.lock of the application and its modification time when the
+    // worker was started. Application should be reloaded when gems change.
+    @Nullable
+    private final File gemfileLock;
+    private final long gemfileLockMTime;
+
+    private boolean isReady = false;
+
+
+    /**
+     * Creates worker for already started process.
+     *
+     * @param process Worker process.
+     * @param gemfileLock Gemfile.lock of the application or null if it's
+     *                    not tracked.
+     */
+    public RoutesWorker(@NotNull Process process, @Nullable File gemfileLock) {
+        this(process, gemfileLock, true);
+    }
+
+
+    /**
+     * Creates worker for already started process.
+     *
+     * @param process Worker process.
+     * @param gemfileLock Gemfile.lock of the application or null if it's
+     *                    not tracked.
+     * @param readOutput False if output streams of the process are read by
+     *                   process handler. Stdout should be passed to the
+     *                   worker by appendOutput and closeOutput then.
+     */
+    public RoutesWorker(@NotNull Process process, @Nullable File gemfileLock,
+                        boolean readOutput) {
+        this.process = process;
+        this.gemfileLock = gemfileLock;
+        gemfileLockMTime = gemfileLock != null ? gemfileLock.lastModified() : 0;
+
+        writer = new BufferedWriter(new OutputStreamWriter(
+                process.getOutputStream(), StandardCharsets.UTF_8));
+
+        if (readOutput) {
+            readOutputStream(process.getInputStream());
+            drainErrorStream(process.getErrorStream());
+        }
+    }
+
+
+    /**
+     * Returns worker script extracted to a temporary file, so it can be passed
+     * to ruby interpreter.
+     *
+     * @return Worker script file.
+     * @throws IOException if the script cannot be extracted.
+     */
+    @NotNull
+    public static synchronized File getScriptFile() throws IOException {
+        if (scriptFile != null && scriptFile.exists())
+            return scriptFile;
+
+        File file = File.createTempFile("railways_routes_worker", ".rb");
+        file.deleteOnExit();
+
+        try (InputStream in = RoutesWorker.class.getResourceAsStream(SCRIPT_NAME)) {
+            if (in == null)
+                throw new FileNotFoundException(SCRIPT_NAME);
+
+            Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        scriptFile = file;
+        return scriptFile;
+    }
+
+
+    /**
+     * Waits until the worker loads Rails application. Output which is printed
+     * while the application is loading is skipped.
+     *
+     * @return True if the worker is ready to receive commands, false if the
+     *         process was finished before, e.g. because of boot error.
+     */
+    public boolean waitUntilReady() {
+        return waitUntilReady(() -> false, BOOT_TIMEOUT_MS);
+    }
+
+
+    /**
+     * Waits until the worker loads Rails application. Worker process is
+     * killed if waiting is cancelled or the application isn't loaded in
+     * time.
+     *
+     * @param isCanceled Returns true when waiting should be cancelled.
+     * @param timeoutMillis Max time of application loading.
+     * @return True if the worker is ready to receive commands, false if the
+     *         process was finished, killed or waiting was cancelled.
+     */
+    public boolean waitUntilReady(@NotNull BooleanSupplier isCanceled,
+                                  long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        try {
+            while (!isReady) {
+                if (isCanceled.getAsBoolean() || System.currentTimeMillis() > deadline) {
+                    process.destroyForcibly();
+                    return false;
+                }
+
+                String line = lines.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (line == EOF) {
+                    lines.add(EOF);
+                    return false;
+                }
+
+                isReady = READY_MARKER.equals(line);
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+
+        return isReady;
+    }
+
+
+    /**
+     * Requests routes from the worker. Worker reloads routes and prints them
+     * in the same format as 'rake routes' does.
+     *
+     * @param lineConsumer Consumer which receives route lines as they arrive.
+     *                     Can be null.
+     * @return Worker output or null if the worker was stopped before all
+     *         routes were received. Stdout contains routes and stderr contains
+     *         error backtrace if routes cannot be loaded.
+     * @throws IOException if the worker cannot be reached.
+     */
+    @Nullable
+    public ProcessOutput queryRoutes(@Nullable Consumer<String> lineConsumer) throws IOException {
+        if (!waitUntilReady())
+            return null;
+
+        writer.write(ROUTES_COMMAND + "\n");
+        writer.flush();
+
+        ProcessOutput output = new ProcessOutput();
+        boolean isError = false;
+        String line;
+
+        while ((line = readLine()) != null) {
+            if (line.equals(END_MARKER)) {
+                output.setExitCode(isError ? 1 : 0);
+                return output;
+            }
+
+            if (line.equals(ERROR_MARKER))
+                isError = true;
+            else if (isError)
+                output.appendStderr(line + "\n");
+            else {
+                output.appendStdout(line + "\n");
+
+                if (lineConsumer != null)
+                    lineConsumer.accept(line);
+            }
+        }
+
+        // Worker was terminated.
+        return null;
+    }
+
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+
+    /**
+     * Checks whether the worker should be restarted: the process is terminated
+     * or gems of the application were changed since the worker was started.
+     *
+     * @return True if worker cannot be used anymore.
+     */
+    public boolean isOutdated() {
+        if (!isAlive())
+            return true;
+
+        long mtime = gemfileLock != null ? gemfileLock.lastModified() : 0;
+        return mtime != gemfileLockMTime;
+    }
+
+
+    /**
+     * Stops worker process.
+     */
+    public void stop() {
+        try {
+            writer.write(QUIT_COMMAND + "\n");
+            writer.flush();
+        } catch (IOException e) {
+            // Process is already finished.
+        }
+
+        process.destroy();
+    }
+
+
+    /**
+     * Passes a chunk of worker stdout which is read by process handler.
+     * Chunks are split into lines.
+     *
+     * @param text Output text.
+     */
+    public void appendOutput(@NotNull String text) {
+        synchronized (outputBuffer) {
+            outputBuffer.append(text);
+
+            int pos;
+            while ((pos = outputBuffer.indexOf("\n")) >= 0) {
+                int end = pos > 0 && outputBuffer.charAt(pos - 1) == '\r' ? pos - 1 : pos;
+                lines.add(outputBuffer.substring(0, end));
+                outputBuffer.delete(0, pos + 1);
+            }
+        }
+    }
+
+
+    /**
+     * Notifies the worker that its stdout is closed, ex. when process is
+     * terminated.
+     */
+    public void closeOutput() {
+        synchronized (outputBuffer) {
+            if (outputBuffer.length() > 0) {
+                lines.add(outputBuffer.toString());
+                outputBuffer.setLength(0);
+            }
+
+            lines.add(EOF);
+        }
+    }
+
+
+    /**
+     * Returns the next line of worker output.
+     *
+     * @return Output line or null if the process output is closed.
+     * @throws IOException if waiting for output is interrupted.
+     */
+    @Nullable
+    private String readLine() throws IOException {
+        try {
+            String line = lines.take();
+            if (line == EOF) {
+                // Keep the end mark for next readers.
+                lines.add(EOF);
+                return null;
+            }
+
+            return line;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+
+    /**
+     * Reads output of the process into lines queue in a separate thread.
+     */
+    private void readOutputStream(InputStream stream) {
+        Thread thread = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null)
+                    lines.add(line);
+            } catch (IOException e) {
+                // Stream is closed.
+            }
+
+            lines.add(EOF);
+        }, "Railways routes worker stdout");
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    /**
+     * Reads error stream of the process in a separate thread, otherwise the
+     * process can be blocked when stream buffer is full. Errors of the worker
+     * are ignored, as failed worker is replaced by 'rake routes' call.
+     */
+    private static void drainErrorStream(InputStream stream) {
+        Thread thread = new Thread(() -> {
+            byte[] buffer = new byte[4096];
+
+            try {
+                while (stream.read(buffer) >= 0) {
+                    // Skip error output
+                }
+            } catch (IOException e) {
+                // Stream is closed.
+            }
+        }, "Railways routes worker stderr");
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,55 @@
+# Route dump worker of Railways plugin. It loads Rails application once and
+# prints its routes on request, so application boot time is not spent on every
+# routes update.
+#
+# Protocol (stdin/stdout, line based):
+#   - READY_MARKER line is printed when application is loaded.
+#   - On "routes" command routes are reloaded and printed in the same format
+#     as 'rails routes' does, followed by END_MARKER line. If routes cannot be
+#     loaded, ERROR_MARKER line and error backtrace are printed before
+#     END_MARKER.
+#   - "quit" command or closed stdin stops the worker.
+
+READY_MARKER = '#railways:ready'.freeze
+END_MARKER = '#railways:end'.freeze
+ERROR_MARKER = '#railways:error'.freeze
+
+$stdout.sync = true
+
+require 'bundler/setup' if File.exist?(File.join(Dir.pwd, 'Gemfile'))
+require File.join(Dir.pwd, 'config', 'environment')
+
+
+def print_routes
+  app = Rails.application
+  app.reload_routes!
+
+  inspector = ActionDispatch::Routing::RoutesInspector.new(app.routes.routes)
+  formatter = if defined?(ActionDispatch::Routing::ConsoleFormatter::Sheet)
+                ActionDispatch::Routing::ConsoleFormatter::Sheet.new
+              else
+                ActionDispatch::Routing::ConsoleFormatter.new
+              end
+
+  puts inspector.format(formatter)
+end
+
+
+puts READY_MARKER
+
+while (command = $stdin.gets)
+  case command.strip
+  when 'routes'
+    begin
+      print_routes
+    rescue Exception => e
+      puts ERROR_MARKER
+      puts "#{e.class}: #{e.message}"
+      puts e.backtrace
+    end
+
+    puts END_MARKER
+  when 'quit'
+    break
+  end
+end
@@ -0,0 +1,165 @@
+package net.bitpot.railways.index;
+
+import net.bitpot.railways.models.RailsActionInfo;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests scanning of controller sources for controller actions index.
+ */
+public class ControllerSourceScannerTest
+{
+    private static final String USERS_CONTROLLER =
+            "module Admin\n" +
+            "  class UsersController < ::ApplicationController\n" +
+            "    include Searchable, Admin::Paging\n" +
+            "    before_action :find_user, only: [:show, :edit] # comment with def fake\n" +
+            "\n" +
+            "    def index\n" +
+            "      @users = User.all\n" +
+            "      if params[:q]\n" +
+            "        @users = @users.where(name: params[:q])\n" +
+            "      end\n" +
+            "      respond_to do |format|\n" +
+            "        format.html\n" +
+            "      end\n" +
+            "    end\n" +
+            "\n" +
+            "    def show; end\n" +
+            "    def edit = render(:edit)\n" +
+            "\n" +
+            "    def self.permitted_params\n" +
+            "      [:name]\n" +
+            "    end\n" +
+            "\n" +
+            "    class << self\n" +
+            "      def admin_only; end\n" +
+            "    end\n" +
+            "\n" +
+            "    def destroy\n" +
+            "    end\n" +
+            "    private :destroy\n" +
+            "\n" +
+            "    private\n" +
+            "\n" +
+            "    def find_user\n" +
+            "      @user = User.find(params[:id])\n" +
+            "    end\n" +
+            "  end\n" +
+            "end\n";
+
+
+    @Test
+    public void testClassesAndModulesAreScanned()
+    {
+        Map<String, ControllerInfo> infos = scan(USERS_CONTROLLER);
+
+        assertEquals(new HashSet<>(Arrays.asList("Admin", "Admin::UsersController")),
+                infos.keySet());
+
+        ControllerInfo users = infos.get("Admin::UsersController");
+        assertEquals("ApplicationController", users.getSuperClassName());
+        assertEquals(Arrays.asList("Searchable", "Admin::Paging"), users.getIncludes());
+        assertEquals(new HashSet<>(Arrays.asList("index", "show", "edit")),
+                users.getPublicMethods());
+        assertEquals(new HashSet<>(Arrays.asList("destroy", "find_user")),
+                users.getNonPublicMethods());
+    }
+
+
+    @Test
+    public void testNestingIsRestoredAfterOneLineDefinitions()
+    {
+        Map<String, ControllerInfo> infos = scan(
+                "class PostsController < ApplicationController; end\n" +
+                "module Blog\n" +
+                "  class Error < StandardError; end\n" +
+                "  class PostsController < Blog::BaseController\n" +
+                "    private def secret; end\n" +
+                "    def index\n" +
+                "      x = if y then 1 else 2 end\n" +
+                "    end\n" +
+                "  end\n" +
+                "end\n" +
+                "class CommentsController < ApplicationController\n" +
+                "  def create; end\n" +
+                "end\n");
+
+        assertEquals(new HashSet<>(Arrays.asList("PostsController", "Blog",
+                "Blog::Error", "Blog::PostsController", "CommentsController")), infos.keySet());
+        assertEquals(Collections.singleton("index"),
+                infos.get("Blog::PostsController").getPublicMethods());
+        assertEquals(Collections.singleton("secret"),
+                infos.get("Blog::PostsController").getNonPublicMethods());
+        assertEquals(Collections.singleton("create"),
+                infos.get("CommentsController").getPublicMethods());
+    }
+
+
+    @Test
+    public void testActionStatusFollowsMethodResolutionOrder()
+    {
+        Map<String, ControllerInfo> infos = scan(USERS_CONTROLLER +
+                "class ApplicationController < ActionController::Base\n" +
+                "  include Admin::Paging\n" +
+                "  def home; end\n" +
+                "end\n" +
+                "module Searchable\n" +
+                "  include Exporting\n" +
+                "  def search; end\n" +
+                "end\n" +
+                "module Exporting\n" +
+                "  def export; end\n" +
+                "end\n" +
+                "module Admin\n" +
+                "  module Paging\n" +
+                "    def page; end\n" +
+                "  end\n" +
+                "end\n");
+
+        assertStatus(infos, RailsActionInfo.INDEXED_ACTION, "index");
+        assertStatus(infos, RailsActionInfo.INDEXED_METHOD, "find_user");
+        assertStatus(infos, RailsActionInfo.INDEXED_ACTION, "search");
+        assertStatus(infos, RailsActionInfo.INDEXED_ACTION, "export");
+        assertStatus(infos, RailsActionInfo.INDEXED_ACTION, "page");
+        assertStatus(infos, RailsActionInfo.INDEXED_ACTION, "home");
+        assertStatus(infos, RailsActionInfo.INDEXED_CONTROLLER, "missing");
+
+        assertEquals(RailsActionInfo.INDEXED_UNKNOWN, ControllerInfo.findActionStatus(
+                "Admin::PostsController", "index", infos::get));
+    }
+
+
+    @Test
+    public void testCyclicInheritanceDoesNotHang()
+    {
+        Map<String, ControllerInfo> infos = scan(
+                "class AController < BController\n  include M\nend\n" +
+                "class BController < AController; end\n" +
+                "module M\n  include M\nend\n");
+
+        assertEquals(RailsActionInfo.INDEXED_CONTROLLER,
+                ControllerInfo.findActionStatus("AController", "index", infos::get));
+    }
+
+
+    private static void assertStatus(Map<String, ControllerInfo> infos, int status, String action)
+    {
+        assertEquals(action, status, ControllerInfo.findActionStatus(
+                "Admin::UsersController", action, infos::get));
+    }
+
+
+    private static Map<String, ControllerInfo> scan(String text)
+    {
+        Map<String, ControllerInfo> result = new HashMap<>();
+        for (ControllerInfo info : ControllerSourceScanner.scan(text))
+            result.put(info.getQualifiedName(), info);
+
+        return result;
+    }
+}
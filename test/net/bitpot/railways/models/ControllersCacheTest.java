@@ -0,0 +1,137 @@
+package net.bitpot.railways.models;
+
+import net.bitpot.railways.models.routes.SimpleRoute;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.plugins.ruby.ruby.lang.psi.controlStructures.classes.RClass;
+import org.jetbrains.plugins.ruby.ruby.lang.psi.controlStructures.methods.RMethod;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests sharing of resolved controllers between routes.
+ */
+public class ControllersCacheTest
+{
+    @Test
+    public void testControllerIsResolvedOnce()
+    {
+        ControllersCache cache = new ControllersCache(null);
+        ControllersCache.Controller controller = cache.getController("admin/users");
+
+        assertEquals("Admin::UsersController", controller.getQualifiedName());
+        assertSame(controller, cache.getController("admin/users"));
+        assertNotSame(controller, cache.getController("users"));
+    }
+
+
+    @Test
+    public void testUnresolvedController()
+    {
+        ControllersCache cache = new ControllersCache(null);
+        SimpleRoute route = new SimpleRoute(null, RequestMethods.GET,
+                "/users(.:format)", "users", "users", "index");
+
+        route.updateActionStatus(cache);
+
+        assertNull(route.getActionInfo().getPsiClass());
+        assertNull(route.getActionInfo().getPsiMethod());
+        assertNull(cache.getController("users").findMethod("index"));
+    }
+
+
+    @Test
+    public void testValidResolvedActionIsNotSearchedAgain()
+    {
+        CountingControllersCache cache = new CountingControllersCache();
+        RailsActionInfo info = new RailsActionInfo();
+        info.copyFrom(resolvedAction("index"));
+
+        info.update(cache, "users", "index");
+
+        assertEquals(0, cache.lookups);
+        assertEquals("index", info.getPsiMethod().getName());
+    }
+
+
+    @Test
+    public void testRenamedActionIsSearchedAgain()
+    {
+        CountingControllersCache cache = new CountingControllersCache();
+        RailsActionInfo info = new RailsActionInfo();
+        info.copyFrom(resolvedAction("index"));
+
+        info.update(cache, "users", "show");
+
+        assertEquals(1, cache.lookups);
+        assertNull(info.getPsiMethod());
+    }
+
+
+    /**
+     * Returns action info with valid class and method, which are implemented
+     * by proxies, as PSI cannot be created without Rails application.
+     */
+    static RailsActionInfo resolvedAction(String actionName)
+    {
+        RClass psiClass = psiProxy(RClass.class, null);
+        RMethod psiMethod = psiProxy(RMethod.class, actionName);
+
+        RailsActionInfo info = new RailsActionInfo();
+        info.setResolved(psiClass, psiMethod);
+
+        return info;
+    }
+
+
+    private static <T> T psiProxy(Class<T> psiInterface, String name)
+    {
+        return psiInterface.cast(Proxy.newProxyInstance(psiInterface.getClassLoader(),
+                new Class<?>[] {psiInterface}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isValid":
+                            return true;
+                        case "getName":
+                            return name;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                }));
+    }
+
+
+    /**
+     * Cache without Rails application which counts controller lookups.
+     * Classes are considered valid without checking their qualified names.
+     */
+    static class CountingControllersCache extends ControllersCache
+    {
+        int lookups = 0;
+
+        CountingControllersCache()
+        {
+            super(null);
+        }
+
+        @NotNull
+        @Override
+        public Controller getController(@NotNull String shortName)
+        {
+            lookups++;
+            return super.getController(shortName);
+        }
+
+        @Override
+        boolean isControllerClass(@NotNull RClass psiClass, @NotNull String shortName)
+        {
+            return psiClass.isValid();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package net.bitpot.railways.models;
+
+import net.bitpot.railways.models.routes.SimpleRoute;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests for fuzzy matching and ranking of routes.
+ */
+public class FuzzyMatcherTest
+{
+    @Test
+    public void testMatchesCharactersInOrder()
+    {
+        FuzzyMatcher matcher = new FuzzyMatcher("ausi");
+
+        assertTrue(matcher.score("admin/users#index") != FuzzyMatcher.NO_MATCH);
+        assertEquals(FuzzyMatcher.NO_MATCH, matcher.score("users#admin"));
+        assertEquals(FuzzyMatcher.NO_MATCH, new FuzzyMatcher("").score("users"));
+    }
+
+
+    @Test
+    public void testSegmentStartsAreScoredHigher()
+    {
+        FuzzyMatcher matcher = new FuzzyMatcher("un");
+
+        assertTrue(matcher.score("/users/new") > matcher.score("/sunny"));
+        assertTrue(matcher.score("/users/new") > matcher.score("/runner/new"));
+    }
+
+
+    @Test
+    public void testConsecutiveCharactersAreScoredHigher()
+    {
+        FuzzyMatcher matcher = new FuzzyMatcher("user");
+
+        assertTrue(matcher.score("/users") > matcher.score("/u/s/e/r"));
+    }
+
+
+    @Test
+    public void testRegions()
+    {
+        FuzzyMatcher matcher = new FuzzyMatcher("us*ne");
+
+        assertArrayEquals(new int[] {1, 3, 7, 9}, matcher.findRegions("/users/new"));
+        assertNull(matcher.findRegions("/posts"));
+    }
+
+
+    @Test
+    public void testMatchIsTightened()
+    {
+        // The first 'a' is skipped, as "ab" is closer to "b".
+        assertArrayEquals(new int[] {4, 6}, new FuzzyMatcher("ab").findRegions("a---ab"));
+    }
+
+
+    @Test
+    public void testRankedRoutes()
+    {
+        RouteList routes = new RouteList();
+        routes.add(route("/sunny(.:format)", "sunny", "sun#index"));
+        routes.add(route("/users/new(.:format)", "new_user", "users#new"));
+        routes.add(route("/posts(.:format)", "posts", "posts#index"));
+        routes.add(route("/u/n(.:format)", "", "u#n"));
+
+        for (int i = 0; i < RouteTableModel.RANKED_ROUTES_LIMIT; i++)
+            routes.add(route("/runner" + i, "", "runners#run"));
+
+        RouteTableModel model = new RouteTableModel();
+        model.setRoutes(routes);
+        model.getFilter().setFuzzyMatching(true);
+        model.getFilter().setFilterText("un");
+
+        assertEquals(RouteTableModel.RANKED_ROUTES_LIMIT, model.getRowCount());
+        assertEquals("/u/n(.:format)", model.getRoute(0).getPath());
+        assertEquals("/users/new(.:format)", model.getRoute(1).getPath());
+
+        model.getFilter().setFuzzyMatching(false);
+        assertEquals(RouteTableModel.RANKED_ROUTES_LIMIT + 1, model.getRowCount());
+        assertEquals("/sunny(.:format)", model.getRoute(0).getPath());
+    }
+
+
+    private static Route route(String path, String name, String action)
+    {
+        String[] parts = action.split("#");
+        return new SimpleRoute(null, RequestMethods.GET, path, name, parts[0], parts[1]);
+    }
+}
@@ -0,0 +1,95 @@
+package net.bitpot.railways.models;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.LightVirtualFile;
+import net.bitpot.railways.models.routes.RedirectRoute;
+import net.bitpot.railways.models.routes.SimpleRoute;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests lookup of controllers which depend on changed files.
+ */
+public class RouteDependencyIndexTest
+{
+    private final VirtualFile usersFile = new LightVirtualFile("users_controller.rb");
+    private final VirtualFile appFile = new LightVirtualFile("application_controller.rb");
+    private final VirtualFile concernFile = new LightVirtualFile("searchable.rb");
+    private final VirtualFile specFile = new LightVirtualFile("users_spec.rb");
+
+    private RouteDependencyIndex index;
+
+
+    @Before
+    public void setUp()
+    {
+        index = new RouteDependencyIndex();
+        index.setControllerFiles("users", Arrays.asList(usersFile, appFile, concernFile));
+        index.setControllerFiles("admin/posts", Collections.singletonList(appFile));
+    }
+
+
+    @Test
+    public void testControllersOfChangedFile()
+    {
+        assertEquals(Collections.singleton("users"), index.findControllers(usersFile));
+        assertEquals(Collections.singleton("users"), index.findControllers(concernFile));
+        assertEquals(new HashSet<>(Arrays.asList("users", "admin/posts")),
+                index.findControllers(appFile));
+    }
+
+
+    @Test
+    public void testUnrelatedFileAffectsNothing()
+    {
+        assertTrue(index.findControllers(specFile).isEmpty());
+    }
+
+
+    @Test
+    public void testCreatedControllerFileIsFoundByName()
+    {
+        index.setControllerFiles("admin/comments", Collections.emptyList());
+
+        VirtualFile createdFile = new LightVirtualFile("comments_controller.rb");
+        assertEquals(Collections.singleton("admin/comments"),
+                index.findControllers(createdFile));
+    }
+
+
+    @Test
+    public void testControllerFilesAreReplaced()
+    {
+        index.setControllerFiles("users", Collections.singletonList(usersFile));
+
+        assertTrue(index.findControllers(concernFile).isEmpty());
+        assertEquals(Collections.singleton("admin/posts"), index.findControllers(appFile));
+
+        index.clear();
+        assertTrue(index.findControllers(usersFile).isEmpty());
+    }
+
+
+    @Test
+    public void testRoutesOfControllers()
+    {
+        RouteList routes = new RouteList();
+        routes.add(new SimpleRoute(null, RequestMethods.GET, "/users", "users", "users", "index"));
+        routes.add(new SimpleRoute(null, RequestMethods.GET, "/posts", "posts", "posts", "index"));
+        routes.add(new RedirectRoute(null, RequestMethods.GET, "/old_users", "", "/users"));
+        routes.add(new SimpleRoute(null, RequestMethods.POST, "/users", "", "users", "create"));
+
+        RouteList found = RouteDependencyIndex.findRoutes(routes, Collections.singleton("users"));
+
+        assertEquals(2, found.size());
+        assertSame(routes.get(0), found.get(0));
+        assertSame(routes.get(3), found.get(1));
+    }
+}
@@ -0,0 +1,155 @@
+package net.bitpot.railways.models;
+
+import net.bitpot.railways.models.routes.EngineRoute;
+import net.bitpot.railways.models.routes.RedirectRoute;
+import net.bitpot.railways.models.routes.SimpleRoute;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests facets of routes filter.
+ */
+public class RouteFacetIndexTest
+{
+    private RouteList routes;
+    private RouteTableModel model;
+
+
+    @Before
+    public void setUp()
+    {
+        RailsEngine engine = new RailsEngine("Blog::Engine", "/blog", "Blog");
+        Route engineRoute = new SimpleRoute(null, RequestMethods.POST,
+                "/blog/posts(.:format)", "posts", "blog/posts", "create");
+        engineRoute.setParentEngine(engine);
+
+        routes = new RouteList();
+        routes.add(new SimpleRoute(null, RequestMethods.GET, "/users(.:format)", "users", "users", "index"));
+        routes.add(new SimpleRoute(null, RequestMethods.POST, "/users(.:format)", "", "users", "create"));
+        routes.add(new RedirectRoute(null, RequestMethods.GET, "/old_users", "", "/users"));
+        routes.add(new EngineRoute(null, RequestMethods.ANY, "/blog", "blog", "Blog::Engine"));
+        routes.add(engineRoute);
+
+        model = new RouteTableModel();
+        model.setRoutes(routes);
+    }
+
+
+    @Test
+    public void testNoFacetsAreActiveByDefault()
+    {
+        assertNull(new RouteFacetIndex(routes).find(model.getFilter()));
+        assertEquals(5, model.getRowCount());
+    }
+
+
+    @Test
+    public void testRequestMethods()
+    {
+        RoutesFilter filter = model.getFilter();
+
+        filter.setRequestMethodVisible(RequestMethods.GET, false);
+        assertEquals(3, model.getRowCount());
+
+        filter.setRequestMethodVisible(RequestMethods.POST, false);
+        assertEquals(1, model.getRowCount());
+        assertTrue(model.getRoute(0) instanceof EngineRoute);
+
+        filter.setRequestMethodVisible(RequestMethods.GET, true);
+        filter.setRequestMethodVisible(RequestMethods.POST, true);
+        assertEquals(5, model.getRowCount());
+    }
+
+
+    @Test
+    public void testKindFacets()
+    {
+        RoutesFilter filter = model.getFilter();
+
+        filter.setFacetEnabled(RoutesFilter.FACET_REDIRECTS, true);
+        assertEquals(1, model.getRowCount());
+        assertEquals("/old_users", model.getRoute(0).getPath());
+
+        filter.setFacetEnabled(RoutesFilter.FACET_REDIRECTS, false);
+        filter.setFacetEnabled(RoutesFilter.FACET_ENGINE_ROUTES, true);
+        assertEquals(1, model.getRowCount());
+        assertEquals("/blog", model.getRoute(0).getPath());
+
+        // Actions which weren't searched yet are not unresolved.
+        filter.setFacetEnabled(RoutesFilter.FACET_ENGINE_ROUTES, false);
+        filter.setFacetEnabled(RoutesFilter.FACET_UNRESOLVED_ACTIONS, true);
+        assertEquals(0, model.getRowCount());
+    }
+
+
+    @Test
+    public void testActionsAreUnresolvedAfterSearch()
+    {
+        RoutesFilter filter = model.getFilter();
+        filter.setFacetEnabled(RoutesFilter.FACET_UNRESOLVED_ACTIONS, true);
+
+        // Nothing is found for the first route, others are not searched.
+        ((SimpleRoute) routes.get(0)).getActionInfo().setResolved(null, null);
+        model.actionStatusChanged();
+
+        assertEquals(1, model.getRowCount());
+        assertEquals("/users(.:format)", model.getRoute(0).getPath());
+    }
+
+
+    @Test
+    public void testRoutesFoundInIndexAreResolved()
+    {
+        RoutesFilter filter = model.getFilter();
+        filter.setFacetEnabled(RoutesFilter.FACET_UNRESOLVED_ACTIONS, true);
+
+        ((SimpleRoute) routes.get(0)).getActionInfo().setIndexedStatus(RailsActionInfo.INDEXED_ACTION);
+        ((SimpleRoute) routes.get(1)).getActionInfo().setIndexedStatus(RailsActionInfo.INDEXED_METHOD);
+        ((SimpleRoute) routes.get(4)).getActionInfo().setIndexedStatus(RailsActionInfo.INDEXED_CONTROLLER);
+        model.actionStatusChanged();
+
+        assertEquals(1, model.getRowCount());
+        assertEquals("/blog/posts(.:format)", model.getRoute(0).getPath());
+    }
+
+
+    @Test
+    public void testFacetsAreCombinedWithText()
+    {
+        RoutesFilter filter = model.getFilter();
+
+        filter.setMountedRoutesVisible(false);
+        filter.setFilterText("posts");
+        assertEquals(0, model.getRowCount());
+
+        filter.setMountedRoutesVisible(true);
+        assertEquals(1, model.getRowCount());
+
+        filter.setFilterText("users");
+        filter.setRequestMethodVisible(RequestMethods.GET, false);
+        assertEquals(1, model.getRowCount());
+        assertEquals("create", ((SimpleRoute) model.getRoute(0)).getActionName());
+
+        // Narrowed routes keep facets.
+        filter.setFilterText("users(");
+        assertEquals(1, model.getRowCount());
+    }
+
+
+    @Test
+    public void testVerbSets()
+    {
+        RouteFacetIndex index = new RouteFacetIndex(routes);
+        BitSet get = index.getVerbRoutes(RequestMethods.GET);
+
+        assertEquals(2, get.cardinality());
+        assertTrue(get.get(0));
+        assertTrue(get.get(2));
+        assertTrue(index.getVerbRoutes(RequestMethods.PATCH).isEmpty());
+    }
+}
@@ -0,0 +1,68 @@
+package net.bitpot.railways.models;
+
+import net.bitpot.railways.models.routes.SimpleRoute;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests reuse of routes and their action info on route list refresh.
+ */
+public class RouteListDiffTest
+{
+    @Test
+    public void testChangedRouteTakesActionOfPreviousRoute()
+    {
+        SimpleRoute previousRoute = route("/users(.:format)", "users", "index");
+        previousRoute.getActionInfo().copyFrom(ControllersCacheTest.resolvedAction("index"));
+
+        RouteList previousRoutes = new RouteList();
+        previousRoutes.add(previousRoute);
+
+        // Path and name are changed, but controller and action are the same.
+        SimpleRoute changedRoute = route("/people(.:format)", "people", "index");
+        RouteList routes = new RouteList();
+        routes.add(changedRoute);
+
+        RouteListDiff.reuseRoutes(routes, previousRoutes);
+
+        assertSame(changedRoute, routes.get(0));
+        assertSame(previousRoute.getActionInfo().getPsiClass(),
+                changedRoute.getActionInfo().getPsiClass());
+        assertSame(previousRoute.getActionInfo().getPsiMethod(),
+                changedRoute.getActionInfo().getPsiMethod());
+    }
+
+
+    @Test
+    public void testTakenActionIsNotSearchedAgain()
+    {
+        SimpleRoute previousRoute = route("/users(.:format)", "users", "index");
+        previousRoute.getActionInfo().copyFrom(ControllersCacheTest.resolvedAction("index"));
+
+        RouteList previousRoutes = new RouteList();
+        previousRoutes.add(previousRoute);
+
+        RouteList routes = new RouteList();
+        routes.add(route("/people(.:format)", "people", "index"));
+        routes.add(route("/users/new(.:format)", "new_user", "new"));
+
+        RouteListDiff.reuseRoutes(routes, previousRoutes);
+
+        ControllersCacheTest.CountingControllersCache cache =
+                new ControllersCacheTest.CountingControllersCache();
+        for (Route route : routes)
+            route.updateActionStatus(cache);
+
+        // Only the route with other action is searched.
+        assertEquals(1, cache.lookups);
+        assertNotNull(((SimpleRoute) routes.get(0)).getActionInfo().getPsiMethod());
+    }
+
+
+    private static SimpleRoute route(String path, String name, String action)
+    {
+        return new SimpleRoute(null, RequestMethods.GET, path, name, "users", action);
+    }
+}
@@ -0,0 +1,146 @@
+package net.bitpot.railways.models;
+
+import net.bitpot.railways.models.requestMethods.RequestMethod;
+import net.bitpot.railways.models.routes.EngineRoute;
+import net.bitpot.railways.models.routes.SimpleRoute;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests resolution of concrete URLs to routes.
+ */
+public class RoutePathTrieTest
+{
+    private RouteList routes;
+    private RoutePathTrie trie;
+
+
+    @Before
+    public void setUp()
+    {
+        routes = new RouteList();
+        routes.add(route(RequestMethods.GET, "/admin/users(.:format)", "admin/users#index"));
+        routes.add(route(RequestMethods.GET, "/admin/users/new(.:format)", "admin/users#new"));
+        routes.add(route(RequestMethods.GET, "/admin/users/:id/edit(.:format)", "admin/users#edit"));
+        routes.add(route(RequestMethods.GET, "/admin/users/:id(.:format)", "admin/users#show"));
+        routes.add(route(RequestMethods.PUT, "/admin/users/:id(.:format)", "admin/users#update"));
+        routes.add(route(RequestMethods.GET, "/", "home#index"));
+        routes.add(route(RequestMethods.GET, "/posts(/:year(/:month))(.:format)", "posts#index"));
+        routes.add(route(RequestMethods.GET, "/files/*path", "files#show"));
+        routes.add(new EngineRoute(null, RequestMethods.ANY, "/blog", "blog", "Blog::Engine"));
+
+        trie = new RoutePathTrie(routes);
+    }
+
+
+    @Test
+    public void testParametersAndFormat()
+    {
+        assertMatches("/admin/users/42/edit.json", 2);
+        assertMatches("/admin/users/42", 3, 4);
+        assertMatches("/admin/users", 0);
+        assertMatches("/admin/users.xml", 0);
+        assertMatches("/admin/users/42/edit/1");
+    }
+
+
+    @Test
+    public void testPrecedence()
+    {
+        // "new" also matches :id parameter, but "new" route is the first.
+        BitSet result = trie.find("/admin/users/new");
+        assertEquals(1, result.nextSetBit(0));
+        assertTrue(result.get(3));
+    }
+
+
+    @Test
+    public void testNestedOptionalParts()
+    {
+        assertMatches("/posts", 6);
+        assertMatches("/posts/2024", 6);
+        assertMatches("/posts/2024/05.json", 6);
+        assertMatches("/posts/2024/05/01");
+    }
+
+
+    @Test
+    public void testGlobsAndMounts()
+    {
+        assertMatches("/files/docs/readme.txt", 7);
+        assertMatches("/files");
+        assertMatches("/blog", 8);
+        assertMatches("/blog/posts/1", 8);
+        assertMatches("/blogs");
+        assertMatches("/", 5);
+    }
+
+
+    @Test
+    public void testUrlToPath()
+    {
+        assertEquals("/admin/users/42", RoutePathTrie.toPath("http://localhost:3000/Admin/users/42/?page=2#top"));
+        assertEquals("/", RoutePathTrie.toPath("https://example.com"));
+        assertEquals("/users", RoutePathTrie.toPath("users"));
+        assertEquals("/", RoutePathTrie.toPath("/"));
+    }
+
+
+    @Test
+    public void testUrlClause()
+    {
+        RouteTableModel model = new RouteTableModel();
+        model.setRoutes(routes);
+
+        model.getFilter().setFilterText("url:/admin/users/42.json");
+        assertEquals(2, model.getRowCount());
+
+        model.getFilter().setFilterText("url:/admin/users/42.json verb:put");
+        assertEquals(1, model.getRowCount());
+        assertEquals("update", ((SimpleRoute) model.getRoute(0)).getActionName());
+
+        RouteQuery query = new RouteQuery("url:/admin/users/42/edit");
+        for (int i = 0; i < routes.size(); i++)
+            assertEquals(i == 2, query.matchesClauses(routes.get(i)));
+    }
+
+
+    @Test
+    public void testUrlClauseWithFuzzyRanking()
+    {
+        RouteTableModel model = new RouteTableModel();
+        model.setRoutes(routes);
+        model.getFilter().setFuzzyMatching(true);
+
+        // Ranked routes are scored only by text, url clause is applied by
+        // the field index.
+        model.getFilter().setFilterText("url:/admin/users/42.json upd");
+        assertEquals(1, model.getRowCount());
+        assertEquals("update", ((SimpleRoute) model.getRoute(0)).getActionName());
+
+        model.getFilter().setFilterText("url:/admin/users/42.json edit");
+        assertEquals(0, model.getRowCount());
+    }
+
+
+    private void assertMatches(String url, int... expected)
+    {
+        BitSet result = trie.find(RoutePathTrie.toPath(url));
+
+        assertEquals(url, expected.length, result.cardinality());
+        for (int i : expected)
+            assertTrue(url, result.get(i));
+    }
+
+
+    private static Route route(RequestMethod method, String path, String action)
+    {
+        String[] parts = action.split("#");
+        return new SimpleRoute(null, method, path, "", parts[0], parts[1]);
+    }
+}
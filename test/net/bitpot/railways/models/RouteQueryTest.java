@@ -0,0 +1,152 @@
+package net.bitpot.railways.models;
+
+import net.bitpot.railways.models.routes.SimpleRoute;
+import net.bitpot.railways.parser.RailsRoutesParser;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests parsing of field clauses and their matching by field indexes.
+ */
+public class RouteQueryTest
+{
+    private RouteList routes;
+    private RouteTableModel model;
+
+
+    @Before
+    public void setUp() throws IOException
+    {
+        String output = new String(Files.readAllBytes(
+                Paths.get("test/data/TableModelFilterTest.data.txt")), StandardCharsets.UTF_8);
+
+        routes = new RailsRoutesParser().parse(output, null);
+
+        RailsEngine engine = new RailsEngine("Blog::Engine", "/blog", "Blog");
+        Route engineRoute = new SimpleRoute(null, RequestMethods.GET,
+                "/blog/posts(.:format)", "posts", "blog/posts", "index");
+        engineRoute.setParentEngine(engine);
+        routes.add(engineRoute);
+
+        model = new RouteTableModel();
+        model.setRoutes(routes);
+    }
+
+
+    @Test
+    public void testParsing()
+    {
+        RouteQuery query = new RouteQuery("verb:get,post  users ctrl:admin/* unknown:field");
+
+        assertEquals("users unknown:field", query.getText());
+        assertEquals(2, query.getVerbs().size());
+        assertNotNull(query.getController());
+        assertNull(query.getName());
+        assertNull(query.getEngine());
+        assertTrue(query.hasClauses());
+
+        assertFalse(new RouteQuery("users verb:").hasClauses());
+    }
+
+
+    @Test
+    public void testVerbClause()
+    {
+        model.getFilter().setFilterText("verb:post");
+
+        // admin_root route has no request method, so it matches any verb.
+        assertEquals(8, model.getRowCount());
+        assertEquals("/addresses(.:format)", model.getRoute(0).getPath());
+
+        model.getFilter().setFilterText("verb:post,delete roads");
+        assertEquals(2, model.getRowCount());
+
+        model.getFilter().setFilterText("verb:pos");
+        assertEquals(0, model.getRowCount());
+    }
+
+
+    @Test
+    public void testControllerClause()
+    {
+        model.getFilter().setFilterText("ctrl:admin/*");
+        assertEquals(8, model.getRowCount());
+
+        model.getFilter().setFilterText("ctrl:admin/users new");
+        assertEquals(1, model.getRowCount());
+        assertEquals("new_admin_user", model.getRoute(0).getRouteName());
+
+        // Controller should match entirely.
+        model.getFilter().setFilterText("ctrl:users");
+        assertEquals(0, model.getRowCount());
+    }
+
+
+    @Test
+    public void testNameClause()
+    {
+        model.getFilter().setFilterText("name:new_*_path");
+        assertEquals(6, model.getRowCount());
+
+        model.getFilter().setFilterText("name:road_url");
+        assertEquals(1, model.getRowCount());
+        assertEquals("/roads/:id(.:format)", model.getRoute(0).getPath());
+    }
+
+
+    @Test
+    public void testEngineClause()
+    {
+        model.getFilter().setFilterText("engine:any");
+        assertEquals(1, model.getRowCount());
+
+        model.getFilter().setFilterText("engine:b*");
+        assertEquals(1, model.getRowCount());
+
+        model.getFilter().setFilterText("engine:none");
+        assertEquals(routes.size() - 1, model.getRowCount());
+    }
+
+
+    @Test
+    public void testIndexMatchesClauses()
+    {
+        RouteFieldIndex index = new RouteFieldIndex(routes);
+        String[] queries = {"verb:get", "verb:put,delete", "ctrl:*s", "ctrl:a*/u*",
+                "name:*user*", "name:edit_*", "engine:none verb:get", "engine:blog",
+                "ctrl:sessions name:*session"};
+
+        for (String text : queries) {
+            RouteQuery query = new RouteQuery(text);
+            BitSet matches = index.find(query);
+
+            for (int i = 0; i < routes.size(); i++)
+                assertEquals(text + " at " + i, query.matchesClauses(routes.get(i)), matches.get(i));
+        }
+
+        assertNull(index.find(new RouteQuery("users")));
+    }
+
+
+    @Test
+    public void testMatchesEntirely()
+    {
+        assertTrue(new WildcardMatcher("admin/*").matchesEntirely("admin/users"));
+        assertFalse(new WildcardMatcher("admin/*").matchesEntirely("super_admin/users"));
+        assertTrue(new WildcardMatcher("*_user").matchesEntirely("new_user"));
+        assertFalse(new WildcardMatcher("*_user").matchesEntirely("new_users"));
+        assertTrue(new WildcardMatcher("a*b*c").matchesEntirely("abc"));
+        assertFalse(new WildcardMatcher("ab*ba").matchesEntirely("aba"));
+        assertTrue(new WildcardMatcher("*").matchesEntirely(""));
+        assertFalse(new WildcardMatcher("users").matchesEntirely("users2"));
+    }
+}
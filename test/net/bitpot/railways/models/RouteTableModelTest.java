@@ -0,0 +1,206 @@
+package net.bitpot.railways.models;
+
+import net.bitpot.railways.parser.RailsRoutesParser;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.event.TableModelEvent;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests incremental updates of routes table model.
+ */
+public class RouteTableModelTest
+{
+    private static final String ROAD_ROUTE_LINE =
+            "                    new_road GET    /roads/new(.:format)                                     {:action=>\"new\", :controller=>\"roads\"}\n";
+
+    private String output;
+    private RouteTableModel model;
+    private final List<TableModelEvent> events = new ArrayList<>();
+
+
+    @Before
+    public void setUp() throws IOException
+    {
+        output = new String(Files.readAllBytes(
+                Paths.get("test/data/TableModelFilterTest.data.txt")), StandardCharsets.UTF_8);
+        assertTrue(output.contains(ROAD_ROUTE_LINE));
+
+        model = new RouteTableModel();
+        model.setRoutes(parse(output));
+        model.addTableModelListener(events::add);
+    }
+
+
+    @Test
+    public void testUnchangedRoutesAreReused()
+    {
+        RouteList oldRoutes = copyRows();
+        RouteList newRoutes = parse(output);
+        RouteListDiff.reuseRoutes(newRoutes, oldRoutes);
+
+        model.setRoutes(newRoutes);
+
+        assertTrue(events.isEmpty());
+        for (int i = 0; i < oldRoutes.size(); i++)
+            assertSame(oldRoutes.get(i), model.getRoute(i));
+    }
+
+
+    @Test
+    public void testChangedRouteUpdatesOneRow()
+    {
+        RouteList oldRoutes = copyRows();
+        int row = findRow("/roads/new(.:format)");
+
+        model.setRoutes(parseReused(output.replace(ROAD_ROUTE_LINE,
+                ROAD_ROUTE_LINE.replace("/roads/new", "/roads/add")), oldRoutes));
+
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), TableModelEvent.UPDATE, row, row);
+        assertEquals("/roads/add(.:format)", model.getRoute(row).getPath());
+        assertSame(oldRoutes.get(row - 1), model.getRoute(row - 1));
+        assertSame(oldRoutes.get(row + 1), model.getRoute(row + 1));
+    }
+
+
+    @Test
+    public void testAddedAndRemovedRoutes()
+    {
+        RouteList oldRoutes = copyRows();
+        int row = findRow("/roads/new(.:format)");
+
+        model.setRoutes(parseReused(output.replace(ROAD_ROUTE_LINE, ""), oldRoutes));
+
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), TableModelEvent.DELETE, row, row);
+        assertEquals(oldRoutes.size() - 1, model.getRowCount());
+
+        events.clear();
+        model.setRoutes(parseReused(output, copyRows()));
+
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), TableModelEvent.INSERT, row, row);
+        assertEquals(oldRoutes.size(), model.getRowCount());
+    }
+
+
+    @Test
+    public void testTypingNarrowsFilteredRoutes()
+    {
+        for (String text : new String[] {"a", "ad", "adm", "adm*us", "adm*use", "adm", "", "s*new"}) {
+            model.getFilter().setFilterText(text);
+            assertFilteredRoutes(text, false);
+        }
+
+        model.getFilter().setMountedRoutesVisible(false);
+        model.getFilter().setFilterText("s*new*");
+        assertFilteredRoutes("s*new*", true);
+    }
+
+
+    @Test
+    public void testUpdatedRoutesRepaintOnlyTheirRows()
+    {
+        model.getFilter().setFilterText("roads");
+        events.clear();
+
+        RouteList batch = new RouteList();
+        batch.add(model.getRoute(1));
+        batch.add(model.getRoute(2));
+        // Route which is filtered out doesn't affect updated rows.
+        batch.add(parse(output).get(0));
+
+        model.routesUpdated(batch);
+
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), TableModelEvent.UPDATE, 1, 2);
+
+        events.clear();
+        model.routesUpdated(new RouteList());
+        assertTrue(events.isEmpty());
+    }
+
+
+    @Test
+    public void testAppliedFilterIsCopiedFromFilterPass()
+    {
+        model.getFilter().setFilterText("roads");
+
+        RoutesFilter applied = model.getAppliedFilter();
+        assertNotSame(model.getFilter(), applied);
+        assertEquals("roads", applied.getFilterText());
+        assertEquals(model.getFilter().getGeneration(), applied.getGeneration());
+
+        // Filter of shown rows isn't changed by later changes of the filter.
+        model.getFilter().setFilterText("users");
+        assertEquals("roads", applied.getFilterText());
+        assertEquals("users", model.getAppliedFilter().getFilterText());
+    }
+
+
+    private void assertFilteredRoutes(String text, boolean mountedRoutesHidden)
+    {
+        RouteTableModel expected = new RouteTableModel();
+        expected.setRoutes(parse(output));
+        expected.getFilter().setMountedRoutesVisible(!mountedRoutesHidden);
+        expected.getFilter().setFilterText(text);
+
+        assertEquals(text, expected.getRowCount(), model.getRowCount());
+        for (int i = 0; i < model.getRowCount(); i++)
+            assertEquals(text, expected.getRoute(i).getPath(), model.getRoute(i).getPath());
+    }
+
+
+    private static RouteList parse(String output)
+    {
+        return new RailsRoutesParser().parse(output, null);
+    }
+
+
+    private static RouteList parseReused(String output, RouteList previousRoutes)
+    {
+        RouteList routes = parse(output);
+        RouteListDiff.reuseRoutes(routes, previousRoutes);
+
+        return routes;
+    }
+
+
+    private RouteList copyRows()
+    {
+        RouteList routes = new RouteList();
+        for (int i = 0; i < model.getRowCount(); i++)
+            routes.add(model.getRoute(i));
+
+        return routes;
+    }
+
+
+    private int findRow(String path)
+    {
+        for (int i = 0; i < model.getRowCount(); i++)
+            if (model.getRoute(i).getPath().equals(path))
+                return i;
+
+        fail("Route not found: " + path);
+        return -1;
+    }
+
+
+    private static void assertEvent(TableModelEvent event, int type, int firstRow, int lastRow)
+    {
+        assertEquals(type, event.getType());
+        assertEquals(firstRow, event.getFirstRow());
+        assertEquals(lastRow, event.getLastRow());
+    }
+}
@@ -0,0 +1,77 @@
+package net.bitpot.railways.models;
+
+import net.bitpot.railways.parser.RailsRoutesParser;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests narrowing of routes by trigram index.
+ */
+public class RouteTrigramIndexTest
+{
+    private RouteList routes;
+    private RouteTrigramIndex index;
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        RailsRoutesParser parser = new RailsRoutesParser();
+        routes = parser.parse(new FileInputStream("test/data/TableModelFilterTest.data.txt"));
+        index = new RouteTrigramIndex(routes);
+    }
+
+
+    @Test
+    public void testShortFilterIsNotNarrowed()
+    {
+        assertNull(index.findCandidates(""));
+        assertNull(index.findCandidates("us"));
+        assertNull(index.findCandidates("a*b*cd"));
+    }
+
+
+    @Test
+    public void testCandidatesContainAllMatchedRoutes()
+    {
+        for (String text : Arrays.asList("user", "#search", "SEarcH", "roads/:id",
+                "admin*users", "/password(", "sess*new", "nothing"))
+            assertCandidatesMatch(text);
+    }
+
+
+    @Test
+    public void testCandidatesAreNarrowed()
+    {
+        int[] candidates = index.findCandidates("localit");
+
+        assertNotNull(candidates);
+        assertEquals(4, candidates.length);
+
+        candidates = index.findCandidates("xyz");
+        assertNotNull(candidates);
+        assertEquals(0, candidates.length);
+    }
+
+
+    private void assertCandidatesMatch(String text)
+    {
+        RouteTableModel model = new RouteTableModel();
+        RoutesFilter filter = model.getFilter();
+        filter.setFilterText(text);
+
+        int[] candidates = index.findCandidates(filter.getFilterText());
+        assertNotNull(candidates);
+
+        for (int i = 0; i < routes.size(); i++)
+            if (filter.match(routes.get(i)))
+                assertTrue(text + ": " + routes.get(i).getPath(),
+                        Arrays.binarySearch(candidates, i) >= 0);
+    }
+}
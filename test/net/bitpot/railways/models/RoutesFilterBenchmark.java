@@ -0,0 +1,89 @@
+package net.bitpot.railways.models;
+
+import net.bitpot.railways.models.routes.SimpleRoute;
+
+
+/**
+ * Measures time of filtering a large route list and of building route
+ * strings which are shown in the table and navigation popup. It's not a
+ * test, run it as a Java application.
+ */
+public class RoutesFilterBenchmark
+{
+    private static final int ROUTES_COUNT = 20000;
+    private static final int ITERATIONS = 20;
+
+    private static final String[] FILTER_TEXTS =
+            {"u", "us", "use", "user", "users", "users#", "users#e", "users#ed"};
+
+
+    public static void main(String[] args)
+    {
+        // Warm up JIT before measuring.
+        run(false);
+        run(true);
+    }
+
+
+    private static void run(boolean isReported)
+    {
+        long filterTime = 0;
+        long stringsTime = 0;
+        int rows = 0;
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            // Routes are created on every iteration, as they are after
+            // routes update, so no strings are cached yet.
+            RouteList routes = createRoutes();
+            RouteTableModel model = new RouteTableModel();
+            model.setRoutes(routes);
+
+            long start = System.nanoTime();
+            for (String text : FILTER_TEXTS) {
+                model.getFilter().setFilterText(text);
+                rows += model.getRowCount();
+            }
+            filterTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int j = 0; j < 5; j++)
+                for (Route route : routes)
+                    rows += route.getActionTitle().length() +
+                            route.getQualifiedActionTitle().length() +
+                            route.getRouteName().length() +
+                            route.getPathWithMethod().length();
+            stringsTime += System.nanoTime() - start;
+        }
+
+        if (isReported) {
+            System.out.printf("Filtering: %.2f ms per route list%n",
+                    filterTime / 1e6 / ITERATIONS);
+            System.out.printf("Route strings: %.2f ms per route list%n",
+                    stringsTime / 1e6 / ITERATIONS);
+            System.out.println("Checksum: " + rows);
+        }
+    }
+
+
+    private static RouteList createRoutes()
+    {
+        RailsEngine engine = new RailsEngine("Blog::Engine", "/blog", "blog");
+        RouteList routes = new RouteList();
+
+        for (int i = 0; i < ROUTES_COUNT; i++) {
+            String controller = (i % 3 == 0 ? "admin/" : "") + "resource" + (i / 7);
+            String action = new String[] {"index", "show", "new", "edit", "create",
+                    "update", "destroy"}[i % 7];
+
+            Route route = new SimpleRoute(null, RequestMethods.GET,
+                    "/" + controller + "/:id/" + action + "(.:format)",
+                    action + "_" + controller.replace('/', '_'), controller, action);
+            if (i % 10 == 0)
+                route.setParentEngine(engine);
+
+            routes.add(route);
+        }
+
+        return routes;
+    }
+}
@@ -1,12 +1,17 @@
 package net.bitpot.railways.models;
 
 import net.bitpot.railways.parser.RailsRoutesParser;
+import net.bitpot.railways.parser.route.HighlightSpans;
+import net.bitpot.railways.parser.route.TextChunkHighlighter;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.FileInputStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 
 /**
@@ -16,6 +21,10 @@ public class TableModelFilterTest
 {
     private RouteTableModel model;
 
+    // Number of times path highlight spans were found instead of taken
+    // from the cache.
+    private int spansSearchCount = 0;
+
 
     @Before
     public void setUp() throws Exception
@@ -78,6 +87,97 @@ public class TableModelFilterTest
         testFilterMatching("\\.[]{}()+-?^$|", "\\.[]{}()+-?^$|", "\\.[]{}()+-?^$|");
     }
 
+    @Test
+    public void testGenerationChangesWithHighlighting() {
+        RoutesFilter filter = model.getFilter();
+        int generation = filter.getGeneration();
+
+        filter.setFilterText("");
+        filter.setMountedRoutesVisible(false);
+        assertEquals(generation, filter.getGeneration());
+        assertEquals(generation, filter.copy().getGeneration());
+
+        filter.setFilterText("users");
+        assertTrue(generation != filter.getGeneration());
+
+        generation = filter.getGeneration();
+        filter.setFuzzyMatching(true);
+        assertTrue(generation != filter.getGeneration());
+
+        // Generations of different filters never match.
+        assertTrue(filter.getGeneration() != new RouteTableModel().getFilter().getGeneration());
+    }
+
+    @Test
+    public void testHighlightedSpansAreCachedForGeneration() {
+        RoutesFilter filter = model.getFilter();
+        filter.setFilterText("users/new");
+        Route route = model.getRoute(0);
+
+        HighlightSpans spans = getPathSpans(route);
+        assertSame(spans, getPathSpans(route));
+        assertEquals(1, spansSearchCount);
+        assertEquals("users/new", getHighlightedText(route, spans));
+
+        // Spans are found again when filter text is changed.
+        filter.setFilterText("new");
+        spans = getPathSpans(route);
+        assertEquals(2, spansSearchCount);
+        assertEquals("new", getHighlightedText(route, spans));
+
+        // ... and when fuzzy matching is switched.
+        filter.setFilterText("usnw");
+        assertEquals("", getHighlightedText(route, getPathSpans(route)));
+        assertEquals(3, spansSearchCount);
+
+        filter.setFuzzyMatching(true);
+        assertEquals("usnw", getHighlightedText(route, getPathSpans(route)));
+        assertEquals(4, spansSearchCount);
+
+        // Spans of action are cached separately.
+        route.setHighlightedActionSpans(filter.getGeneration(), spans);
+        assertSame(spans, route.getHighlightedActionSpans(filter.getGeneration()));
+
+        filter.setFuzzyMatching(false);
+        assertNull(route.getHighlightedActionSpans(filter.getGeneration()));
+    }
+
+    /**
+     * Returns highlight spans of route path in the same way as routes table
+     * renderer does, so spans are found only when they're not cached for
+     * current filter generation.
+     */
+    private HighlightSpans getPathSpans(Route route) {
+        RoutesFilter filter = model.getFilter();
+        int generation = filter.getGeneration();
+
+        HighlightSpans spans = route.getHighlightedPathSpans(generation);
+        if (spans == null) {
+            spansSearchCount++;
+
+            int[] regions = filter.isFuzzyMatching() ?
+                    filter.findFuzzyMatchRegions(route.getLowerCasePath()) :
+                    filter.findMatchRegions(route.getLowerCasePath());
+
+            spans = new HighlightSpans();
+            TextChunkHighlighter.findSpans(route.getPathChunks(),
+                    regions == null ? new int[0] : regions,
+                    regions == null ? 0 : regions.length, spans);
+            route.setHighlightedPathSpans(generation, spans);
+        }
+
+        return spans;
+    }
+
+    private static String getHighlightedText(Route route, HighlightSpans spans) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < spans.getSpanCount(); i++)
+            if (spans.isHighlighted(i))
+                sb.append(spans.getText(route.getPathChunks(), i));
+
+        return sb.toString();
+    }
+
     private void testFilterMatching(String subject, String filterText, String expected) {
         RoutesFilter filter = model.getFilter();
         filter.setFilterText(filterText);
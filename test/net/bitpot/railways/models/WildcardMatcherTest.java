@@ -0,0 +1,117 @@
+package net.bitpot.railways.models;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests for WildcardMatcher.
+ */
+public class WildcardMatcherTest
+{
+    @Test
+    public void testLiteralMatch()
+    {
+        WildcardMatcher matcher = new WildcardMatcher("Users");
+
+        assertMatch(matcher, "/admin/users/new(.:format)", "users");
+        assertFalse(matcher.matches("/admin/user/new"));
+    }
+
+
+    @Test
+    public void testWildcards()
+    {
+        assertMatch(new WildcardMatcher("users*new"), "/users/:id/new/users/x/new", "users/:id/new");
+        assertMatch(new WildcardMatcher("*new"), "/users/new", "/users/new");
+        assertMatch(new WildcardMatcher("users*"), "/users/new", "users");
+        assertMatch(new WildcardMatcher("**"), "/users/new", "");
+        assertMatch(new WildcardMatcher(""), "/users/new", "");
+        assertFalse(new WildcardMatcher("new*users").matches("/users/new"));
+    }
+
+
+    @Test
+    public void testFindAllMatches()
+    {
+        assertArrayEquals(new int[] {1, 6, 11, 16},
+                new WildcardMatcher("users").findAll("/users/:id/users/new"));
+        assertArrayEquals(new int[] {1, 3, 14, 19, 20, 23},
+                new WildcardMatcher("u*s").findAll("/users/:id/ss/u/x/s/uxs"));
+        assertArrayEquals(new int[] {0, 3, 3, 6, 6, 13, 13, 16},
+                new WildcardMatcher("*s").findAll("/users/:id/users"));
+        assertNull(new WildcardMatcher("edit").findAll("/users/new"));
+        assertNull(new WildcardMatcher("").findAll("/users/new"));
+    }
+
+
+    @Test
+    public void testSpecialCharsAreLiteral()
+    {
+        WildcardMatcher matcher = new WildcardMatcher("(.:format)");
+
+        assertMatch(matcher, "/users(.:format)", "(.:format)");
+        assertFalse(matcher.matches("/users/format"));
+    }
+
+
+    @Test
+    public void testToLowerCaseKeepsOffsets()
+    {
+        assertEquals("users#index", WildcardMatcher.toLowerCase("Users#Index"));
+
+        String text = "\u0130stanbul";
+        assertEquals(text.length(), WildcardMatcher.toLowerCase(text).length());
+    }
+
+
+    @Test
+    public void testSameMatchesAsRegex()
+    {
+        Random random = new Random(42);
+        String alphabet = "ab/*";
+
+        for (int i = 0; i < 2000; i++) {
+            String filter = randomString(random, alphabet, 5);
+            String text = randomString(random, "ab/", 12);
+
+            WildcardMatcher matcher = new WildcardMatcher(filter);
+            Matcher regex = Pattern.compile(filter.replace("*", ".*?")).matcher(text);
+
+            long match = matcher.find(text);
+            if (regex.find()) {
+                assertEquals(filter + " in " + text, regex.start(), WildcardMatcher.getMatchStart(match));
+                assertEquals(filter + " in " + text, regex.end(), WildcardMatcher.getMatchEnd(match));
+            } else
+                assertEquals(filter + " in " + text, WildcardMatcher.NO_MATCH, match);
+        }
+    }
+
+
+    private static String randomString(Random random, String alphabet, int maxLength)
+    {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+
+        for (int i = 0; i < length; i++)
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+
+        return sb.toString();
+    }
+
+
+    private static void assertMatch(WildcardMatcher matcher, String text, String expected)
+    {
+        String lowerCaseText = WildcardMatcher.toLowerCase(text);
+        long match = matcher.find(lowerCaseText);
+
+        assertTrue(match != WildcardMatcher.NO_MATCH);
+        assertEquals(expected, lowerCaseText.substring(WildcardMatcher.getMatchStart(match),
+                WildcardMatcher.getMatchEnd(match)));
+    }
+}
@@ -0,0 +1,43 @@
+package net.bitpot.railways.parser;
+
+
+/**
+ * Compares time of parallel and line by line parsing of large 'rake routes'
+ * output. Parallel parsing should be faster on multi-core machines. It's not
+ * a test, run it as a Java application.
+ */
+public class RailsRoutesParallelParsingBenchmark
+{
+    private static final int ITERATIONS = 5;
+
+
+    public static void main(String[] args)
+    {
+        // About 60000 lines in 1200 engine sections.
+        String output = RailsRoutesParserTest.generateEnginesOutput(1200, 50);
+
+        // Warm up JIT before measuring.
+        for (int i = 0; i < ITERATIONS; i++) {
+            RailsRoutesParserTest.parseLineByLine(output);
+            new RailsRoutesParser().parse(output, null);
+        }
+
+        long sequentialTime = Long.MAX_VALUE;
+        long parallelTime = Long.MAX_VALUE;
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            RailsRoutesParserTest.parseLineByLine(output);
+            sequentialTime = Math.min(sequentialTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            new RailsRoutesParser().parse(output, null);
+            parallelTime = Math.min(parallelTime, System.nanoTime() - start);
+        }
+
+        System.out.printf("Cores: %d%n", Runtime.getRuntime().availableProcessors());
+        System.out.printf("Line by line: %.2f ms%n", sequentialTime / 1e6);
+        System.out.printf("Parallel: %.2f ms (x%.1f faster)%n", parallelTime / 1e6,
+                (double) sequentialTime / parallelTime);
+    }
+}
@@ -0,0 +1,46 @@
+package net.bitpot.railways.parser;
+
+
+/**
+ * Measures time of parsing 'rake routes' output with many mounted engines,
+ * which should grow linearly with output size. It's not a test, run it as a
+ * Java application.
+ */
+public class RailsRoutesParserBenchmark
+{
+    private static final int ITERATIONS = 3;
+
+
+    public static void main(String[] args)
+    {
+        String smallOutput = RailsRoutesParserTest.generateEnginesOutput(100, 50);
+        String largeOutput = RailsRoutesParserTest.generateEnginesOutput(800, 50);
+
+        // Warm up JIT before measuring.
+        for (int i = 0; i < ITERATIONS; i++)
+            RailsRoutesParserTest.parseLineByLine(smallOutput);
+
+        long smallTime = measureParsingTime(smallOutput);
+        long largeTime = measureParsingTime(largeOutput);
+
+        // Output is 8 times larger, so linear parsing should take about 8
+        // times longer, while quadratic one - about 64 times.
+        System.out.printf("100 engines: %.2f ms%n", smallTime / 1e6);
+        System.out.printf("800 engines: %.2f ms (x%.1f)%n", largeTime / 1e6,
+                (double) largeTime / smallTime);
+    }
+
+
+    private static long measureParsingTime(String output)
+    {
+        long bestTime = Long.MAX_VALUE;
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            RailsRoutesParserTest.parseLineByLine(output);
+            bestTime = Math.min(bestTime, System.nanoTime() - start);
+        }
+
+        return bestTime;
+    }
+}
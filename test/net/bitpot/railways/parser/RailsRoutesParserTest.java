@@ -14,6 +14,7 @@ import org.junit.Test;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -194,6 +195,142 @@ public class RailsRoutesParserTest
     }
 
 
+    @Test
+    public void testParsingLineByLine() throws Exception {
+        String output = readFile("test/data/engine_routes_parsing.data.txt");
+        RouteList expected = parser.parse(output, null);
+
+        RailsRoutesParser lineParser = new RailsRoutesParser();
+        lineParser.beginParsing();
+
+        for (String line : output.split("\n"))
+            lineParser.parseNextLine(line);
+
+        RouteList actual = lineParser.getRoutes();
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++)
+            TestUtils.assertRouteEquals(expected.get(i), actual.get(i));
+    }
+
+
+    @Test
+    public void testParallelParsingGivesSameResultAsSequential() throws Exception {
+        String data = readFile("test/data/engine_routes_parsing.data.txt");
+
+        // Make output large enough to be split into several parsing tasks.
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < 2000; i++)
+            output.append(data);
+
+        String[] lines = output.toString().split("\n");
+
+        RailsRoutesParser lineParser = new RailsRoutesParser();
+        lineParser.beginParsing();
+        for (String line : lines)
+            lineParser.parseNextLine(line);
+
+        RouteList expected = lineParser.getRoutes();
+        RouteList actual = parser.parseInParallel(Arrays.asList(lines));
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            TestUtils.assertRouteEquals(expected.get(i), actual.get(i));
+            assertEquals(engineName(expected.get(i)), engineName(actual.get(i)));
+        }
+    }
+
+
+    @Test
+    public void testParsingManyEngines() {
+        RouteList routes = parser.parse(generateEnginesOutput(100, 3), null);
+        assertEquals(100 * 4, routes.size());
+
+        // Each engine mount route is followed by routes of the engine.
+        for (int i = 0; i < 100; i++) {
+            Route route = routes.get(i * 4);
+            assertEquals("Engine" + i + "::Engine", route.getActionTitle());
+
+            for (int j = 1; j <= 3; j++) {
+                route = routes.get(i * 4 + j);
+                assertEquals("/engine" + i + "/items" + j + "(.:format)", route.getPath());
+                assertEquals("Engine" + i + "::Engine",
+                        route.getParentEngine().getRubyClassName());
+            }
+        }
+    }
+
+
+    @Test
+    public void testEngineSectionsFollowMountRoutesWhenParsedLineByLine() {
+        RouteList routes = parseLineByLine(generateEnginesOutput(800, 5));
+        assertEquals(800 * 6, routes.size());
+
+        // Every section header finds its own mount route, even when there
+        // are hundreds of mounted engines.
+        for (int i = 0; i < 800; i++) {
+            assertEquals("Engine" + i + "::Engine", routes.get(i * 6).getActionTitle());
+
+            for (int j = 1; j <= 5; j++)
+                assertEquals("Engine" + i + "::Engine",
+                        routes.get(i * 6 + j).getParentEngine().getRubyClassName());
+        }
+    }
+
+
+    private static String engineName(Route route) {
+        return route.getParentEngine() == null ? null :
+                route.getParentEngine().getRubyClassName();
+    }
+
+
+    static RouteList parseLineByLine(String output) {
+        RailsRoutesParser lineParser = new RailsRoutesParser();
+        lineParser.beginParsing();
+
+        for (String line : output.split("\n"))
+            lineParser.parseNextLine(line);
+
+        return lineParser.getRoutes();
+    }
+
+
+    /**
+     * Generates 'rake routes' output where all engines are mounted in the
+     * application and followed by sections of engine routes.
+     */
+    static String generateEnginesOutput(int enginesCount, int routesPerEngine) {
+        StringBuilder sb = new StringBuilder("Prefix Verb URI Pattern Controller#Action\n");
+
+        for (int i = 0; i < enginesCount; i++)
+            sb.append("engine").append(i).append("  /engine").append(i)
+                    .append("  Engine").append(i).append("::Engine\n");
+
+        for (int i = 0; i < enginesCount; i++) {
+            sb.append("\nRoutes for Engine").append(i).append("::Engine:\n");
+
+            for (int j = 1; j <= routesPerEngine; j++)
+                sb.append("items").append(j).append(" GET  /items").append(j)
+                        .append("(.:format)  items#index").append(j).append("\n");
+        }
+
+        return sb.toString();
+    }
+
+
+    @Test
+    public void testRoutesSnapshotIsNotChangedByParser() {
+        parser.beginParsing();
+        parser.parseNextLine("  clients GET    /clients(.:format)          clients#index");
+
+        RouteList snapshot = parser.getRoutesSnapshot();
+        parser.parseNextLine("  client GET    /clients/:id(.:format)      clients#show");
+
+        assertEquals(1, snapshot.size());
+        assertEquals(2, parser.getRoutes().size());
+    }
+
+
     @Test
     public void testParsingRedirectToConstant() {
         List<Route> routes = parser.parseLine(
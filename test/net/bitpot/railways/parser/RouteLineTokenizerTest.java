@@ -0,0 +1,78 @@
+package net.bitpot.railways.parser;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests for breaking route lines into parts.
+ */
+public class RouteLineTokenizerTest {
+
+    @Test
+    public void testTokenizeNewFormat() {
+        RouteLineTokenizer.RouteLine line = RouteLineTokenizer.tokenize(
+                "  spots GET|POST    (/:locale)/spots(.:format)         spots#index {:locale=>/en|ja/}");
+
+        assertNotNull(line);
+        assertEquals("spots", line.getName());
+        assertArrayEquals(new String[] {"GET", "POST"}, line.getRequestMethods());
+        assertEquals("(/:locale)/spots(.:format)", line.getPath());
+        assertEquals("spots", line.getController());
+        assertEquals("index", line.getAction());
+        assertEquals("", line.getEngineClass());
+        assertNull(line.getRedirectPath());
+    }
+
+
+    @Test
+    public void testTokenizeOldFormat() {
+        RouteLineTokenizer.RouteLine line = RouteLineTokenizer.tokenize(
+                "   PUT    /photo_albums/:id(.:format)   {:action=>\"update\", :controller=>'photo_albums'}");
+
+        assertNotNull(line);
+        assertEquals("", line.getName());
+        assertArrayEquals(new String[] {"PUT"}, line.getRequestMethods());
+        assertEquals("photo_albums", line.getController());
+        assertEquals("update", line.getAction());
+    }
+
+
+    @Test
+    public void testTokenizeMountedEngine() {
+        RouteLineTokenizer.RouteLine line = RouteLineTokenizer.tokenize(
+                "    test_server        /test                     {:to=>Test::Server}");
+
+        assertNotNull(line);
+        assertArrayEquals(new String[] {""}, line.getRequestMethods());
+        assertEquals("Test::Server", line.getEngineClass());
+        assertEquals("", line.getAction());
+    }
+
+
+    @Test
+    public void testTokenizeRedirect() {
+        RouteLineTokenizer.RouteLine line = RouteLineTokenizer.tokenize(
+                " stories GET    /stories(.:format)  redirect(301, /posts#test)");
+
+        assertNotNull(line);
+        assertEquals("/posts#test", line.getRedirectPath());
+
+        line = RouteLineTokenizer.tokenize(" proc GET  /proc(.:format)  redirect(301)");
+
+        assertNotNull(line);
+        assertEquals("", line.getRedirectPath());
+    }
+
+
+    @Test
+    public void testTokenizeInvalidLines() {
+        assertNull(RouteLineTokenizer.tokenize("   Prefix Verb   URI Pattern   Controller#Action"));
+        assertNull(RouteLineTokenizer.tokenize("/users users#index"));
+        assertNull(RouteLineTokenizer.tokenize("users GET /users"));
+        assertNull(RouteLineTokenizer.tokenize("users GET/users users#index"));
+        assertNull(RouteLineTokenizer.tokenize("users | /users users#index"));
+        assertNull(RouteLineTokenizer.tokenize(""));
+    }
+}
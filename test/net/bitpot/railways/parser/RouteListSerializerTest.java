@@ -0,0 +1,109 @@
+package net.bitpot.railways.parser;
+
+
+import net.bitpot.railways.models.Route;
+import net.bitpot.railways.models.RouteList;
+import net.bitpot.railways.utils.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests for RouteListSerializer.
+ */
+public class RouteListSerializerTest
+{
+    private File snapshotFile;
+
+    @Before
+    public void setUp() throws Exception {
+        snapshotFile = File.createTempFile("railways", ".routes");
+    }
+
+
+    @After
+    public void tearDown() {
+        snapshotFile.delete();
+    }
+
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        RailsRoutesParser parser = new RailsRoutesParser();
+        RouteList expected = parser.parseFile("test/data/engine_routes_parsing.data.txt");
+        expected.addAll(parser.parseLine("redirect GET /books(.:format) redirect(301, /library)"));
+        expected.addAll(parser.parseLine("redirect_proc GET /proc(.:format) redirect(301)"));
+
+        RouteListSerializer.write(expected, snapshotFile);
+        RouteList actual = RouteListSerializer.read(snapshotFile, null);
+
+        assertNotNull(actual);
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            Route expectedRoute = expected.get(i);
+            Route actualRoute = actual.get(i);
+
+            TestUtils.assertRouteEquals(expectedRoute, actualRoute);
+            assertEquals(expectedRoute.getActionTitle(), actualRoute.getActionTitle());
+
+            if (expectedRoute.getParentEngine() == null)
+                assertNull(actualRoute.getParentEngine());
+            else
+                assertEquals(expectedRoute.getParentEngine().getRubyClassName(),
+                        actualRoute.getParentEngine().getRubyClassName());
+        }
+
+        // Engine routes computed from parent engine should be the same.
+        assertEquals(expected.get(1).getRouteName(), actual.get(1).getRouteName());
+        assertSame(actual.get(1).getParentEngine(), actual.get(2).getParentEngine());
+    }
+
+
+    @Test
+    public void testOverwritingReadSnapshot() throws Exception {
+        RailsRoutesParser parser = new RailsRoutesParser();
+        RouteList routes = parser.parseFile("test/data/engine_routes_parsing.data.txt");
+
+        RouteListSerializer.write(routes, snapshotFile);
+        assertNotNull(RouteListSerializer.read(snapshotFile, null));
+
+        // Snapshot that was read doesn't prevent writing a new one.
+        routes.addAll(parser.parseLine("redirect GET /books(.:format) redirect(301, /library)"));
+        RouteListSerializer.write(routes, snapshotFile);
+
+        RouteList actual = RouteListSerializer.read(snapshotFile, null);
+        assertNotNull(actual);
+        assertEquals(routes.size(), actual.size());
+        assertFalse(new File(snapshotFile.getPath() + ".tmp").exists());
+    }
+
+
+    @Test
+    public void testReadingOtherFormatVersion() throws Exception {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(snapshotFile))) {
+            out.writeInt(0x52574159);
+            out.writeInt(RouteListSerializer.FORMAT_VERSION + 1);
+            out.writeInt(0);
+        }
+
+        assertNull(RouteListSerializer.read(snapshotFile, null));
+    }
+
+
+    @Test
+    public void testReadingTextCache() throws Exception {
+        try (FileOutputStream out = new FileOutputStream(snapshotFile)) {
+            out.write("  clients GET    /clients(.:format)          clients#index".getBytes());
+        }
+
+        assertNull(RouteListSerializer.read(snapshotFile, null));
+    }
+}
@@ -0,0 +1,225 @@
+package net.bitpot.railways.parser;
+
+
+import net.bitpot.railways.models.RequestMethods;
+import net.bitpot.railways.models.Route;
+import net.bitpot.railways.models.RouteList;
+import net.bitpot.railways.models.requestMethods.RequestMethod;
+import net.bitpot.railways.models.routes.EngineRoute;
+import net.bitpot.railways.models.routes.RedirectRoute;
+import net.bitpot.railways.models.routes.SimpleRoute;
+import net.bitpot.railways.utils.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests for RoutesDslMapper. Expected routes are the same as 'rake routes'
+ * prints for the same routes.rb.
+ */
+public class RoutesDslMapperTest
+{
+    private RoutesDslMapper mapper = null;
+
+    @Before
+    public void setUp() {
+        mapper = new RoutesDslMapper(null);
+    }
+
+
+    @Test
+    public void testResources() {
+        // resources :users
+        RouteList routes = map(call("resources").addArgument(":users"));
+
+        assertEquals(8, routes.size());
+        assertRoute(routes.get(0), RequestMethods.GET, "/users(.:format)", "users", "users", "index");
+        assertRoute(routes.get(1), RequestMethods.POST, "/users(.:format)", "", "users", "create");
+        assertRoute(routes.get(2), RequestMethods.GET, "/users/new(.:format)", "new_user", "users", "new");
+        assertRoute(routes.get(3), RequestMethods.GET, "/users/:id/edit(.:format)", "edit_user", "users", "edit");
+        assertRoute(routes.get(4), RequestMethods.GET, "/users/:id(.:format)", "user", "users", "show");
+        assertRoute(routes.get(5), RequestMethods.PATCH, "/users/:id(.:format)", "", "users", "update");
+        assertRoute(routes.get(6), RequestMethods.PUT, "/users/:id(.:format)", "", "users", "update");
+        assertRoute(routes.get(7), RequestMethods.DELETE, "/users/:id(.:format)", "", "users", "destroy");
+    }
+
+
+    @Test
+    public void testNamespacedResourcesWithOnlyOption() {
+        // namespace :admin do
+        //   resources :categories, only: [:index, :show]
+        // end
+        RouteList routes = map(call("namespace").addArgument(":admin")
+                .addBlockCall(call("resources").addArgument(":categories")
+                        .addOption("only:", "[:index, :show]")));
+
+        assertEquals(2, routes.size());
+        assertRoute(routes.get(0), RequestMethods.GET, "/admin/categories(.:format)",
+                "admin_categories", "admin/categories", "index");
+        assertRoute(routes.get(1), RequestMethods.GET, "/admin/categories/:id(.:format)",
+                "admin_category", "admin/categories", "show");
+    }
+
+
+    @Test
+    public void testNestedResourcesWithMemberAndCollection() {
+        // resources :users, except: %i[new edit update destroy create show] do
+        //   member { get :preview }
+        //   collection { get :search }
+        //   get :stats, on: :member
+        //   resources :posts, only: :index
+        // end
+        RouteList routes = map(call("resources").addArgument(":users")
+                .addOption("except:", "%i[new edit update destroy create show]")
+                .addBlockCall(call("member").addBlockCall(call("get").addArgument(":preview")))
+                .addBlockCall(call("collection").addBlockCall(call("get").addArgument(":search")))
+                .addBlockCall(call("get").addArgument(":stats").addOption("on:", ":member"))
+                .addBlockCall(call("resources").addArgument(":posts").addOption(":only", ":index")));
+
+        assertEquals(5, routes.size());
+        assertRoute(routes.get(0), RequestMethods.GET, "/users/:id/preview(.:format)",
+                "preview_user", "users", "preview");
+        assertRoute(routes.get(1), RequestMethods.GET, "/users/search(.:format)",
+                "search_users", "users", "search");
+        assertRoute(routes.get(2), RequestMethods.GET, "/users/:id/stats(.:format)",
+                "stats_user", "users", "stats");
+        assertRoute(routes.get(3), RequestMethods.GET, "/users/:user_id/posts(.:format)",
+                "user_posts", "posts", "index");
+        assertRoute(routes.get(4), RequestMethods.GET, "/users(.:format)",
+                "users", "users", "index");
+    }
+
+
+    @Test
+    public void testSingularResource() {
+        // resource :profile, only: [:show, :update]
+        RouteList routes = map(call("resource").addArgument(":profile")
+                .addOption("only:", "[:show, :update]"));
+
+        assertEquals(3, routes.size());
+        assertRoute(routes.get(0), RequestMethods.GET, "/profile(.:format)", "profile", "profiles", "show");
+        assertRoute(routes.get(1), RequestMethods.PATCH, "/profile(.:format)", "", "profiles", "update");
+        assertRoute(routes.get(2), RequestMethods.PUT, "/profile(.:format)", "", "profiles", "update");
+    }
+
+
+    @Test
+    public void testVerbsAndRoot() {
+        // root 'pages#home'
+        // get 'about', to: 'pages#about'
+        // post '/photos/:id' => 'photos#upload', as: :upload
+        // match 'search', to: 'search#index', via: [:get, :post]
+        // get 'stories', to: redirect('/articles')
+        RouteList routes = map(
+                call("root").addArgument("'pages#home'"),
+                call("get").addArgument("'about'").addOption("to:", "'pages#about'"),
+                call("post").addOption("'/photos/:id'", "'photos#upload'").addOption("as:", ":upload"),
+                call("match").addArgument("'search'").addOption("to:", "'search#index'")
+                        .addOption("via:", "[:get, :post]"),
+                call("get").addArgument("'stories'").addOption("to:", "redirect('/articles')"));
+
+        assertEquals(6, routes.size());
+        assertRoute(routes.get(0), RequestMethods.GET, "/", "root", "pages", "home");
+        assertRoute(routes.get(1), RequestMethods.GET, "/about(.:format)", "about", "pages", "about");
+        assertRoute(routes.get(2), RequestMethods.POST, "/photos/:id(.:format)", "upload", "photos", "upload");
+        assertRoute(routes.get(3), RequestMethods.GET, "/search(.:format)", "search", "search", "index");
+        assertRoute(routes.get(4), RequestMethods.POST, "/search(.:format)", "", "search", "index");
+
+        Route redirect = routes.get(5);
+        assertEquals(RedirectRoute.class, redirect.getClass());
+        assertEquals("/articles", redirect.getActionTitle());
+        assertEquals("/stories(.:format)", redirect.getPath());
+    }
+
+
+    @Test
+    public void testScopeAndMount() {
+        // scope '/api', module: :api, as: :api do
+        //   get 'status' => 'health#show'
+        //   root to: 'docs#index'
+        // end
+        // mount RailsAdmin::Engine => '/admin', as: 'rails_admin'
+        // mount Sidekiq::Web, at: '/sidekiq'
+        RouteList routes = map(
+                call("scope").addArgument("'/api'").addOption("module:", ":api").addOption("as:", ":api")
+                        .addBlockCall(call("get").addOption("'status'", "'health#show'"))
+                        .addBlockCall(call("root").addOption("to:", "'docs#index'")),
+                call("mount").addOption("RailsAdmin::Engine", "'/admin'").addOption("as:", "'rails_admin'"),
+                call("mount").addArgument("Sidekiq::Web").addOption("at:", "'/sidekiq'"));
+
+        assertEquals(4, routes.size());
+        assertRoute(routes.get(0), RequestMethods.GET, "/api/status(.:format)", "api_status", "api/health", "show");
+        assertRoute(routes.get(1), RequestMethods.GET, "/api(.:format)", "api_root", "api/docs", "index");
+
+        Route engine = routes.get(2);
+        assertEquals(EngineRoute.class, engine.getClass());
+        assertEquals("/admin", engine.getPath());
+        assertEquals("rails_admin", engine.getRouteName());
+        assertEquals("RailsAdmin::Engine", engine.getQualifiedActionTitle());
+
+        engine = routes.get(3);
+        assertEquals("/sidekiq", engine.getPath());
+        assertEquals("sidekiq_web", engine.getRouteName());
+    }
+
+
+    @Test
+    public void testDrawBlockRoutesAreInCurrentScope() {
+        // namespace :admin do
+        //   draw :admin  # contains "get 'stats', to: 'stats#index'"
+        // end
+        RouteList routes = map(call("namespace").addArgument(":admin")
+                .addBlockCall(call("draw").addArgument(":admin")
+                        .addBlockCall(call("get").addArgument("'stats'")
+                                .addOption("to:", "'stats#index'"))));
+
+        assertEquals(1, routes.size());
+        assertRoute(routes.get(0), RequestMethods.GET, "/admin/stats(.:format)",
+                "admin_stats", "admin/stats", "index");
+    }
+
+
+    @Test
+    public void testLiterals() {
+        assertEquals("users", RoutesDslMapper.literal(":users"));
+        assertEquals("users#index", RoutesDslMapper.literal("'users#index'"));
+        assertEquals("/about", RoutesDslMapper.literal("\"/about\""));
+        assertEquals("to", RoutesDslMapper.literal("to:"));
+        assertNull(RoutesDslMapper.literal("\"#{prefix}/about\""));
+        assertNull(RoutesDslMapper.literal("Admin::Engine"));
+
+        assertEquals(Arrays.asList("index", "show"), RoutesDslMapper.literalList("%i[index show]"));
+        assertEquals(Arrays.asList("get", "post"), RoutesDslMapper.literalList("[:get, 'post']"));
+    }
+
+
+    @Test
+    public void testInflections() {
+        assertEquals("category", RoutesDslMapper.singularize("categories"));
+        assertEquals("address", RoutesDslMapper.singularize("addresses"));
+        assertEquals("user", RoutesDslMapper.singularize("users"));
+        assertEquals("profiles", RoutesDslMapper.pluralize("profile"));
+        assertEquals("companies", RoutesDslMapper.pluralize("company"));
+    }
+
+
+    private static RoutesDslCall call(String methodName) {
+        return new RoutesDslCall(methodName);
+    }
+
+
+    private RouteList map(RoutesDslCall... calls) {
+        return mapper.map(Arrays.asList(calls));
+    }
+
+
+    private static void assertRoute(Route actual, RequestMethod method, String path,
+                                    String name, String controller, String action) {
+        TestUtils.assertRouteEquals(new SimpleRoute(null, method, path, name,
+                controller, action), actual);
+    }
+}
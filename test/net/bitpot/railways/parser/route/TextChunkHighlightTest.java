@@ -8,6 +8,8 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test of route parser.
@@ -142,6 +144,50 @@ public class TextChunkHighlightTest
     }
 
 
+    @Test
+    public void testSpansMatchHighlightedChunks() {
+        RoutePathParser parser = RoutePathParser.getInstance();
+        List<TextChunk> chunks = parser.parse("/test/:id/edit(.:format)");
+        HighlightSpans spans = new HighlightSpans(1);
+
+        int[][] regionSets = {
+                {}, {0, 1}, {1, 3}, {2, 8}, {6, 9}, {1, 2, 3, 4, 16, 24}, {0, 24}
+        };
+
+        for (int[] regions : regionSets) {
+            List<TextChunk> expected = regions.length == 0 ? chunks :
+                    parser.highlight(chunks, regions);
+
+            TextChunkHighlighter.findSpans(chunks, regions, regions.length, spans);
+            assertChunkListEqual(expected, spansToChunks(chunks, spans.copy()));
+        }
+    }
+
+
+    @Test
+    public void testWholeChunkSpanTextIsNotCopied() {
+        List<TextChunk> chunks = RoutePathParser.getInstance().parse("/tasks/:id");
+        HighlightSpans spans = new HighlightSpans();
+
+        TextChunkHighlighter.findSpans(chunks, new int[] {7, 10, 0, 0}, 2, spans);
+
+        assertEquals(2, spans.getSpanCount());
+        assertSame(chunks.get(1).getText(), spans.getText(chunks, 1));
+        assertTrue(spans.isHighlighted(1));
+    }
+
+
+    private static List<TextChunk> spansToChunks(List<TextChunk> chunks, HighlightSpans spans) {
+        List<TextChunk> result = new ArrayList<>();
+
+        for (int i = 0; i < spans.getSpanCount(); i++)
+            result.add(createChunk(chunks.get(spans.getChunkIndex(i)).getType(),
+                    spans.getText(chunks, i), spans.isHighlighted(i)));
+
+        return result;
+    }
+
+
     private void assertChunkListEqual(List<TextChunk> expectedList, List<TextChunk> actualList) {
         assertEquals("Tokens count are equal",
                 expectedList.size(), actualList.size());
@@ -2,8 +2,15 @@ package net.bitpot.railways.utils;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 
 public class RailwaysUtilsTest {
@@ -32,4 +39,35 @@ public class RailwaysUtilsTest {
         assertEquals("/books", result);
     }
 
+    @Test
+    public void test_orderIncludedModules() {
+        // UsersController includes Auth and then Logging, Logging includes
+        // Formatting, which includes Logging back.
+        Map<String, List<String>> includes = new HashMap<>();
+        includes.put("UsersController", Arrays.asList("Auth", "Logging"));
+        includes.put("Logging", Collections.singletonList("Formatting"));
+        includes.put("Formatting", Collections.singletonList("Logging"));
+
+        // All modules are searched, the last included one goes first.
+        List<String> result = RailwaysPsiUtils.orderIncludedModules("UsersController",
+                name -> includes.getOrDefault(name, Collections.emptyList()));
+        assertEquals(Arrays.asList("Logging", "Formatting", "Auth"), result);
+    }
+
+    @Test
+    public void test_findInHierarchy() {
+        Map<String, String> parents = new HashMap<>();
+        parents.put("UsersController", "ApplicationController");
+        parents.put("ApplicationController", "UsersController");
+
+        String result = RailwaysPsiUtils.findInHierarchy("UsersController", parents::get,
+                name -> name.startsWith("Application") ? name : null);
+        assertEquals("ApplicationController", result);
+
+        // Cyclic inheritance doesn't hang the search.
+        result = RailwaysPsiUtils.findInHierarchy("UsersController", parents::get,
+                name -> null);
+        assertNull(result);
+    }
+
 }
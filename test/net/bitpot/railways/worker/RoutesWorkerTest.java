@@ -0,0 +1,192 @@
+package net.bitpot.railways.worker;
+
+
+import com.intellij.execution.process.ProcessOutput;
+import net.bitpot.railways.models.RouteList;
+import net.bitpot.railways.parser.RailsRoutesParser;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests for RoutesWorker protocol. Worker process is replaced by a stub.
+ */
+public class RoutesWorkerTest
+{
+    private RoutesWorker worker = null;
+
+    @After
+    public void tearDown() {
+        if (worker != null)
+            worker.stop();
+    }
+
+
+    @Test
+    public void testQueryRoutes() throws Exception {
+        worker = startStubWorker("", null);
+        assertTrue(worker.waitUntilReady());
+
+        List<String> lines = new ArrayList<>();
+        ProcessOutput output = worker.queryRoutes(lines::add);
+
+        assertNotNull(output);
+        assertEquals(0, output.getExitCode());
+        assertEquals("", output.getStderr());
+        assertEquals(3, lines.size());
+
+        RouteList routes = new RailsRoutesParser().parse(output.getStdout(), output.getStderr());
+        assertEquals(2, routes.size());
+        assertEquals("/clients/:id(.:format)", routes.get(1).getPath());
+    }
+
+
+    @Test
+    public void testWorkerIsReused() throws Exception {
+        worker = startStubWorker("", null);
+
+        for (int i = 0; i < 3; i++) {
+            ProcessOutput output = worker.queryRoutes(null);
+
+            assertNotNull(output);
+            assertEquals(2, new RailsRoutesParser().parse(output.getStdout(), null).size());
+        }
+
+        assertTrue(worker.isAlive());
+    }
+
+
+    @Test
+    public void testRoutesLoadingError() throws Exception {
+        worker = startStubWorker("error", null);
+
+        List<String> lines = new ArrayList<>();
+        ProcessOutput output = worker.queryRoutes(lines::add);
+
+        assertNotNull(output);
+        assertEquals(1, output.getExitCode());
+        assertTrue(lines.isEmpty());
+        assertTrue(output.getStderr().startsWith("NameError"));
+
+        RailsRoutesParser parser = new RailsRoutesParser();
+        parser.parse(output.getStdout(), output.getStderr());
+        assertEquals(RailsRoutesParser.ERROR_GENERAL, parser.getErrorCode());
+    }
+
+
+    @Test
+    public void testApplicationLoadingError() throws Exception {
+        worker = startStubWorker("crash", null);
+
+        assertFalse(worker.waitUntilReady());
+        assertNull(worker.queryRoutes(null));
+    }
+
+
+    @Test
+    public void testHungWorkerIsKilledAfterTimeout() throws Exception {
+        worker = startStubWorker("hang", null);
+
+        assertFalse(worker.waitUntilReady(() -> false, 500));
+        assertWorkerIsKilled();
+    }
+
+
+    @Test
+    public void testWaitingForWorkerIsCancelled() throws Exception {
+        worker = startStubWorker("hang", null);
+
+        long deadline = System.currentTimeMillis() + 300;
+        assertFalse(worker.waitUntilReady(
+                () -> System.currentTimeMillis() > deadline, RoutesWorker.BOOT_TIMEOUT_MS));
+        assertWorkerIsKilled();
+    }
+
+
+    @Test
+    public void testOutputPassedInChunks() throws Exception {
+        Process process = new ProcessBuilder(getJavaPath(), "-version").start();
+        worker = new RoutesWorker(process, null, false);
+
+        worker.appendOutput("Loading...\r\n#railways:");
+        worker.appendOutput("ready\n");
+        assertTrue(worker.waitUntilReady());
+
+        worker.appendOutput("  client GET  /clients/:id(.:format)  clients#show\n" +
+                RoutesWorker.END_MARKER);
+        worker.closeOutput();
+
+        ProcessOutput output = worker.queryRoutes(null);
+        assertNotNull(output);
+        assertEquals(1, new RailsRoutesParser().parse(output.getStdout(), null).size());
+    }
+
+
+    @Test
+    public void testScriptIsLoadedFromClasspath() throws Exception {
+        assertNotNull(RoutesWorker.class.getResourceAsStream(RoutesWorker.SCRIPT_NAME));
+
+        String script = new String(Files.readAllBytes(RoutesWorker.getScriptFile().toPath()),
+                StandardCharsets.UTF_8);
+        assertTrue(script.contains(RoutesWorker.READY_MARKER));
+    }
+
+
+    @Test
+    public void testWorkerIsOutdatedWhenGemfileLockChanges() throws Exception {
+        File gemfileLock = File.createTempFile("Gemfile", ".lock");
+        gemfileLock.deleteOnExit();
+        gemfileLock.setLastModified(1000000000000L);
+
+        worker = startStubWorker("", gemfileLock);
+        assertTrue(worker.waitUntilReady());
+        assertFalse(worker.isOutdated());
+
+        gemfileLock.setLastModified(1000000060000L);
+        assertTrue(worker.isOutdated());
+    }
+
+
+    @Test
+    public void testWorkerIsOutdatedWhenStopped() throws Exception {
+        RoutesWorker stoppedWorker = startStubWorker("", null);
+        assertTrue(stoppedWorker.waitUntilReady());
+
+        stoppedWorker.stop();
+        for (int i = 0; i < 100 && stoppedWorker.isAlive(); i++)
+            Thread.sleep(50);
+
+        assertTrue(stoppedWorker.isOutdated());
+    }
+
+
+    private RoutesWorker startStubWorker(String mode, File gemfileLock) throws Exception {
+        Process process = new ProcessBuilder(getJavaPath(),
+                "-cp", System.getProperty("java.class.path"),
+                StubRoutesWorker.class.getName(), mode).start();
+
+        return new RoutesWorker(process, gemfileLock);
+    }
+
+
+    private void assertWorkerIsKilled() throws InterruptedException {
+        for (int i = 0; i < 100 && worker.isAlive(); i++)
+            Thread.sleep(50);
+
+        assertFalse(worker.isAlive());
+    }
+
+
+    private static String getJavaPath() {
+        return System.getProperty("java.home") + File.separator +
+                "bin" + File.separator + "java";
+    }
+}
@@ -0,0 +1,55 @@
+package net.bitpot.railways.worker;
+
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+
+/**
+ * Stub of routes worker script which follows the same protocol, but prints
+ * predefined routes. Behavior is selected by the first argument:
+ * "error" - routes cannot be loaded, "crash" - application cannot be loaded,
+ * "hang" - application loading never finishes.
+ */
+public class StubRoutesWorker
+{
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "";
+
+        // Some output can be printed while application is loading.
+        System.out.println("Loading application...");
+        System.err.println("DEPRECATION WARNING: something is deprecated");
+
+        if (mode.equals("crash")) {
+            System.err.println("config/environment.rb:5: uninitialized constant Foo");
+            System.exit(1);
+        }
+
+        if (mode.equals("hang"))
+            Thread.sleep(Long.MAX_VALUE);
+
+        System.out.println(RoutesWorker.READY_MARKER);
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        String command;
+
+        while ((command = in.readLine()) != null) {
+            if (command.equals(RoutesWorker.QUIT_COMMAND))
+                break;
+
+            if (!command.equals(RoutesWorker.ROUTES_COMMAND))
+                continue;
+
+            if (mode.equals("error")) {
+                System.out.println(RoutesWorker.ERROR_MARKER);
+                System.out.println("NameError: undefined local variable or method `foo'");
+                System.out.println("config/routes.rb:2:in `block in <top (required)>'");
+            } else {
+                System.out.println("  Prefix Verb URI Pattern             Controller#Action");
+                System.out.println(" clients GET  /clients(.:format)      clients#index");
+                System.out.println("  client GET  /clients/:id(.:format)  clients#show");
+            }
+
+            System.out.println(RoutesWorker.END_MARKER);
+        }
+    }
+}